@@ -0,0 +1,143 @@
+/*
+ * Copyright 2005,2009 Ivan SZKIBA
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ini4j.benchmark;
+
+import org.ini4j.Config;
+import org.ini4j.Ini;
+import org.ini4j.Profile;
+import org.ini4j.ProfileSnapshot;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Getter calls through {@link Profile#as(Class)} and
+ * {@link Profile.Section#as(Class)} bean proxies, over a mutable
+ * {@link Ini} or a {@link ProfileSnapshot} of it (<code>snapshot</code>).
+ * {@link #getAllShared} reads one proxy from four threads. With
+ * <code>generated</code> the beans are generated classes instead of proxies
+ * (see {@link Config#isGeneratedBeans()}).
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class BeanBenchmark
+{
+    @Param({ "false", "true" })
+    private boolean generated;
+    @Param({ "false", "true" })
+    private boolean snapshot;
+    private Server _server;
+    private Servers _servers;
+
+    @Setup public void setUp()
+    {
+        Ini ini = new Ini();
+        Config config = ini.getConfig().clone();
+
+        config.setGeneratedBeans(generated);
+        ini.setConfig(config);
+        Profile.Section server = ini.add("server");
+
+        server.put("host", "localhost");
+        server.put("port", 8080);
+        server.put("secure", true);
+        server.put("timeout", 2.5);
+        server.put("url", "http://${host}:${port}/");
+        server.add("alias", "www");
+        server.add("alias", "web");
+        Profile profile = snapshot ? ProfileSnapshot.of(ini) : ini;
+
+        _server = profile.get("server").as(Server.class);
+        _servers = profile.as(Servers.class);
+    }
+
+    @Benchmark public String getString()
+    {
+        return _server.getHost();
+    }
+
+    @Benchmark public int getInt()
+    {
+        return _server.getPort();
+    }
+
+    @Benchmark public void getAll(Blackhole hole)
+    {
+        hole.consume(_server.getHost());
+        hole.consume(_server.getPort());
+        hole.consume(_server.isSecure());
+        hole.consume(_server.getTimeout());
+    }
+
+    @Benchmark
+    @Threads(4)
+    public void getAllShared(Blackhole hole)
+    {
+        getAll(hole);
+    }
+
+    @Benchmark public String getResolved()
+    {
+        return _server.getUrl();
+    }
+
+    @Benchmark public String[] getArray()
+    {
+        return _server.getAlias();
+    }
+
+    @Benchmark public Server getSection()
+    {
+        return _servers.getServer();
+    }
+
+    public interface Server
+    {
+        String[] getAlias();
+
+        String getHost();
+
+        int getPort();
+
+        boolean isSecure();
+
+        double getTimeout();
+
+        String getUrl();
+    }
+
+    public interface Servers
+    {
+        Server getServer();
+    }
+}
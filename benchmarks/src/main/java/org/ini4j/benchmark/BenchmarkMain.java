@@ -0,0 +1,50 @@
+/*
+ * Copyright 2005,2009 Ivan SZKIBA
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ini4j.benchmark;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Benchmark launcher.
+ *
+ * Delegates to the JMH command line runner, but enables the GC profiler by
+ * default so that every result reports the allocation rate next to the
+ * throughput. Pass any explicit <code>-prof</code> option to override it.
+ */
+public final class BenchmarkMain
+{
+    private static final String PROFILER_OPTION = "-prof";
+    private static final String GC_PROFILER = "gc";
+
+    private BenchmarkMain()
+    {
+    }
+
+    public static void main(String[] args) throws Exception
+    {
+        List<String> argv = new ArrayList<String>(Arrays.asList(args));
+
+        if (!argv.contains(PROFILER_OPTION))
+        {
+            argv.add(PROFILER_OPTION);
+            argv.add(GC_PROFILER);
+        }
+
+        org.openjdk.jmh.Main.main(argv.toArray(new String[argv.size()]));
+    }
+}
@@ -0,0 +1,115 @@
+/*
+ * Copyright 2005,2009 Ivan SZKIBA
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ini4j.benchmark;
+
+import org.ini4j.Config;
+import org.ini4j.Ini;
+import org.ini4j.Profile;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.math.BigDecimal;
+
+import java.net.URL;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Typed option reads with {@link Profile.Section#fetch(Object, Class)}, and
+ * the primitive reads (<code>fetchInt</code>, ...) that skip the boxing.
+ * <code>valueCache</code> turns on {@link Config#isValueCache()}.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ConvertBenchmark
+{
+    @Param({ "false", "true" })
+    public boolean valueCache;
+    private Profile.Section _section;
+
+    @Setup public void setUp()
+    {
+        Ini ini = new Ini();
+        Config cfg = ini.getConfig().clone();
+
+        cfg.setValueCache(valueCache);
+        ini.setConfig(cfg);
+        _section = ini.add("limits");
+        _section.put("connections", 512);
+        _section.put("unit", TimeUnit.SECONDS);
+        _section.put("ratio", "0.75");
+        _section.put("host", "localhost");
+        _section.put("url", "http://${host}:8080/status");
+        _section.put("handler", "java.util.concurrent.ConcurrentHashMap");
+        _section.add("ports", 8080);
+        _section.add("ports", 8081);
+        _section.add("ports", 8082);
+    }
+
+    @Benchmark public int fetchInt()
+    {
+        return _section.fetch("connections", int.class);
+    }
+
+    @Benchmark public int fetchPrimitiveInt()
+    {
+        return _section.fetchInt("connections", 0);
+    }
+
+    @Benchmark public double fetchPrimitiveDouble()
+    {
+        return _section.fetchDouble("ratio", 0.0);
+    }
+
+    @Benchmark public TimeUnit fetchEnum()
+    {
+        return _section.fetch("unit", TimeUnit.class);
+    }
+
+    @Benchmark public BigDecimal fetchDecimal()
+    {
+        return _section.fetch("ratio", BigDecimal.class);
+    }
+
+    @Benchmark public URL fetchUrl()
+    {
+        return _section.fetch("url", URL.class);
+    }
+
+    @Benchmark public Class<?> fetchClass()
+    {
+        return _section.fetch("handler", Class.class);
+    }
+
+    @Benchmark public int[] fetchAll()
+    {
+        return _section.fetchAll("ports", int[].class);
+    }
+}
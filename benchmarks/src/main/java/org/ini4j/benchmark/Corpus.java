@@ -0,0 +1,363 @@
+/*
+ * Copyright 2005,2009 Ivan SZKIBA
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ini4j.benchmark;
+
+import org.ini4j.Registry;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+
+import java.nio.charset.Charset;
+
+import java.util.Locale;
+import java.util.Random;
+
+/**
+ * Synthetic INI/REG/Options corpus generator.
+ *
+ * The generated files are deterministic for a given configuration, so two
+ * benchmark runs (for example before and after a change) parse exactly the
+ * same input. The target size is approximate: generation stops at the first
+ * section boundary after the requested number of characters.
+ */
+public class Corpus
+{
+    public static final long KB = 1024L;
+    public static final long MB = KB * KB;
+    public static final String REG_ROOT = Registry.Hive.HKEY_CURRENT_USER + "\\Software\\ini4j-benchmark";
+    private static final Charset UTF8 = Charset.forName("UTF-8");
+    private static final String NEWLINE = "\n";
+    private static final String ALPHABET = "abcdefghijklmnopqrstuvwxyzABCDEFGHIJKLMNOPQRSTUVWXYZ0123456789 ./-_";
+    private static final String[] ESCAPES = { "\\t", "\\\\", "\\u00e9", "\\=", "\\:", "\\n" };
+    private static final int ESCAPE_RATIO = 8;
+    private static final int COMMENT_RATIO = 10;
+    private static final int INCLUDE_PARTS = 4;
+    private static final int REG_TYPES = 4;
+    private static final long SEED = 0x1e14L;
+    private boolean _continuations;
+    private boolean _escapes;
+    private boolean _includes;
+    private int _options = 20;
+    private long _size = 10 * KB;
+    private int _valueLength = 32;
+
+    public static long parseSize(String text)
+    {
+        String str = text.trim().toUpperCase(Locale.ROOT);
+        long unit = 1;
+
+        if (str.endsWith("KB"))
+        {
+            unit = KB;
+            str = str.substring(0, str.length() - 2);
+        }
+        else if (str.endsWith("MB"))
+        {
+            unit = MB;
+            str = str.substring(0, str.length() - 2);
+        }
+        else if (str.endsWith("GB"))
+        {
+            unit = MB * KB;
+            str = str.substring(0, str.length() - 2);
+        }
+
+        return Long.parseLong(str.trim()) * unit;
+    }
+
+    public boolean isContinuations()
+    {
+        return _continuations;
+    }
+
+    public void setContinuations(boolean value)
+    {
+        _continuations = value;
+    }
+
+    public boolean isEscapes()
+    {
+        return _escapes;
+    }
+
+    public void setEscapes(boolean value)
+    {
+        _escapes = value;
+    }
+
+    public boolean isIncludes()
+    {
+        return _includes;
+    }
+
+    public void setIncludes(boolean value)
+    {
+        _includes = value;
+    }
+
+    public int getOptions()
+    {
+        return _options;
+    }
+
+    public void setOptions(int value)
+    {
+        _options = value;
+    }
+
+    public long getSize()
+    {
+        return _size;
+    }
+
+    public void setSize(long value)
+    {
+        _size = value;
+    }
+
+    public int getValueLength()
+    {
+        return _valueLength;
+    }
+
+    public void setValueLength(int value)
+    {
+        _valueLength = value;
+    }
+
+    public File writeIni(File dir, String name) throws IOException
+    {
+        File file = new File(dir, name + ".ini");
+        Random random = new Random(SEED);
+
+        if (_includes)
+        {
+            Writer main = open(file, UTF8);
+            long partSize = _size / INCLUDE_PARTS;
+            int first = 0;
+
+            try
+            {
+                for (int i = 0; i < INCLUDE_PARTS; i++)
+                {
+                    String partName = name + "-part" + i + ".ini";
+                    Writer part = open(new File(dir, partName), UTF8);
+
+                    try
+                    {
+                        first = writeIniSections(part, random, first, partSize);
+                    }
+                    finally
+                    {
+                        part.close();
+                    }
+
+                    main.write('<');
+                    main.write(partName);
+                    main.write('>');
+                    main.write(NEWLINE);
+                }
+            }
+            finally
+            {
+                main.close();
+            }
+        }
+        else
+        {
+            Writer out = open(file, UTF8);
+
+            try
+            {
+                writeIniSections(out, random, 0, _size);
+            }
+            finally
+            {
+                out.close();
+            }
+        }
+
+        return file;
+    }
+
+    public File writeOptions(File dir, String name) throws IOException
+    {
+        File file = new File(dir, name + ".opt");
+        Random random = new Random(SEED);
+        Writer out = open(file, UTF8);
+        long written = 0;
+
+        try
+        {
+            for (int i = 0; written < _size; i++)
+            {
+                StringBuilder buff = new StringBuilder();
+
+                if ((i % COMMENT_RATIO) == 0)
+                {
+                    buff.append("# options block ").append(i).append(NEWLINE);
+                }
+
+                appendOption(buff, random, "option-" + i);
+                out.write(buff.toString());
+                written += buff.length();
+            }
+        }
+        finally
+        {
+            out.close();
+        }
+
+        return file;
+    }
+
+    public File writeReg(File dir, String name) throws IOException
+    {
+        File file = new File(dir, name + ".reg");
+        Random random = new Random(SEED);
+        Writer out = open(file, Registry.FILE_ENCODING);
+        long written = 0;
+
+        try
+        {
+            out.write(Registry.VERSION);
+            out.write(Registry.LINE_SEPARATOR);
+            out.write(Registry.LINE_SEPARATOR);
+            for (int s = 0; written < _size; s++)
+            {
+                StringBuilder buff = new StringBuilder();
+
+                buff.append('[').append(REG_ROOT).append("\\key-").append(s).append(']').append(Registry.LINE_SEPARATOR);
+                for (int o = 0; o < _options; o++)
+                {
+                    appendRegValue(buff, random, o);
+                }
+
+                buff.append(Registry.LINE_SEPARATOR);
+                out.write(buff.toString());
+
+                // UTF-16: two bytes per character
+                written += 2L * buff.length();
+            }
+        }
+        finally
+        {
+            out.close();
+        }
+
+        return file;
+    }
+
+    private Writer open(File file, Charset charset) throws IOException
+    {
+        return new BufferedWriter(new OutputStreamWriter(new FileOutputStream(file), charset), (int) (64 * KB));
+    }
+
+    private void appendOption(StringBuilder buff, Random random, String name)
+    {
+        int split = _continuations ? (_valueLength / 2) : -1;
+
+        buff.append(name).append(" = ");
+        for (int i = 0; i < _valueLength; i++)
+        {
+            if (i == split)
+            {
+                buff.append('\\').append(NEWLINE).append("    ");
+            }
+
+            if (_escapes && (random.nextInt(ESCAPE_RATIO) == 0))
+            {
+                buff.append(ESCAPES[random.nextInt(ESCAPES.length)]);
+            }
+            else
+            {
+                buff.append(ALPHABET.charAt(random.nextInt(ALPHABET.length())));
+            }
+        }
+
+        buff.append(NEWLINE);
+    }
+
+    private void appendRegValue(StringBuilder buff, Random random, int index)
+    {
+        switch (index % REG_TYPES)
+        {
+
+            case 0:
+                buff.append("\"dword-").append(index).append("\"=dword:");
+                buff.append(String.format("%08x", random.nextInt() & Integer.MAX_VALUE));
+                break;
+
+            case 1:
+                buff.append("\"binary-").append(index).append("\"=hex:");
+                for (int i = 0; i < _valueLength; i++)
+                {
+                    if (i != 0)
+                    {
+                        buff.append(',');
+                    }
+
+                    buff.append(String.format("%02x", random.nextInt(256)));
+                }
+
+                break;
+
+            default:
+                buff.append("\"string-").append(index).append("\"=\"");
+                for (int i = 0; i < _valueLength; i++)
+                {
+                    buff.append(ALPHABET.charAt(random.nextInt(ALPHABET.length())));
+                }
+
+                buff.append('"');
+                break;
+        }
+
+        buff.append(Registry.LINE_SEPARATOR);
+    }
+
+    private int writeIniSections(Writer out, Random random, int first, long size) throws IOException
+    {
+        long written = 0;
+        int s;
+
+        for (s = first; written < size; s++)
+        {
+            StringBuilder buff = new StringBuilder();
+
+            if ((s % COMMENT_RATIO) == 0)
+            {
+                buff.append("; section block ").append(s).append(NEWLINE);
+            }
+
+            buff.append("[section-").append(s).append(']').append(NEWLINE);
+            for (int o = 0; o < _options; o++)
+            {
+                appendOption(buff, random, "option-" + o);
+            }
+
+            buff.append(NEWLINE);
+            out.write(buff.toString());
+            written += buff.length();
+        }
+
+        return s;
+    }
+}
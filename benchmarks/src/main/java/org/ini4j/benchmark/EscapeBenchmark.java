@@ -0,0 +1,131 @@
+/*
+ * Copyright 2005,2009 Ivan SZKIBA
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ini4j.benchmark;
+
+import org.ini4j.spi.EscapeTool;
+import org.ini4j.spi.WinEscapeTool;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link EscapeTool} and {@link WinEscapeTool} over a corpus of values
+ * without anything to escape (<code>plain</code>) or with escapes in every
+ * value (<code>escaped</code>).
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class EscapeBenchmark
+{
+    private static final String[] PLAIN =
+        {
+            "localhost", "8080", "true", "/var/lib/service/data", "http://example.com/status", "Europe/Budapest",
+            "a somewhat longer value with spaces in it", "0.75"
+        };
+    private static final String[] ESCAPED =
+        {
+            "local\thost", "key=value", "C:\\Program Files\\Service", "line one\nline two", "Iv\u00e1n", "a:b:c", "tab\tand\\slash",
+            "\u00e9t\u00e9 \u00e0 Montr\u00e9al"
+        };
+    @Param({ "plain", "escaped" })
+    public String corpus;
+    private String[] _escaped;
+    private String[] _quoted;
+    private String[] _values;
+    private String[] _winEscaped;
+
+    @Setup public void setUp()
+    {
+        EscapeTool tool = EscapeTool.getInstance();
+
+        _values = "plain".equals(corpus) ? PLAIN : ESCAPED;
+        _escaped = new String[_values.length];
+        _quoted = new String[_values.length];
+        _winEscaped = new String[_values.length];
+        for (int i = 0; i < _values.length; i++)
+        {
+            _escaped[i] = tool.escape(_values[i]);
+            _quoted[i] = tool.quote(_values[i]);
+            _winEscaped[i] = WinEscapeTool.getInstance().escape(_values[i]);
+        }
+    }
+
+    @Benchmark public void escape(Blackhole hole)
+    {
+        EscapeTool tool = EscapeTool.getInstance();
+
+        for (String value : _values)
+        {
+            hole.consume(tool.escape(value));
+        }
+    }
+
+    @Benchmark public void unescape(Blackhole hole)
+    {
+        EscapeTool tool = EscapeTool.getInstance();
+
+        for (String value : _escaped)
+        {
+            hole.consume(tool.unescape(value));
+        }
+    }
+
+    @Benchmark public void quote(Blackhole hole)
+    {
+        EscapeTool tool = EscapeTool.getInstance();
+
+        for (String value : _values)
+        {
+            hole.consume(tool.quote(value));
+        }
+    }
+
+    @Benchmark public void unquote(Blackhole hole)
+    {
+        EscapeTool tool = EscapeTool.getInstance();
+
+        for (String value : _quoted)
+        {
+            hole.consume(tool.unquote(value));
+        }
+    }
+
+    @Benchmark public void winUnescape(Blackhole hole)
+    {
+        WinEscapeTool tool = WinEscapeTool.getInstance();
+
+        for (String value : _winEscaped)
+        {
+            hole.consume(tool.unescape(value));
+        }
+    }
+}
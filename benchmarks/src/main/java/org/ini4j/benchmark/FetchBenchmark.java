@@ -0,0 +1,149 @@
+/*
+ * Copyright 2005,2009 Ivan SZKIBA
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ini4j.benchmark;
+
+import org.ini4j.Ini;
+import org.ini4j.Profile;
+import org.ini4j.ReferenceGraph;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Option lookup with and without ${} expansion.
+ *
+ * Every section holds a plain value, a local reference, a cross section
+ * reference and the head of a reference chain of the configured depth. The
+ * fetchAll and resolveAll benchmarks change every plain value first, so all
+ * other values have to be resolved again; resolveAll resolves them in bulk
+ * with the reference graph built at setup.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class FetchBenchmark
+{
+    private static final String PLAIN = "plain";
+    private static final String LOCAL = "local";
+    private static final String REMOTE = "remote";
+    private static final String CHAIN = "chain";
+    @Param({ "100" })
+    public int sections;
+    @Param({ "1", "8" })
+    public int depth;
+    private Profile.Section _section;
+    private ReferenceGraph _graph;
+    private Ini _ini;
+
+    @Setup public void setUp()
+    {
+        _ini = new Ini();
+        for (int s = 0; s < sections; s++)
+        {
+            String name = "section-" + s;
+            Profile.Section sec = _ini.add(name);
+
+            sec.put(PLAIN, "value of " + name);
+            sec.put(LOCAL, "local ${" + PLAIN + "}");
+            sec.put(REMOTE, "remote ${section-" + ((s + 1) % sections) + "/" + PLAIN + "}");
+            for (int d = 0; d < depth; d++)
+            {
+                String next = (d == (depth - 1)) ? PLAIN : (CHAIN + (d + 1));
+
+                sec.put((d == 0) ? CHAIN : (CHAIN + d), "[" + d + "]${" + next + "}");
+            }
+        }
+
+        _section = _ini.get("section-" + (sections / 2));
+        _graph = _ini.getReferenceGraph();
+    }
+
+    @Benchmark public String fetchPlain()
+    {
+        return _section.fetch(PLAIN);
+    }
+
+    @Benchmark public String fetchLocal()
+    {
+        return _section.fetch(LOCAL);
+    }
+
+    @Benchmark public String fetchRemote()
+    {
+        return _section.fetch(REMOTE);
+    }
+
+    @Benchmark public String fetchChain()
+    {
+        return _section.fetch(CHAIN);
+    }
+
+    @Benchmark public String profileFetch()
+    {
+        return _ini.fetch(_section.getName(), REMOTE);
+    }
+
+    @Benchmark public int fetchAll()
+    {
+        int ret = 0;
+
+        touch();
+        for (Profile.Section sec : _ini.values())
+        {
+            for (String option : sec.keySet())
+            {
+                ret += sec.fetch(option).length();
+            }
+        }
+
+        return ret;
+    }
+
+    @Benchmark public int resolveAll()
+    {
+        int ret = 0;
+
+        touch();
+        for (String value : _graph.resolve().values())
+        {
+            ret += value.length();
+        }
+
+        return ret;
+    }
+
+    private void touch()
+    {
+        for (Profile.Section sec : _ini.values())
+        {
+            sec.put(PLAIN, new String(sec.get(PLAIN)));
+        }
+    }
+}
@@ -0,0 +1,146 @@
+/*
+ * Copyright 2005,2009 Ivan SZKIBA
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ini4j.benchmark;
+
+import org.ini4j.BasicMultiMap;
+import org.ini4j.Config;
+import org.ini4j.Ini;
+import org.ini4j.Profile;
+
+import org.openjdk.jol.info.GraphLayout;
+
+import java.io.IOException;
+import java.io.StringReader;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Retained heap of a profile, measured with JOL.
+ *
+ * Builds the same options (by default 1M: 10000 sections of 100 single
+ * valued options) three ways and prints the deep size of each:
+ *
+ * <ul>
+ * <li><code>compact</code> - multimaps with the default value storage</li>
+ * <li><code>list</code> - multimaps over one <code>ArrayList</code> per key,
+ * the storage the default replaces</li>
+ * <li><code>ini</code> - an {@link Ini} with default storage, including
+ * sections and the profile itself</li>
+ * </ul>
+ *
+ * It then loads a file of the same shape, with short repeated values,
+ * without and with the string pool (see
+ * {@link Config#getStringPoolSize()}) and prints the deep size of both
+ * profiles as <code>parsed</code> and <code>pooled</code>.
+ *
+ * Run with <code>java -cp target/benchmarks.jar org.ini4j.benchmark.Footprint
+ * [sections] [options]</code>.
+ */
+public final class Footprint
+{
+    private static final int DEFAULT_SECTIONS = 10000;
+    private static final int DEFAULT_OPTIONS = 100;
+    private static final int POOL_SIZE = 1024;
+
+    private Footprint()
+    {
+    }
+
+    public static void main(String[] args) throws IOException
+    {
+        int sections = (args.length > 0) ? Integer.parseInt(args[0]) : DEFAULT_SECTIONS;
+        int options = (args.length > 1) ? Integer.parseInt(args[1]) : DEFAULT_OPTIONS;
+        String[] keys = new String[options];
+        List<BasicMultiMap<String, String>> compact = new ArrayList<BasicMultiMap<String, String>>();
+        List<BasicMultiMap<String, String>> lists = new ArrayList<BasicMultiMap<String, String>>();
+        Ini ini = new Ini();
+
+        for (int o = 0; o < options; o++)
+        {
+            keys[o] = "option-" + o;
+        }
+
+        for (int s = 0; s < sections; s++)
+        {
+            BasicMultiMap<String, String> map = new BasicMultiMap<String, String>();
+            Map<String, List<String>> impl = new LinkedHashMap<String, List<String>>();
+            Profile.Section section = ini.add("section-" + s);
+
+            for (int o = 0; o < options; o++)
+            {
+                String value = "value-" + s + "-" + o;
+                List<String> list = new ArrayList<String>();
+
+                list.add(value);
+                impl.put(keys[o], list);
+                map.add(keys[o], value);
+                section.add(keys[o], value);
+            }
+
+            compact.add(map);
+            lists.add(new BasicMultiMap<String, String>(impl));
+        }
+
+        long values = (long) sections * options;
+
+        report("compact", GraphLayout.parseInstance(compact).totalSize(), values);
+        report("list", GraphLayout.parseInstance(lists).totalSize(), values);
+        report("ini", GraphLayout.parseInstance(ini).totalSize(), values);
+        ini = null;
+        compact = null;
+        lists = null;
+        String text = text(sections, options);
+
+        report("parsed", GraphLayout.parseInstance(load(text, 0)).totalSize(), values);
+        report("pooled", GraphLayout.parseInstance(load(text, POOL_SIZE)).totalSize(), values);
+    }
+
+    private static Ini load(String text, int poolSize) throws IOException
+    {
+        Ini ret = new Ini();
+        Config cfg = ret.getConfig().clone();
+
+        cfg.setStringPoolSize(poolSize);
+        ret.setConfig(cfg);
+        ret.load(new StringReader(text));
+
+        return ret;
+    }
+
+    private static String text(int sections, int options)
+    {
+        StringBuilder ret = new StringBuilder();
+
+        for (int s = 0; s < sections; s++)
+        {
+            ret.append("[section-").append(s).append("]\n");
+            for (int o = 0; o < options; o++)
+            {
+                ret.append("option-").append(o).append(" = ").append(((o % 2) == 0) ? "true" : String.valueOf(o % 10)).append('\n');
+            }
+        }
+
+        return ret.toString();
+    }
+
+    private static void report(String name, long bytes, long values)
+    {
+        System.out.printf("%-8s %,15d bytes %8.1f bytes/option%n", name, bytes, (double) bytes / values);
+    }
+}
@@ -0,0 +1,184 @@
+/*
+ * Copyright 2005,2009 Ivan SZKIBA
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ini4j.benchmark;
+
+import org.ini4j.Config;
+import org.ini4j.Ini;
+import org.ini4j.LazyIni;
+import org.ini4j.Options;
+import org.ini4j.Reg;
+import org.ini4j.Wini;
+
+import org.ini4j.spi.IniParser;
+import org.ini4j.spi.IniReader;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.File;
+import java.io.IOException;
+
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class LoadBenchmark
+{
+    @Param({ "10KB", "1MB" })
+    public String size;
+    @Param({ "20" })
+    public int options;
+    @Param({ "32" })
+    public int valueLength;
+    @Param({ "false" })
+    public boolean escapes;
+    @Param({ "false" })
+    public boolean continuations;
+    @Param({ "false" })
+    public boolean includes;
+    @Param({ "org.ini4j.spi.IniParser", "org.ini4j.spi.ScanningIniParser" })
+    public String iniParser;
+    @Param({ "-1" })
+    public long mmapThreshold;
+    @Param({ "-1" })
+    public long parallelThreshold;
+    private Config _config;
+    private File _dir;
+    private File _ini;
+    private File _opt;
+    private File _reg;
+
+    @Setup(Level.Trial) public void setUp() throws IOException
+    {
+        Corpus corpus = new Corpus();
+
+        System.setProperty(IniParser.class.getName(), iniParser);
+        corpus.setSize(Corpus.parseSize(size));
+        corpus.setOptions(options);
+        corpus.setValueLength(valueLength);
+        corpus.setEscapes(escapes);
+        corpus.setContinuations(continuations);
+        corpus.setIncludes(includes);
+        _dir = TempFiles.createTempDirectory();
+        _ini = corpus.writeIni(_dir, "corpus");
+        _opt = corpus.writeOptions(_dir, "corpus");
+        _reg = corpus.writeReg(_dir, "corpus");
+        _config = Config.getGlobal().clone();
+        _config.setInclude(includes);
+        _config.setMmapThreshold(mmapThreshold);
+        _config.setParallelThreshold(parallelThreshold);
+    }
+
+    @TearDown(Level.Trial) public void tearDown()
+    {
+        System.getProperties().remove(IniParser.class.getName());
+        TempFiles.delete(_dir);
+    }
+
+    @Benchmark public Ini iniLoad() throws IOException
+    {
+        Ini ini = new Ini();
+
+        ini.setConfig(_config);
+        ini.load(_ini);
+
+        return ini;
+    }
+
+    /**
+     * Indexes the file and reads the first, the middle and the last section.
+     */
+    @Benchmark public int lazyIniLoad() throws IOException
+    {
+        LazyIni ini = new LazyIni();
+
+        ini.setConfig(_config);
+        ini.load(_ini);
+        int n = ini.size();
+
+        return ini.get("section-0").size() + ini.get("section-" + (n / 2)).size() + ini.get("section-" + (n - 1)).size();
+    }
+
+    /**
+     * Scans the file with the pull reader, without building a profile.
+     */
+    @Benchmark public int iniRead() throws IOException
+    {
+        IniReader reader = new IniReader(_ini, _config);
+        int count = 0;
+
+        try
+        {
+            for (IniReader.Event event = reader.next(); event != null; event = reader.next())
+            {
+                count += (event == IniReader.Event.OPTION) ? reader.getValue().length() : 1;
+            }
+        }
+        finally
+        {
+            reader.close();
+        }
+
+        return count;
+    }
+
+    @Benchmark public Options optionsLoad() throws IOException
+    {
+        Options opts = new Options();
+
+        opts.getConfig().setMmapThreshold(mmapThreshold);
+        opts.load(_opt);
+
+        return opts;
+    }
+
+    @Benchmark public Reg regLoad() throws IOException
+    {
+        Reg reg = new Reg();
+
+        reg.getConfig().setMmapThreshold(mmapThreshold);
+        reg.load(_reg);
+
+        return reg;
+    }
+
+    @Benchmark public Wini winiLoad() throws IOException
+    {
+        Wini wini = new Wini();
+
+        wini.getConfig().setInclude(includes);
+        wini.getConfig().setMmapThreshold(mmapThreshold);
+        wini.getConfig().setParallelThreshold(parallelThreshold);
+        wini.load(_ini);
+
+        return wini;
+    }
+}
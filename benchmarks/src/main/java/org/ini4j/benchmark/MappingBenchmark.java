@@ -0,0 +1,158 @@
+/*
+ * Copyright 2005,2009 Ivan SZKIBA
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ini4j.benchmark;
+
+import org.ini4j.Ini;
+import org.ini4j.Profile;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Mapping a section into a plain bean with {@link Profile.Section#to(Object)}
+ * and back with {@link Profile.Section#from(Object)}.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class MappingBenchmark
+{
+    private ServerBean _bean;
+    private Profile.Section _section;
+    private Profile.Section _target;
+
+    @Setup public void setUp()
+    {
+        Ini ini = new Ini();
+
+        _section = ini.add("server");
+        _section.put("host", "localhost");
+        _section.put("port", 8080);
+        _section.put("secure", true);
+        _section.put("timeout", 2.5);
+        _section.put("status", Status.ACTIVE);
+        _section.add("alias", "www");
+        _section.add("alias", "web");
+        _target = ini.add("target");
+        _bean = new ServerBean();
+        _section.to(_bean);
+    }
+
+    @Benchmark public ServerBean to()
+    {
+        ServerBean ret = new ServerBean();
+
+        _section.to(ret);
+
+        return ret;
+    }
+
+    @Benchmark public Profile.Section from()
+    {
+        _target.from(_bean);
+
+        return _target;
+    }
+
+    public enum Status
+    {
+        ACTIVE,
+        STANDBY
+    }
+
+    public static class ServerBean
+    {
+        private String[] _alias;
+        private String _host;
+        private int _port;
+        private boolean _secure;
+        private Status _status;
+        private double _timeout;
+
+        public String[] getAlias()
+        {
+            return _alias;
+        }
+
+        public void setAlias(String[] value)
+        {
+            _alias = value;
+        }
+
+        public String getHost()
+        {
+            return _host;
+        }
+
+        public void setHost(String value)
+        {
+            _host = value;
+        }
+
+        public int getPort()
+        {
+            return _port;
+        }
+
+        public void setPort(int value)
+        {
+            _port = value;
+        }
+
+        public boolean isSecure()
+        {
+            return _secure;
+        }
+
+        public void setSecure(boolean value)
+        {
+            _secure = value;
+        }
+
+        public Status getStatus()
+        {
+            return _status;
+        }
+
+        public void setStatus(Status value)
+        {
+            _status = value;
+        }
+
+        public double getTimeout()
+        {
+            return _timeout;
+        }
+
+        public void setTimeout(double value)
+        {
+            _timeout = value;
+        }
+    }
+}
@@ -0,0 +1,72 @@
+/*
+ * Copyright 2005,2009 Ivan SZKIBA
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ini4j.benchmark;
+
+import org.ini4j.Ini;
+
+import org.ini4j.spi.IniParser;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Service lookup of {@link IniParser#newInstance()}, and the load and store
+ * of a tiny file, where the parser and formatter lookups are a large part of
+ * the work.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ServiceBenchmark
+{
+    private static final String DATA = "[server]\nhost = localhost\nport = 8080\n";
+
+    @Benchmark public IniParser newParser()
+    {
+        return IniParser.newInstance();
+    }
+
+    @Benchmark public Ini tinyLoad() throws IOException
+    {
+        return new Ini(new StringReader(DATA));
+    }
+
+    @Benchmark public String tinyStore() throws IOException
+    {
+        Ini ini = new Ini(new StringReader(DATA));
+        StringWriter out = new StringWriter();
+
+        ini.store(out);
+
+        return out.toString();
+    }
+}
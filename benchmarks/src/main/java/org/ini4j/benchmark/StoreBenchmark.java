@@ -0,0 +1,198 @@
+/*
+ * Copyright 2005,2009 Ivan SZKIBA
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ini4j.benchmark;
+
+import org.ini4j.Ini;
+import org.ini4j.Options;
+import org.ini4j.Profile;
+import org.ini4j.Reg;
+
+import org.ini4j.spi.IniWriter;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.Writer;
+
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Serialization of a loaded profile into a discarding sink, so the numbers
+ * measure formatting and escaping rather than disk throughput.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class StoreBenchmark
+{
+    @Param({ "10KB", "1MB" })
+    public String size;
+    @Param({ "false" })
+    public boolean escapes;
+    private Ini _ini;
+    private Options _options;
+    private Reg _reg;
+
+    @Setup public void setUp() throws IOException
+    {
+        Corpus corpus = new Corpus();
+        File dir = TempFiles.createTempDirectory();
+
+        corpus.setSize(Corpus.parseSize(size));
+        corpus.setEscapes(escapes);
+        try
+        {
+            _ini = new Ini(corpus.writeIni(dir, "corpus"));
+            _options = new Options(corpus.writeOptions(dir, "corpus"));
+            _reg = new Reg(corpus.writeReg(dir, "corpus"));
+        }
+        finally
+        {
+            TempFiles.delete(dir);
+        }
+    }
+
+    @TearDown public void tearDown()
+    {
+        _ini = null;
+        _options = null;
+        _reg = null;
+    }
+
+    @Benchmark public void iniStore() throws IOException
+    {
+        _ini.store(new NullWriter());
+    }
+
+    @Benchmark public void iniStoreStream() throws IOException
+    {
+        _ini.store(new NullOutputStream());
+    }
+
+    @Benchmark public void iniStoreChannel() throws IOException
+    {
+        _ini.store(new NullChannel());
+    }
+
+    /**
+     * Same output as {@link #iniStoreChannel()}, pushed option by option.
+     */
+    @Benchmark public void iniWriter() throws IOException
+    {
+        IniWriter writer = new IniWriter(new NullChannel(), _ini.getConfig());
+
+        for (Profile.Section section : _ini.values())
+        {
+            writer.section(section.getName());
+            for (String option : section.keySet())
+            {
+                for (int i = 0; i < section.length(option); i++)
+                {
+                    writer.option(option, section.get(option, i));
+                }
+            }
+        }
+
+        writer.close();
+    }
+
+    @Benchmark public void optionsStore() throws IOException
+    {
+        _options.store(new NullWriter());
+    }
+
+    @Benchmark public void regStore() throws IOException
+    {
+        _reg.store(new NullWriter());
+    }
+
+    static class NullChannel implements WritableByteChannel
+    {
+        @Override public boolean isOpen()
+        {
+            return true;
+        }
+
+        @Override public void close()
+        {
+            assert true;
+        }
+
+        @Override public int write(ByteBuffer src)
+        {
+            int ret = src.remaining();
+
+            src.position(src.limit());
+
+            return ret;
+        }
+    }
+
+    static class NullOutputStream extends OutputStream
+    {
+        @Override public void write(int b)
+        {
+            assert true;
+        }
+
+        @Override public void write(byte[] b, int off, int len)
+        {
+            assert true;
+        }
+    }
+
+    static class NullWriter extends Writer
+    {
+        @Override public void close()
+        {
+            assert true;
+        }
+
+        @Override public void flush()
+        {
+            assert true;
+        }
+
+        @Override public void write(char[] cbuf, int off, int len)
+        {
+            assert true;
+        }
+
+        @Override public void write(String str, int off, int len)
+        {
+            assert true;
+        }
+    }
+}
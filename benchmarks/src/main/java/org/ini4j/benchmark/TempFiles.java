@@ -0,0 +1,48 @@
+/*
+ * Copyright 2005,2009 Ivan SZKIBA
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ini4j.benchmark;
+
+import java.io.File;
+import java.io.IOException;
+
+final class TempFiles
+{
+    private static final String TMP_PREFIX = "ini4j-benchmark-";
+
+    private TempFiles()
+    {
+    }
+
+    static File createTempDirectory() throws IOException
+    {
+        return java.nio.file.Files.createTempDirectory(TMP_PREFIX).toFile();
+    }
+
+    static void delete(File file)
+    {
+        File[] children = file.listFiles();
+
+        if (children != null)
+        {
+            for (File child : children)
+            {
+                delete(child);
+            }
+        }
+
+        file.delete();
+    }
+}
@@ -0,0 +1,96 @@
+/*
+ * Copyright 2005,2009 Ivan SZKIBA
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ini4j.benchmark;
+
+import org.ini4j.Ini;
+import org.ini4j.Profile;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Tree mode navigation: a walk over all sections of a tree with the
+ * configured number of children per section, and a lookup of the children
+ * of a single section.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class TreeBenchmark
+{
+    private static final String ROOT = "root";
+    @Param({ "1000", "10000" })
+    public int sections;
+    @Param({ "10" })
+    public int fanout;
+    private Ini _ini;
+    private Profile.Section _leafParent;
+
+    @Setup public void setUp()
+    {
+        _ini = new Ini();
+        _ini.add(ROOT);
+        for (int i = 1; _ini.size() < sections; i++)
+        {
+            String name = ROOT;
+
+            for (int n = i; n > 0; n = (n - 1) / fanout)
+            {
+                name = name + '/' + ((n - 1) % fanout);
+            }
+
+            _ini.add(name);
+        }
+
+        _leafParent = _ini.get(ROOT + "/0/0");
+    }
+
+    @Benchmark public String[] childrenNames()
+    {
+        return _leafParent.childrenNames();
+    }
+
+    @Benchmark public int walk()
+    {
+        return walk(_ini.get(ROOT));
+    }
+
+    private int walk(Profile.Section section)
+    {
+        int ret = 1;
+
+        for (String child : section.childrenNames())
+        {
+            ret += walk(section.getChild(child));
+        }
+
+        return ret;
+    }
+}
@@ -0,0 +1,152 @@
+/*
+ * Copyright 2005,2009 Ivan SZKIBA
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ini4j.spi;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.StringReader;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Operator search on long option lines.
+ *
+ * Compares the single pass table driven search of {@link AbstractParser}
+ * with the previous implementation (one indexOf scan per operator char),
+ * kept here as {@link #legacyIndexOf(String)}. The line is a short key and
+ * a long base64 like value that contains no operator char, so the legacy
+ * search walks the whole value for the missing operator. The parse
+ * benchmarks parse a whole file made of such lines.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class OperatorSearchBenchmark
+{
+    private static final String OPERATORS = ":=";
+    private static final String BASE64 = "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789+/";
+    private static final int LINES = 32;
+    @Param({ "100", "10000", "100000" })
+    public int lineLength;
+    private String _file;
+    private String _line;
+    private IniParser _parser;
+
+    @Setup public void setUp()
+    {
+        StringBuilder buff = new StringBuilder("blob = ");
+
+        for (int i = 0; buff.length() < lineLength; i++)
+        {
+            buff.append(BASE64.charAt(i % BASE64.length()));
+        }
+
+        _line = buff.toString();
+        buff = new StringBuilder("[section]\n");
+        for (int i = 0; i < LINES; i++)
+        {
+            buff.append(i).append(_line).append('\n');
+        }
+
+        _file = buff.toString();
+        _parser = new IniParser();
+    }
+
+    @Benchmark public int indexOfLegacy()
+    {
+        return legacyIndexOf(_line);
+    }
+
+    @Benchmark public int indexOfSinglePass()
+    {
+        return _parser.indexOfOperator(_line);
+    }
+
+    @Benchmark public void parse() throws Exception
+    {
+        _parser.parse(new StringReader(_file), new IniHandlerAdapter());
+    }
+
+    private int legacyIndexOf(String line)
+    {
+        int idx = -1;
+
+        for (char c : OPERATORS.toCharArray())
+        {
+            int index = line.indexOf(c);
+
+            while ((index >= 0))
+            {
+                if ((index >= 0) && ((index == 0) || (line.charAt(index - 1) != '\\')) && ((idx == -1) || (index < idx)))
+                {
+                    idx = index;
+
+                    break;
+                }
+
+                index = (index == (line.length() - 1)) ? -1 : line.indexOf(c, index + 1);
+            }
+        }
+
+        return idx;
+    }
+
+    private static class IniHandlerAdapter implements IniHandler
+    {
+        @Override public void endIni()
+        {
+            assert true;
+        }
+
+        @Override public void endSection()
+        {
+            assert true;
+        }
+
+        @Override public void handleComment(String comment)
+        {
+            assert true;
+        }
+
+        @Override public void handleOption(String optionName, String optionValue)
+        {
+            assert true;
+        }
+
+        @Override public void startIni()
+        {
+            assert true;
+        }
+
+        @Override public void startSection(String sectionName)
+        {
+            assert true;
+        }
+    }
+}
@@ -19,19 +19,24 @@ import org.ini4j.spi.Warnings;
 
 import java.io.Serializable;
 
-import java.util.ArrayList;
+import java.util.AbstractCollection;
+import java.util.AbstractSet;
 import java.util.Collection;
-import java.util.HashSet;
+import java.util.Collections;
+import java.util.Iterator;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.NoSuchElementException;
 import java.util.Set;
 
 public class BasicMultiMap<K, V> implements MultiMap<K, V>, Serializable
 {
     private static final long serialVersionUID = 4716749660560043989L;
+    private transient Set<Entry<K, V>> _entrySet;
     private final Map<K, List<V>> _impl;
+    private transient Collection<V> _values;
 
     public BasicMultiMap()
     {
@@ -90,16 +95,18 @@ public class BasicMultiMap<K, V> implements MultiMap<K, V>, Serializable
         return ret;
     }
 
+    /**
+     * Live view of the keys with their last value, in key order. Removing
+     * an entry removes all values of the key.
+     */
     @Override public Set<Entry<K, V>> entrySet()
     {
-        Set<Entry<K, V>> ret = new HashSet<Entry<K, V>>();
-
-        for (K key : keySet())
+        if (_entrySet == null)
         {
-            ret.add(new ShadowEntry(key));
+            _entrySet = new EntrySet();
         }
 
-        return ret;
+        return _entrySet;
     }
 
     @Override public V get(Object key)
@@ -175,7 +182,7 @@ public class BasicMultiMap<K, V> implements MultiMap<K, V>, Serializable
     {
         List<V> ret = _impl.get(key);
 
-        _impl.put(key, new ArrayList<V>(values));
+        _impl.put(key, new ValueList<V>(values));
 
         return ret;
     }
@@ -214,16 +221,32 @@ public class BasicMultiMap<K, V> implements MultiMap<K, V>, Serializable
         return _impl.toString();
     }
 
-    @Override public Collection<V> values()
+    /**
+     * Drops the unused capacity of the value lists, typically after the
+     * map was loaded.
+     */
+    public void trimToSize()
     {
-        List<V> all = new ArrayList<V>(_impl.size());
-
         for (List<V> values : _impl.values())
         {
-            all.addAll(values);
+            if (values instanceof ValueList)
+            {
+                ((ValueList<V>) values).trimToSize();
+            }
+        }
+    }
+
+    /**
+     * Live, read only view of all values of all keys, in key order.
+     */
+    @Override public Collection<V> values()
+    {
+        if (_values == null)
+        {
+            _values = new Values();
         }
 
-        return all;
+        return _values;
     }
 
     @SuppressWarnings(Warnings.UNCHECKED)
@@ -233,7 +256,7 @@ public class BasicMultiMap<K, V> implements MultiMap<K, V>, Serializable
 
         if ((values == null) && create)
         {
-            values = new ArrayList<V>();
+            values = new ValueList<V>();
             _impl.put((K) key, values);
         }
 
@@ -263,5 +286,179 @@ public class BasicMultiMap<K, V> implements MultiMap<K, V>, Serializable
         {
             return put(_key, value);
         }
+
+        @Override public boolean equals(Object obj)
+        {
+            boolean ret = false;
+
+            if (obj instanceof Map.Entry)
+            {
+                Map.Entry<?, ?> entry = (Map.Entry<?, ?>) obj;
+
+                ret = equal(_key, entry.getKey()) && equal(getValue(), entry.getValue());
+            }
+
+            return ret;
+        }
+
+        @Override public int hashCode()
+        {
+            V value = getValue();
+
+            return ((_key == null) ? 0 : _key.hashCode()) ^ ((value == null) ? 0 : value.hashCode());
+        }
+
+        @Override public String toString()
+        {
+            return _key + "=" + getValue();
+        }
+    }
+
+    private static boolean equal(Object a, Object b)
+    {
+        return (a == null) ? (b == null) : a.equals(b);
+    }
+
+    private class EntrySet extends AbstractSet<Entry<K, V>>
+    {
+        @Override public int size()
+        {
+            return _impl.size();
+        }
+
+        @Override public void clear()
+        {
+            BasicMultiMap.this.clear();
+        }
+
+        @Override public boolean contains(Object obj)
+        {
+            boolean ret = false;
+
+            if (obj instanceof Map.Entry)
+            {
+                Map.Entry<?, ?> entry = (Map.Entry<?, ?>) obj;
+
+                ret = containsKey(entry.getKey()) && equal(get(entry.getKey()), entry.getValue());
+            }
+
+            return ret;
+        }
+
+        @Override public Iterator<Entry<K, V>> iterator()
+        {
+            return new EntryIterator();
+        }
+
+        @Override public boolean remove(Object obj)
+        {
+            boolean ret = contains(obj);
+
+            if (ret)
+            {
+                BasicMultiMap.this.remove(((Map.Entry<?, ?>) obj).getKey());
+            }
+
+            return ret;
+        }
+    }
+
+    /**
+     * Iterates over the keys. Removal goes through {@link #remove(Object)}
+     * as well, so subclasses can drop what they keep for the key.
+     */
+    private class EntryIterator implements Iterator<Entry<K, V>>
+    {
+        private K _current;
+        private final Iterator<K> _keys = _impl.keySet().iterator();
+
+        @Override public boolean hasNext()
+        {
+            return _keys.hasNext();
+        }
+
+        @Override public Entry<K, V> next()
+        {
+            _current = _keys.next();
+
+            return new ShadowEntry(_current);
+        }
+
+        @Override public void remove()
+        {
+            _keys.remove();
+
+            // the key is already gone from the map, only the overrides have work left
+            BasicMultiMap.this.remove(_current);
+        }
+    }
+
+    /**
+     * Iterates over the value lists without copying them.
+     */
+    private class ValueIterator implements Iterator<V>
+    {
+        private final Iterator<List<V>> _lists = _impl.values().iterator();
+        private Iterator<V> _current = Collections.<V>emptyList().iterator();
+
+        @Override public boolean hasNext()
+        {
+            while (!_current.hasNext() && _lists.hasNext())
+            {
+                _current = _lists.next().iterator();
+            }
+
+            return _current.hasNext();
+        }
+
+        @Override public V next()
+        {
+            if (!hasNext())
+            {
+                throw new NoSuchElementException();
+            }
+
+            return _current.next();
+        }
+
+        @Override public void remove()
+        {
+            throw new UnsupportedOperationException();
+        }
+    }
+
+    private class Values extends AbstractCollection<V>
+    {
+        @Override public int size()
+        {
+            int ret = 0;
+
+            for (List<V> values : _impl.values())
+            {
+                ret += values.size();
+            }
+
+            return ret;
+        }
+
+        @Override public void clear()
+        {
+            BasicMultiMap.this.clear();
+        }
+
+        @Override public boolean contains(Object obj)
+        {
+            return containsValue(obj);
+        }
+
+        @Override public boolean isEmpty()
+        {
+            return !iterator().hasNext();
+        }
+
+        @Override public Iterator<V> iterator()
+        {
+            return new ValueIterator();
+        }
     }
 }
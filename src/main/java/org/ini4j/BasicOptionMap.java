@@ -19,14 +19,28 @@ import org.ini4j.spi.BeanAccess;
 import org.ini4j.spi.BeanTool;
 import org.ini4j.spi.Warnings;
 
+import java.io.File;
+
 import java.lang.reflect.Array;
 
+import java.math.BigDecimal;
+import java.math.BigInteger;
+
+import java.net.URI;
+import java.net.URL;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
 public class BasicOptionMap extends CommonMultiMap<String, String> implements OptionMap
 {
-    private static final char SUBST_CHAR = '$';
     private static final String SYSTEM_PROPERTY_PREFIX = "@prop/";
     private static final String ENVIRONMENT_PREFIX = "@env/";
     private static final int SYSTEM_PROPERTY_PREFIX_LEN = SYSTEM_PROPERTY_PREFIX.length();
@@ -35,8 +49,15 @@ public class BasicOptionMap extends CommonMultiMap<String, String> implements Op
     private static final int G_OPTION = 2;
     private static final int G_INDEX = 4;
     private static final long serialVersionUID = 325469712293707584L;
+    private static final ValueTemplate.Result[] NO_RESULTS = {};
+    private static final Converted[] NO_CONVERTED = {};
+    private static final Set<Class<?>> SHARED_TYPES = new HashSet<Class<?>>(Arrays.<Class<?>>asList(String.class, Boolean.class,
+                Byte.class, Character.class, Short.class, Integer.class, Long.class, Float.class, Double.class, BigInteger.class,
+                BigDecimal.class, File.class, URL.class, URI.class, Class.class));
     private BeanAccess _defaultBeanAccess;
+    private transient Map<Object, Converted[]> _converted;
     private final boolean _propertyFirstUpper;
+    private transient Map<Object, ValueTemplate.Result[]> _resolved;
 
     public BasicOptionMap()
     {
@@ -48,6 +69,12 @@ public class BasicOptionMap extends CommonMultiMap<String, String> implements Op
         _propertyFirstUpper = propertyFirstUpper;
     }
 
+    BasicOptionMap(boolean propertyFirstUpper, Map<String, List<String>> impl)
+    {
+        super(impl);
+        _propertyFirstUpper = propertyFirstUpper;
+    }
+
     @Override
     @SuppressWarnings(Warnings.UNCHECKED)
     public <T> T getAll(Object key, Class<T> clazz)
@@ -76,12 +103,21 @@ public class BasicOptionMap extends CommonMultiMap<String, String> implements Op
 
     @Override public <T> T as(Class<T> clazz)
     {
-        return BeanTool.getInstance().proxy(clazz, getDefaultBeanAccess());
+        return isGeneratedBeans() ? BeanTool.getInstance().generate(clazz, getDefaultBeanAccess(), false)
+                                  : BeanTool.getInstance().proxy(clazz, getDefaultBeanAccess());
     }
 
     @Override public <T> T as(Class<T> clazz, String keyPrefix)
     {
-        return BeanTool.getInstance().proxy(clazz, newBeanAccess(keyPrefix));
+        return isGeneratedBeans() ? BeanTool.getInstance().generate(clazz, newBeanAccess(keyPrefix), false)
+                                  : BeanTool.getInstance().proxy(clazz, newBeanAccess(keyPrefix));
+    }
+
+    @Override public void clear()
+    {
+        super.clear();
+        _resolved = null;
+        _converted = null;
     }
 
     @Override public String fetch(Object key)
@@ -102,12 +138,11 @@ public class BasicOptionMap extends CommonMultiMap<String, String> implements Op
     {
         String value = get(key, index);
 
-        if ((value != null) && (value.indexOf(SUBST_CHAR) >= 0))
+        if (ValueTemplate.isTemplate(value))
         {
-            StringBuilder buffer = new StringBuilder(value);
+            ValueTemplate.Result result = getResolved(key, index);
 
-            resolve(buffer);
-            value = buffer.toString();
+            value = ((result != null) && result.isValid(value)) ? result.getValue() : expand(key, index, value, new ValueTemplate.Context());
         }
 
         return value;
@@ -115,19 +150,22 @@ public class BasicOptionMap extends CommonMultiMap<String, String> implements Op
 
     @Override public <T> T fetch(Object key, Class<T> clazz)
     {
-        return BeanTool.getInstance().parse(fetch(key), clazz);
+        int len = length(key);
+
+        return (len == 0) ? BeanTool.getInstance().parse(null, clazz) : fetch(key, len - 1, clazz);
     }
 
     @Override public <T> T fetch(Object key, Class<T> clazz, T defaultValue)
     {
-        String str = fetch(key);
+        int len = length(key);
+        String str = (len == 0) ? null : fetch(key, len - 1);
 
-        return (str == null) ? defaultValue : BeanTool.getInstance().parse(str, clazz);
+        return (str == null) ? defaultValue : convert(key, len - 1, str, clazz);
     }
 
     @Override public <T> T fetch(Object key, int index, Class<T> clazz)
     {
-        return BeanTool.getInstance().parse(fetch(key, index), clazz);
+        return convert(key, index, fetch(key, index), clazz);
     }
 
     @Override
@@ -135,17 +173,65 @@ public class BasicOptionMap extends CommonMultiMap<String, String> implements Op
     public <T> T fetchAll(Object key, Class<T> clazz)
     {
         requireArray(clazz);
+        String[] values = new String[length(key)];
+        Converted converted = isValueCache() ? getConverted(key, -1) : null;
         T value;
 
-        value = (T) Array.newInstance(clazz.getComponentType(), length(key));
-        for (int i = 0; i < length(key); i++)
+        for (int i = 0; i < values.length; i++)
         {
-            Array.set(value, i, BeanTool.getInstance().parse(fetch(key, i), clazz.getComponentType()));
+            values[i] = fetch(key, i);
+        }
+
+        if ((converted != null) && converted.isValid(values, clazz))
+        {
+            value = (T) converted.copy();
+        }
+        else
+        {
+            value = (T) Array.newInstance(clazz.getComponentType(), values.length);
+            for (int i = 0; i < values.length; i++)
+            {
+                Array.set(value, i, BeanTool.getInstance().parse(values[i], clazz.getComponentType()));
+            }
+
+            if (isValueCache() && (key != null) && isShared(clazz.getComponentType()))
+            {
+                putConverted(key, -1, new Converted(values, clazz, value));
+                value = (T) Converted.copy(value);
+            }
         }
 
         return value;
     }
 
+    @Override public boolean fetchBoolean(Object key, boolean defaultValue)
+    {
+        String str = fetch(key);
+
+        return (str == null) ? defaultValue : Boolean.parseBoolean(str);
+    }
+
+    @Override public double fetchDouble(Object key, double defaultValue)
+    {
+        String str = fetch(key);
+
+        return (str == null) ? defaultValue : Double.parseDouble(str);
+    }
+
+    @Override public int fetchInt(Object key, int defaultValue)
+    {
+        String str = fetch(key);
+
+        return (str == null) ? defaultValue : Integer.parseInt(str);
+    }
+
+    @Override public long fetchLong(Object key, long defaultValue)
+    {
+        String str = fetch(key);
+
+        return (str == null) ? defaultValue : Long.parseLong(str);
+    }
+
     @Override public void from(Object bean)
     {
         BeanTool.getInstance().inject(getDefaultBeanAccess(), bean);
@@ -209,6 +295,26 @@ public class BasicOptionMap extends CommonMultiMap<String, String> implements Op
         }
     }
 
+    @Override public String remove(Object key)
+    {
+        String ret = super.remove(key);
+
+        removeConverted(key);
+        removeResolved(key);
+
+        return ret;
+    }
+
+    @Override public String remove(Object key, int index)
+    {
+        String ret = super.remove(key, index);
+
+        removeConverted(key);
+        removeResolved(key);
+
+        return ret;
+    }
+
     @Override public void to(Object bean)
     {
         BeanTool.getInstance().inject(bean, getDefaultBeanAccess());
@@ -229,11 +335,21 @@ public class BasicOptionMap extends CommonMultiMap<String, String> implements Op
         return _defaultBeanAccess;
     }
 
+    boolean isGeneratedBeans()
+    {
+        return false;
+    }
+
     boolean isPropertyFirstUpper()
     {
         return _propertyFirstUpper;
     }
 
+    boolean isValueCache()
+    {
+        return false;
+    }
+
     BeanAccess newBeanAccess()
     {
         return new Access();
@@ -244,35 +360,202 @@ public class BasicOptionMap extends CommonMultiMap<String, String> implements Op
         return new Access(propertyNamePrefix);
     }
 
-    void resolve(StringBuilder buffer)
+    ValueTemplate compile(String value)
     {
-        Matcher m = EXPRESSION.matcher(buffer);
+        List<ValueTemplate.Reference> references = new ArrayList<ValueTemplate.Reference>();
+        Matcher m = EXPRESSION.matcher(value);
 
         while (m.find())
         {
             String name = m.group(G_OPTION);
             int index = (m.group(G_INDEX) == null) ? -1 : Integer.parseInt(m.group(G_INDEX));
-            String value;
+            ValueTemplate.Reference reference;
 
             if (name.startsWith(ENVIRONMENT_PREFIX))
             {
-                value = Config.getEnvironment(name.substring(ENVIRONMENT_PREFIX_LEN));
+                reference = new ValueTemplate.Reference(value, m.start(), m.end(), ValueTemplate.ENVIRONMENT, null, -1,
+                        name.substring(ENVIRONMENT_PREFIX_LEN), -1);
             }
             else if (name.startsWith(SYSTEM_PROPERTY_PREFIX))
             {
-                value = Config.getSystemProperty(name.substring(SYSTEM_PROPERTY_PREFIX_LEN));
+                reference = new ValueTemplate.Reference(value, m.start(), m.end(), ValueTemplate.PROPERTY, null, -1,
+                        name.substring(SYSTEM_PROPERTY_PREFIX_LEN), -1);
             }
             else
             {
-                value = (index == -1) ? fetch(name) : fetch(name, index);
+                reference = new ValueTemplate.Reference(value, m.start(), m.end(), ValueTemplate.OPTION, null, -1, name, index);
             }
 
-            if (value != null)
+            references.add(reference);
+        }
+
+        return new ValueTemplate(value, references);
+    }
+
+    /**
+     * Resolves the value of the option, reusing the cached result while the
+     * value and everything it references are unchanged. Returns null if the
+     * option is already being resolved in the context (reference cycle).
+     */
+    String expand(Object key, int index, String raw, ValueTemplate.Context context)
+    {
+        ValueTemplate.Result result = getResolved(key, index);
+        String ret = null;
+
+        if ((result != null) && context.isValid(result, raw))
+        {
+            context.depend(result);
+            ret = result.getValue();
+        }
+        else if (context.enter(this, key, index))
+        {
+            ValueTemplate template = ((result == null) || (result.getRaw() != raw)) ? compile(raw) : result.getTemplate();
+
+            result = context.leave(raw, template, expand(template, context));
+            if (result.isCacheable() && (key != null))
             {
-                buffer.replace(m.start(), m.end(), value);
-                m.reset(buffer);
+                putResolved(key, index, result);
             }
+
+            ret = result.getValue();
+        }
+
+        return ret;
+    }
+
+    String lookup(ValueTemplate.Reference reference, ValueTemplate.Context context)
+    {
+        String value;
+
+        if (reference.getKind() == ValueTemplate.ENVIRONMENT)
+        {
+            value = Config.getEnvironment(reference.getOption());
+        }
+        else if (reference.getKind() == ValueTemplate.PROPERTY)
+        {
+            value = context.property(reference.getOption());
         }
+        else
+        {
+            value = context.fetch(this, reference.getOption(), reference.getOptionIndex());
+        }
+
+        return value;
+    }
+
+    void resolve(StringBuilder buffer)
+    {
+        buffer.replace(0, buffer.length(), expand(compile(buffer.toString()), new ValueTemplate.Context()));
+    }
+
+    @SuppressWarnings(Warnings.UNCHECKED)
+    private <T> T convert(Object key, int index, String str, Class<T> clazz)
+    {
+        Converted converted = ((str == null) || !isValueCache()) ? null : getConverted(key, index);
+        T ret;
+
+        if ((converted != null) && converted.isValid(str, clazz))
+        {
+            ret = (T) converted.getValue();
+        }
+        else
+        {
+            ret = BeanTool.getInstance().parse(str, clazz);
+            if ((str != null) && isValueCache() && (key != null) && isShared(clazz))
+            {
+                putConverted(key, index, new Converted(str, clazz, ret));
+            }
+        }
+
+        return ret;
+    }
+
+    /**
+     * Types whose converted values can be cached, as they can not be
+     * changed by the callers they are handed out to.
+     */
+    private static boolean isShared(Class<?> clazz)
+    {
+        return clazz.isPrimitive() || clazz.isEnum() || SHARED_TYPES.contains(clazz);
+    }
+
+    /**
+     * Cached conversion of the value at the index, or of all values for
+     * index -1.
+     */
+    private Converted getConverted(Object key, int index)
+    {
+        Converted[] converted = ((_converted == null) || (key == null)) ? null : _converted.get(key);
+
+        return ((converted == null) || ((index + 1) >= converted.length)) ? null : converted[index + 1];
+    }
+
+    private void putConverted(Object key, int index, Converted value)
+    {
+        if (_converted == null)
+        {
+            _converted = new ConcurrentHashMap<Object, Converted[]>();
+        }
+
+        Converted[] converted = _converted.get(key);
+
+        converted = Arrays.copyOf((converted == null) ? NO_CONVERTED : converted,
+                Math.max(index + 2, (converted == null) ? 0 : converted.length));
+        converted[index + 1] = value;
+        _converted.put(key, converted);
+    }
+
+    private void removeConverted(Object key)
+    {
+        Map<Object, Converted[]> converted = _converted;
+
+        if ((converted != null) && (key != null))
+        {
+            converted.remove(key);
+        }
+    }
+
+    private void removeResolved(Object key)
+    {
+        Map<Object, ValueTemplate.Result[]> resolved = _resolved;
+
+        if ((resolved != null) && (key != null))
+        {
+            resolved.remove(key);
+        }
+    }
+
+    private ValueTemplate.Result getResolved(Object key, int index)
+    {
+        ValueTemplate.Result[] results = ((_resolved == null) || (key == null)) ? null : _resolved.get(key);
+
+        return ((results == null) || (index >= results.length)) ? null : results[index];
+    }
+
+    private String expand(ValueTemplate template, ValueTemplate.Context context)
+    {
+        String[] values = new String[template.size()];
+
+        for (int i = 0; i < values.length; i++)
+        {
+            values[i] = lookup(template.getReference(i), context);
+        }
+
+        return template.expand(values);
+    }
+
+    private void putResolved(Object key, int index, ValueTemplate.Result result)
+    {
+        if (_resolved == null)
+        {
+            _resolved = new ConcurrentHashMap<Object, ValueTemplate.Result[]>();
+        }
+
+        ValueTemplate.Result[] results = _resolved.get(key);
+
+        results = Arrays.copyOf((results == null) ? NO_RESULTS : results, Math.max(index + 1, (results == null) ? 0 : results.length));
+        results[index] = result;
+        _resolved.put(key, results);
     }
 
     private void requireArray(Class clazz)
@@ -283,6 +566,63 @@ public class BasicOptionMap extends CommonMultiMap<String, String> implements Op
         }
     }
 
+    /**
+     * Value converted to a type, valid as long as it is converted from the
+     * very same string instances: the stored value, or the cached result of
+     * resolving it, is replaced whenever the value or anything it
+     * references changes.
+     */
+    private static final class Converted
+    {
+        private final Object _source;
+        private final Class<?> _type;
+        private final Object _value;
+
+        private Converted(Object source, Class<?> type, Object value)
+        {
+            _source = source;
+            _type = type;
+            _value = value;
+        }
+
+        private static Object copy(Object array)
+        {
+            int length = Array.getLength(array);
+            Object ret = Array.newInstance(array.getClass().getComponentType(), length);
+
+            System.arraycopy(array, 0, ret, 0, length);
+
+            return ret;
+        }
+
+        private Object copy()
+        {
+            return copy(_value);
+        }
+
+        private Object getValue()
+        {
+            return _value;
+        }
+
+        private boolean isValid(String source, Class<?> type)
+        {
+            return (_source == source) && (_type == type);
+        }
+
+        private boolean isValid(String[] sources, Class<?> type)
+        {
+            boolean ret = (_type == type) && (((String[]) _source).length == sources.length);
+
+            for (int i = 0; ret && (i < sources.length); i++)
+            {
+                ret = ((String[]) _source)[i] == sources[i];
+            }
+
+            return ret;
+        }
+    }
+
     class Access implements BeanAccess
     {
         private final String _prefix;
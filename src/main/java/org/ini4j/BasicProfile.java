@@ -23,6 +23,9 @@ import org.ini4j.spi.IniHandler;
 import java.lang.reflect.Array;
 import java.lang.reflect.Proxy;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -38,6 +41,7 @@ public class BasicProfile extends CommonMultiMap<String, Profile.Section> implem
     private static final int G_OPTION_IDX = 7;
     private static final long serialVersionUID = -1817521505004015256L;
     private String _comment;
+    private transient volatile PathTrie _paths;
     private final boolean _propertyFirstUpper;
     private final boolean _treeMode;
 
@@ -52,6 +56,13 @@ public class BasicProfile extends CommonMultiMap<String, Profile.Section> implem
         _propertyFirstUpper = propertyFirstUpper;
     }
 
+    BasicProfile(boolean treeMode, boolean propertyFirstUpper, Map<String, List<Section>> impl)
+    {
+        super(impl);
+        _treeMode = treeMode;
+        _propertyFirstUpper = propertyFirstUpper;
+    }
+
     @Override public String getComment()
     {
         return _comment;
@@ -86,6 +97,18 @@ public class BasicProfile extends CommonMultiMap<String, Profile.Section> implem
         return section;
     }
 
+    @Override public void add(String key, Section value)
+    {
+        super.add(key, value);
+        addPath(key);
+    }
+
+    @Override public void add(String key, Section value, int index)
+    {
+        super.add(key, value, index);
+        addPath(key);
+    }
+
     @Override public void add(String section, String option, Object value)
     {
         getOrAdd(section).add(option, value);
@@ -98,7 +121,8 @@ public class BasicProfile extends CommonMultiMap<String, Profile.Section> implem
 
     @Override public <T> T as(Class<T> clazz, String prefix)
     {
-        return clazz.cast(Proxy.newProxyInstance(Thread.currentThread().getContextClassLoader(), new Class[] { clazz },
+        return isGeneratedBeans() ? BeanTool.getInstance().generate(clazz, new BeanInvocationHandler(prefix))
+                                  : clazz.cast(Proxy.newProxyInstance(Thread.currentThread().getContextClassLoader(), new Class[] { clazz },
                     new BeanInvocationHandler(prefix)));
     }
 
@@ -109,6 +133,12 @@ public class BasicProfile extends CommonMultiMap<String, Profile.Section> implem
         return (sec == null) ? null : sec.fetch(optionName);
     }
 
+    @Override public void clear()
+    {
+        super.clear();
+        _paths = null;
+    }
+
     @Override public <T> T fetch(Object sectionName, Object optionName, Class<T> clazz)
     {
         Section sec = get(sectionName);
@@ -116,6 +146,16 @@ public class BasicProfile extends CommonMultiMap<String, Profile.Section> implem
         return (sec == null) ? BeanTool.getInstance().zero(clazz) : sec.fetch(optionName, clazz);
     }
 
+    /**
+     * Builds the graph of the <code>${section/option}</code> references of
+     * the profile: unresolved references, reference cycles and the order in
+     * which all values can be resolved in bulk.
+     */
+    public ReferenceGraph getReferenceGraph()
+    {
+        return new ReferenceGraph(this);
+    }
+
     @Override public String get(Object sectionName, Object optionName)
     {
         Section sec = get(sectionName);
@@ -130,16 +170,55 @@ public class BasicProfile extends CommonMultiMap<String, Profile.Section> implem
         return (sec == null) ? BeanTool.getInstance().zero(clazz) : sec.get(optionName, clazz);
     }
 
+    @Override public Section put(String key, Section value)
+    {
+        Section ret = super.put(key, value);
+
+        addPath(key);
+
+        return ret;
+    }
+
     @Override public String put(String sectionName, String optionName, Object value)
     {
         return getOrAdd(sectionName).put(optionName, value);
     }
 
+    @Override public List<Section> putAll(String key, List<Section> values)
+    {
+        List<Section> ret = super.putAll(key, values);
+
+        addPath(key);
+
+        return ret;
+    }
+
     @Override public Section remove(Section section)
     {
         return remove((Object) section.getName());
     }
 
+    @Override public Section remove(Object key)
+    {
+        Section ret = super.remove(key);
+
+        removePath(key);
+
+        return ret;
+    }
+
+    @Override public Section remove(Object key, int index)
+    {
+        Section ret = super.remove(key, index);
+
+        if (length(key) == 0)
+        {
+            removePath(key);
+        }
+
+        return ret;
+    }
+
     @Override public String removeValue(Object sectionName, Object optionName)
     {
         Section sec = get(sectionName);
@@ -147,6 +226,38 @@ public class BasicProfile extends CommonMultiMap<String, Profile.Section> implem
         return (sec == null) ? null : sec.remove(optionName);
     }
 
+    /**
+     * Simple names of the sections one level below the section name (the
+     * top level sections for null). The section names are indexed on the
+     * first call, then the index is kept up to date by the methods that add
+     * and remove sections. Sections removed through the key set view bypass
+     * those methods, so the index is rebuilt when it lists a name which is
+     * no longer a key.
+     */
+    String[] childrenNames(String name)
+    {
+        PathTrie paths = _paths;
+
+        if ((paths == null) || (paths.getSeparator() != getPathSeparator()))
+        {
+            paths = newPaths();
+        }
+
+        List<String> names = paths.children(name);
+
+        if (!containsChildren(name, names))
+        {
+            names = newPaths().children(name);
+        }
+
+        return names.toArray(new String[names.size()]);
+    }
+
+    boolean isReadOnly()
+    {
+        return false;
+    }
+
     boolean isTreeMode()
     {
         return _treeMode;
@@ -157,47 +268,114 @@ public class BasicProfile extends CommonMultiMap<String, Profile.Section> implem
         return PATH_SEPARATOR;
     }
 
+    boolean isGeneratedBeans()
+    {
+        return false;
+    }
+
     boolean isPropertyFirstUpper()
     {
         return _propertyFirstUpper;
     }
 
+    boolean isValueCache()
+    {
+        return false;
+    }
+
     Section newSection(String name)
     {
         return new BasicProfileSection(this, name);
     }
 
-    void resolve(StringBuilder buffer, Section owner)
+    ValueTemplate compile(String value)
     {
-        Matcher m = EXPRESSION.matcher(buffer);
+        List<ValueTemplate.Reference> references = new ArrayList<ValueTemplate.Reference>();
+        Matcher m = EXPRESSION.matcher(value);
 
         while (m.find())
         {
             String sectionName = m.group(G_SECTION);
-            String optionName = m.group(G_OPTION);
-            int optionIndex = parseOptionIndex(m);
-            Section section = parseSection(m, owner);
-            String value = null;
+            int kind = ValueTemplate.OPTION;
 
             if (SECTION_ENVIRONMENT.equals(sectionName))
             {
-                value = Config.getEnvironment(optionName);
+                kind = ValueTemplate.ENVIRONMENT;
             }
             else if (SECTION_SYSTEM_PROPERTIES.equals(sectionName))
             {
-                value = Config.getSystemProperty(optionName);
+                kind = ValueTemplate.PROPERTY;
             }
-            else if (section != null)
+
+            references.add(new ValueTemplate.Reference(value, m.start(), m.end(), kind, sectionName, parseSectionIndex(m),
+                    m.group(G_OPTION), parseOptionIndex(m)));
+        }
+
+        return new ValueTemplate(value, references);
+    }
+
+    String lookup(ValueTemplate.Reference reference, Section owner, ValueTemplate.Context context)
+    {
+        String value = null;
+
+        if (reference.getKind() == ValueTemplate.ENVIRONMENT)
+        {
+            value = Config.getEnvironment(reference.getOption());
+        }
+        else if (reference.getKind() == ValueTemplate.PROPERTY)
+        {
+            value = context.property(reference.getOption());
+        }
+        else
+        {
+            Section section = owner;
+
+            if (reference.getSection() != null)
             {
-                value = (optionIndex == -1) ? section.fetch(optionName) : section.fetch(optionName, optionIndex);
+                int index = reference.getSectionIndex();
+
+                if (index == -1)
+                {
+                    section = get(reference.getSection());
+                }
+                else
+                {
+                    section = (index < length(reference.getSection())) ? get(reference.getSection(), index) : null;
+                }
+
+                context.depend(this, reference.getSection(), index, section);
             }
 
-            if (value != null)
+            if (section != null)
             {
-                buffer.replace(m.start(), m.end(), value);
-                m.reset(buffer);
+                value = context.fetch(section, reference.getOption(), reference.getOptionIndex());
             }
         }
+
+        return value;
+    }
+
+    void resolve(StringBuilder buffer, Section owner)
+    {
+        ValueTemplate template = compile(buffer.toString());
+        ValueTemplate.Context context = new ValueTemplate.Context();
+        String[] values = new String[template.size()];
+
+        for (int i = 0; i < values.length; i++)
+        {
+            values[i] = lookup(template.getReference(i), owner, context);
+        }
+
+        buffer.replace(0, buffer.length(), template.expand(values));
+    }
+
+    /**
+     * Drops the section name index, for subclasses which change the
+     * sections without the methods of this class.
+     */
+    void resetPaths()
+    {
+        _paths = null;
     }
 
     void store(IniHandler formatter)
@@ -245,6 +423,37 @@ public class BasicProfile extends CommonMultiMap<String, Profile.Section> implem
         formatter.handleOption(option, section.get(option, index));
     }
 
+    private void addPath(String key)
+    {
+        PathTrie paths = _paths;
+
+        if ((paths != null) && (key != null))
+        {
+            paths.add(key);
+        }
+    }
+
+    private boolean containsChildren(String name, List<String> names)
+    {
+        boolean ret = true;
+
+        for (int i = 0; ret && (i < names.size()); i++)
+        {
+            ret = containsKey((name == null) ? names.get(i) : (name + getPathSeparator() + names.get(i)));
+        }
+
+        return ret;
+    }
+
+    private PathTrie newPaths()
+    {
+        PathTrie paths = new PathTrie(getPathSeparator(), keySet());
+
+        _paths = paths;
+
+        return paths;
+    }
+
     private Section getOrAdd(String sectionName)
     {
         Section section = get(sectionName);
@@ -257,17 +466,19 @@ public class BasicProfile extends CommonMultiMap<String, Profile.Section> implem
         return (m.group(G_OPTION_IDX) == null) ? -1 : Integer.parseInt(m.group(G_OPTION_IDX));
     }
 
-    private Section parseSection(Matcher m, Section owner)
+    private int parseSectionIndex(Matcher m)
     {
-        String sectionName = m.group(G_SECTION);
-        int sectionIndex = parseSectionIndex(m);
-
-        return (sectionName == null) ? owner : ((sectionIndex == -1) ? get(sectionName) : get(sectionName, sectionIndex));
+        return (m.group(G_SECTION_IDX) == null) ? -1 : Integer.parseInt(m.group(G_SECTION_IDX));
     }
 
-    private int parseSectionIndex(Matcher m)
+    private void removePath(Object key)
     {
-        return (m.group(G_SECTION_IDX) == null) ? -1 : Integer.parseInt(m.group(G_SECTION_IDX));
+        PathTrie paths = _paths;
+
+        if ((paths != null) && (key instanceof String))
+        {
+            paths.remove((String) key);
+        }
     }
 
     private final class BeanInvocationHandler extends AbstractBeanInvocationHandler
@@ -276,6 +487,7 @@ public class BasicProfile extends CommonMultiMap<String, Profile.Section> implem
 
         private BeanInvocationHandler(String prefix)
         {
+            super(isReadOnly());
             _prefix = prefix;
         }
 
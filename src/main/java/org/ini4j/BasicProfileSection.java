@@ -15,16 +15,12 @@
  */
 package org.ini4j;
 
-import java.util.ArrayList;
 import java.util.List;
-import java.util.regex.Pattern;
+import java.util.Map;
 
 class BasicProfileSection extends BasicOptionMap implements Profile.Section
 {
     private static final long serialVersionUID = 985800697957194374L;
-    private static final String[] EMPTY_STRING_ARRAY = {};
-    private static final char REGEXP_ESCAPE_CHAR = '\\';
-    private final Pattern _childPattern;
     private final String _name;
     private final BasicProfile _profile;
 
@@ -32,7 +28,13 @@ class BasicProfileSection extends BasicOptionMap implements Profile.Section
     {
         _profile = profile;
         _name = name;
-        _childPattern = newChildPattern(name);
+    }
+
+    BasicProfileSection(BasicProfile profile, String name, Map<String, List<String>> impl)
+    {
+        super(false, impl);
+        _profile = profile;
+        _name = name;
     }
 
     @Override public Profile.Section getChild(String key)
@@ -76,17 +78,7 @@ class BasicProfileSection extends BasicOptionMap implements Profile.Section
 
     @Override public String[] childrenNames()
     {
-        List<String> names = new ArrayList<String>();
-
-        for (String key : _profile.keySet())
-        {
-            if (_childPattern.matcher(key).matches())
-            {
-                names.add(key.substring(_name.length() + 1));
-            }
-        }
-
-        return names.toArray(EMPTY_STRING_ARRAY);
+        return _profile.childrenNames(_name);
     }
 
     @Override public Profile.Section lookup(String... parts)
@@ -113,11 +105,31 @@ class BasicProfileSection extends BasicOptionMap implements Profile.Section
         _profile.remove(name);
     }
 
+    @Override boolean isGeneratedBeans()
+    {
+        return _profile.isGeneratedBeans();
+    }
+
     @Override boolean isPropertyFirstUpper()
     {
         return _profile.isPropertyFirstUpper();
     }
 
+    @Override boolean isValueCache()
+    {
+        return _profile.isValueCache();
+    }
+
+    @Override ValueTemplate compile(String value)
+    {
+        return _profile.compile(value);
+    }
+
+    @Override String lookup(ValueTemplate.Reference reference, ValueTemplate.Context context)
+    {
+        return _profile.lookup(reference, this, context);
+    }
+
     @Override void resolve(StringBuilder buffer)
     {
         _profile.resolve(buffer, this);
@@ -132,20 +144,4 @@ class BasicProfileSection extends BasicOptionMap implements Profile.Section
 
         return buff.toString();
     }
-
-    private Pattern newChildPattern(String name)
-    {
-        StringBuilder buff = new StringBuilder();
-
-        buff.append('^');
-        buff.append(Pattern.quote(name));
-        buff.append(REGEXP_ESCAPE_CHAR);
-        buff.append(_profile.getPathSeparator());
-        buff.append("[^");
-        buff.append(REGEXP_ESCAPE_CHAR);
-        buff.append(_profile.getPathSeparator());
-        buff.append("]+$");
-
-        return Pattern.compile(buff.toString());
-    }
 }
@@ -15,18 +15,34 @@
  */
 package org.ini4j;
 
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.Serializable;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.SortedMap;
-import java.util.TreeMap;
 
 public class CommonMultiMap<K, V> extends BasicMultiMap<K, V> implements CommentedMap<K, V>
 {
     private static final long serialVersionUID = 3012579878005541746L;
-    private static final String SEPARATOR = ";#;";
-    private static final String FIRST_CATEGORY = "";
-    private static final String LAST_CATEGORY = "zzzzzzzzzzzzzzzzzzzzzz";
     private static final String META_COMMENT = "comment";
-    private SortedMap<String, Object> _meta;
+
+    // separator of key and category in the sorted metadata map of older versions
+    private static final String SEPARATOR = ";#;";
+    private Map<Object, Meta> _meta;
+
+    public CommonMultiMap()
+    {
+        super();
+    }
+
+    CommonMultiMap(Map<K, List<V>> impl)
+    {
+        super(impl);
+    }
 
     @Override public String getComment(Object key)
     {
@@ -48,11 +64,14 @@ public class CommonMultiMap<K, V> extends BasicMultiMap<K, V> implements Comment
         super.putAll(map);
         if (map instanceof CommonMultiMap)
         {
-            Map<String, String> meta = ((CommonMultiMap) map)._meta;
+            Map<Object, Meta> meta = ((CommonMultiMap) map)._meta;
 
             if (meta != null)
             {
-                meta().putAll(meta);
+                for (Map.Entry<Object, Meta> entry : meta.entrySet())
+                {
+                    meta().put(entry.getKey(), entry.getValue().copy());
+                }
             }
         }
     }
@@ -90,45 +109,172 @@ public class CommonMultiMap<K, V> extends BasicMultiMap<K, V> implements Comment
 
     Object getMeta(String category, Object key)
     {
-        return (_meta == null) ? null : _meta.get(makeKey(category, key));
+        Meta meta = (_meta == null) ? null : _meta.get(key);
+
+        return (meta == null) ? null : meta.get(category);
     }
 
     Object putMeta(String category, K key, Object value)
     {
-        return meta().put(makeKey(category, key), value);
+        Meta meta = meta().get(key);
+
+        if (meta == null)
+        {
+            meta = new Meta();
+            _meta.put(key, meta);
+        }
+
+        return meta.put(category, value);
     }
 
     void removeMeta(Object key)
     {
         if (_meta != null)
         {
-            _meta.subMap(makeKey(FIRST_CATEGORY, key), makeKey(LAST_CATEGORY, key)).clear();
+            _meta.remove(key);
         }
     }
 
     Object removeMeta(String category, Object key)
     {
-        return (_meta == null) ? null : _meta.remove(makeKey(category, key));
+        Meta meta = (_meta == null) ? null : _meta.get(key);
+        Object ret = null;
+
+        if (meta != null)
+        {
+            ret = meta.remove(category);
+            if (meta.isEmpty())
+            {
+                _meta.remove(key);
+            }
+        }
+
+        return ret;
     }
 
-    private String makeKey(String category, Object key)
+    /**
+     * Older versions kept the metadata in a sorted map of
+     * <code>key;#;category</code> strings, which is converted to the
+     * records of this version.
+     */
+    private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException
     {
-        StringBuilder buff = new StringBuilder();
+        in.defaultReadObject();
+        if (_meta instanceof SortedMap)
+        {
+            Map<?, ?> old = _meta;
+
+            _meta = null;
+            for (Map.Entry<?, ?> entry : old.entrySet())
+            {
+                String name = (String) entry.getKey();
+                int idx = name.lastIndexOf(SEPARATOR);
+                Object key = name.substring(0, idx);
+                Meta meta = meta().get(key);
 
-        buff.append(String.valueOf(key));
-        buff.append(SEPARATOR);
-        buff.append(category);
+                if (meta == null)
+                {
+                    meta = new Meta();
+                    _meta.put(key, meta);
+                }
 
-        return buff.toString();
+                meta.put(name.substring(idx + SEPARATOR.length()), entry.getValue());
+            }
+        }
     }
 
-    private Map<String, Object> meta()
+    private Map<Object, Meta> meta()
     {
         if (_meta == null)
         {
-            _meta = new TreeMap<String, Object>();
+            _meta = new HashMap<Object, Meta>();
         }
 
         return _meta;
     }
+
+    /**
+     * Metadata of one key (comment, registry type, ...): category and value
+     * pairs in one array. Categories are few, so they are searched linearly.
+     */
+    private static final class Meta implements Serializable
+    {
+        private static final long serialVersionUID = -3395436137186539237L;
+        private static final Object[] EMPTY = {};
+        private Object[] _entries = EMPTY;
+
+        private boolean isEmpty()
+        {
+            return _entries.length == 0;
+        }
+
+        private Meta copy()
+        {
+            Meta ret = new Meta();
+
+            ret._entries = _entries.clone();
+
+            return ret;
+        }
+
+        private Object get(String category)
+        {
+            int idx = indexOf(category);
+
+            return (idx < 0) ? null : _entries[idx + 1];
+        }
+
+        private Object put(String category, Object value)
+        {
+            int idx = indexOf(category);
+            Object ret = null;
+
+            if (idx < 0)
+            {
+                idx = _entries.length;
+                _entries = Arrays.copyOf(_entries, idx + 2);
+                _entries[idx] = category;
+            }
+            else
+            {
+                ret = _entries[idx + 1];
+            }
+
+            _entries[idx + 1] = value;
+
+            return ret;
+        }
+
+        private Object remove(String category)
+        {
+            int idx = indexOf(category);
+            Object ret = null;
+
+            if (idx >= 0)
+            {
+                Object[] entries = Arrays.copyOf(_entries, _entries.length - 2);
+
+                ret = _entries[idx + 1];
+                System.arraycopy(_entries, idx + 2, entries, idx, entries.length - idx);
+                _entries = entries;
+            }
+
+            return ret;
+        }
+
+        private int indexOf(String category)
+        {
+            int ret = -1;
+
+            for (int i = 0; (ret < 0) && (i < _entries.length); i += 2)
+            {
+                if (category.equals(_entries[i]))
+                {
+                    ret = i;
+                }
+            }
+
+            return ret;
+        }
+    }
 }
@@ -0,0 +1,271 @@
+/*
+ * Copyright 2005,2009 Ivan SZKIBA
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ini4j;
+
+import org.ini4j.spi.Warnings;
+
+import java.io.Serializable;
+
+import java.util.AbstractList;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.RandomAccess;
+import java.util.Set;
+
+/**
+ * Immutable key to value list map of a {@link ProfileSnapshot}.
+ *
+ * Keys, their hash codes and the values are kept in arrays in insertion
+ * order, looked up through an open addressing table. The value lists are
+ * filled once while the snapshot is built and never change afterwards, so
+ * the map can be read by any number of threads without locking.
+ */
+final class CompactMap<K, V> extends AbstractMap<K, List<V>> implements Serializable
+{
+    private static final long serialVersionUID = -4212843021657238171L;
+    private final int[] _hashes;
+    private final Object[] _keys;
+    private final int[] _table;
+    private final Values<V>[] _values;
+
+    @SuppressWarnings(Warnings.UNCHECKED)
+    CompactMap(Collection<K> keys)
+    {
+        int size = 1;
+
+        while (size < (keys.size() * 2))
+        {
+            size <<= 1;
+        }
+
+        _keys = keys.toArray();
+        _hashes = new int[_keys.length];
+        _table = new int[size];
+        _values = (Values<V>[]) new Values<?>[_keys.length];
+        for (int i = 0; i < _keys.length; i++)
+        {
+            int h = hash(_keys[i]);
+            int slot = h & (size - 1);
+
+            while (_table[slot] != 0)
+            {
+                slot = (slot + 1) & (size - 1);
+            }
+
+            _hashes[i] = h;
+            _table[slot] = i + 1;
+        }
+    }
+
+    CompactMap(Map<K, List<V>> source)
+    {
+        this(source.keySet());
+        for (int i = 0; i < _keys.length; i++)
+        {
+            set(i, source.get(_keys[i]).toArray());
+        }
+    }
+
+    @Override public boolean isEmpty()
+    {
+        return _keys.length == 0;
+    }
+
+    @Override public void clear()
+    {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override public boolean containsKey(Object key)
+    {
+        return indexOf(key) >= 0;
+    }
+
+    @Override public Set<Map.Entry<K, List<V>>> entrySet()
+    {
+        return new EntrySet();
+    }
+
+    @Override public List<V> get(Object key)
+    {
+        int idx = indexOf(key);
+
+        return (idx < 0) ? null : _values[idx];
+    }
+
+    @Override public Set<K> keySet()
+    {
+        return new KeySet();
+    }
+
+    @Override public int size()
+    {
+        return _keys.length;
+    }
+
+    @SuppressWarnings("unchecked")
+    K getKey(int index)
+    {
+        return (K) _keys[index];
+    }
+
+    List<V> getValues(int index)
+    {
+        return _values[index];
+    }
+
+    int indexOf(Object key)
+    {
+        int ret = -1;
+        int h = hash(key);
+        int mask = _table.length - 1;
+
+        for (int slot = h & mask; (ret < 0) && (_table[slot] != 0); slot = (slot + 1) & mask)
+        {
+            int idx = _table[slot] - 1;
+
+            if ((_hashes[idx] == h) && ((key == null) ? (_keys[idx] == null) : key.equals(_keys[idx])))
+            {
+                ret = idx;
+            }
+        }
+
+        return ret;
+    }
+
+    /**
+     * Sets the values of a key; only while the snapshot is being built.
+     */
+    void set(int index, Object[] values)
+    {
+        _values[index] = new Values<V>(values);
+    }
+
+    private static int hash(Object key)
+    {
+        int h = (key == null) ? 0 : key.hashCode();
+
+        return h ^ (h >>> 16);
+    }
+
+    private static final class Values<V> extends AbstractList<V> implements RandomAccess, Serializable
+    {
+        private static final long serialVersionUID = 1470418484562453317L;
+        private final Object[] _array;
+
+        private Values(Object[] array)
+        {
+            _array = array;
+        }
+
+        @SuppressWarnings("unchecked")
+        @Override public V get(int index)
+        {
+            return (V) _array[index];
+        }
+
+        @Override public int size()
+        {
+            return _array.length;
+        }
+    }
+
+    private final class EntrySet extends AbstractSet<Map.Entry<K, List<V>>>
+    {
+        @Override public Iterator<Map.Entry<K, List<V>>> iterator()
+        {
+            return new Iterator<Map.Entry<K, List<V>>>()
+                {
+                    private int _next;
+
+                    @Override public boolean hasNext()
+                    {
+                        return _next < _keys.length;
+                    }
+
+                    @Override public Map.Entry<K, List<V>> next()
+                    {
+                        if (!hasNext())
+                        {
+                            throw new NoSuchElementException();
+                        }
+
+                        _next++;
+
+                        return new SimpleImmutableEntry<K, List<V>>(getKey(_next - 1), _values[_next - 1]);
+                    }
+
+                    @Override public void remove()
+                    {
+                        throw new UnsupportedOperationException();
+                    }
+                };
+        }
+
+        @Override public int size()
+        {
+            return _keys.length;
+        }
+    }
+
+    private final class KeySet extends AbstractSet<K>
+    {
+        @Override public boolean contains(Object o)
+        {
+            return indexOf(o) >= 0;
+        }
+
+        @Override public Iterator<K> iterator()
+        {
+            return new Iterator<K>()
+                {
+                    private int _next;
+
+                    @Override public boolean hasNext()
+                    {
+                        return _next < _keys.length;
+                    }
+
+                    @Override public K next()
+                    {
+                        if (!hasNext())
+                        {
+                            throw new NoSuchElementException();
+                        }
+
+                        _next++;
+
+                        return getKey(_next - 1);
+                    }
+
+                    @Override public void remove()
+                    {
+                        throw new UnsupportedOperationException();
+                    }
+                };
+        }
+
+        @Override public int size()
+        {
+            return _keys.length;
+        }
+    }
+}
@@ -44,6 +44,11 @@ public class Config implements Cloneable, Serializable
     public static final String PROP_LINE_SEPARATOR = "lineSeparator";
     public static final String PROP_COMMENT = "comment";
     public static final String PROP_HEADER_COMMENT = "headerComment";
+    public static final String PROP_MMAP_THRESHOLD = "mmapThreshold";
+    public static final String PROP_PARALLEL_THRESHOLD = "parallelThreshold";
+    public static final String PROP_STRING_POOL_SIZE = "stringPoolSize";
+    public static final String PROP_VALUE_CACHE = "valueCache";
+    public static final String PROP_GENERATED_BEANS = "generatedBeans";
     public static final boolean DEFAULT_EMPTY_OPTION = false;
     public static final boolean DEFAULT_EMPTY_SECTION = false;
     public static final boolean DEFAULT_GLOBAL_SECTION = false;
@@ -62,6 +67,11 @@ public class Config implements Cloneable, Serializable
     public static final boolean DEFAULT_PROPERTY_FIRST_UPPER = false;
     public static final boolean DEFAULT_COMMENT = true;
     public static final boolean DEFAULT_HEADER_COMMENT = true;
+    public static final long DEFAULT_MMAP_THRESHOLD = -1L;
+    public static final long DEFAULT_PARALLEL_THRESHOLD = -1L;
+    public static final int DEFAULT_STRING_POOL_SIZE = 0;
+    public static final boolean DEFAULT_VALUE_CACHE = false;
+    public static final boolean DEFAULT_GENERATED_BEANS = false;
     public static final char DEFAULT_PATH_SEPARATOR = '/';
     public static final String DEFAULT_LINE_SEPARATOR = getSystemProperty("line.separator", "\n");
     public static final Charset DEFAULT_FILE_ENCODING = Charset.forName("UTF-8");
@@ -74,6 +84,7 @@ public class Config implements Cloneable, Serializable
     private boolean _escapeKeyOnly;
     private boolean _escapeNewline;
     private Charset _fileEncoding;
+    private boolean _generatedBeans;
     private boolean _globalSection;
     private String _globalSectionName;
     private boolean _headerComment;
@@ -81,13 +92,17 @@ public class Config implements Cloneable, Serializable
     private String _lineSeparator;
     private boolean _lowerCaseOption;
     private boolean _lowerCaseSection;
+    private long _mmapThreshold;
     private boolean _multiOption;
     private boolean _multiSection;
+    private long _parallelThreshold;
     private char _pathSeparator;
     private boolean _propertyFirstUpper;
     private boolean _strictOperator;
+    private int _stringPoolSize;
     private boolean _tree;
     private boolean _unnamedSection;
+    private boolean _valueCache;
 
     public Config()
     {
@@ -246,6 +261,20 @@ public class Config implements Cloneable, Serializable
         _lowerCaseSection = value;
     }
 
+    /**
+     * Minimum file size (in bytes) for loading files through a memory mapped
+     * buffer instead of a stream. Negative value disables memory mapping.
+     */
+    public long getMmapThreshold()
+    {
+        return _mmapThreshold;
+    }
+
+    public void setMmapThreshold(long value)
+    {
+        _mmapThreshold = value;
+    }
+
     public void setMultiOption(boolean value)
     {
         _multiOption = value;
@@ -296,6 +325,20 @@ public class Config implements Cloneable, Serializable
         return _unnamedSection;
     }
 
+    /**
+     * Minimum file size (in bytes) for parsing a file in parallel, section
+     * chunk by section chunk. Negative value disables parallel parsing.
+     */
+    public long getParallelThreshold()
+    {
+        return _parallelThreshold;
+    }
+
+    public void setParallelThreshold(long value)
+    {
+        _parallelThreshold = value;
+    }
+
     public char getPathSeparator()
     {
         return _pathSeparator;
@@ -326,6 +369,21 @@ public class Config implements Cloneable, Serializable
         _strictOperator = value;
     }
 
+    /**
+     * Number of distinct strings kept by the pool that deduplicates section
+     * names, option names and short values while a file is loaded. Zero
+     * disables the pool.
+     */
+    public int getStringPoolSize()
+    {
+        return _stringPoolSize;
+    }
+
+    public void setStringPoolSize(int value)
+    {
+        _stringPoolSize = value;
+    }
+
     public boolean isComment()
     {
         return _comment;
@@ -351,6 +409,37 @@ public class Config implements Cloneable, Serializable
         return _escapeKeyOnly;
     }
 
+    /**
+     * Keep the result of typed fetches (<code>fetch(key, Class)</code>) of
+     * sections and options until the value, or anything it references,
+     * changes. Only results of immutable types (primitives and their
+     * wrappers, strings, enums, files, URLs, URIs, classes, big numbers) are
+     * cached, as the same instance is returned to every caller.
+     */
+    public boolean isValueCache()
+    {
+        return _valueCache;
+    }
+
+    public void setValueCache(boolean value)
+    {
+        _valueCache = value;
+    }
+
+    /**
+     * Implement the beans returned by <code>as(Class)</code> with classes
+     * generated per bean interface instead of dynamic proxies.
+     */
+    public boolean isGeneratedBeans()
+    {
+        return _generatedBeans;
+    }
+
+    public void setGeneratedBeans(boolean value)
+    {
+        _generatedBeans = value;
+    }
+
     @Override public Config clone()
     {
         try
@@ -386,6 +475,11 @@ public class Config implements Cloneable, Serializable
         _fileEncoding = getCharset(PROP_FILE_ENCODING, DEFAULT_FILE_ENCODING);
         _comment = getBoolean(PROP_COMMENT, DEFAULT_COMMENT);
         _headerComment = getBoolean(PROP_HEADER_COMMENT, DEFAULT_HEADER_COMMENT);
+        _mmapThreshold = getLong(PROP_MMAP_THRESHOLD, DEFAULT_MMAP_THRESHOLD);
+        _parallelThreshold = getLong(PROP_PARALLEL_THRESHOLD, DEFAULT_PARALLEL_THRESHOLD);
+        _stringPoolSize = getInt(PROP_STRING_POOL_SIZE, DEFAULT_STRING_POOL_SIZE);
+        _valueCache = getBoolean(PROP_VALUE_CACHE, DEFAULT_VALUE_CACHE);
+        _generatedBeans = getBoolean(PROP_GENERATED_BEANS, DEFAULT_GENERATED_BEANS);
     }
 
     private boolean getBoolean(String name, boolean defaultValue)
@@ -409,6 +503,20 @@ public class Config implements Cloneable, Serializable
         return (value == null) ? defaultValue : Charset.forName(value);
     }
 
+    private int getInt(String name, int defaultValue)
+    {
+        String value = getSystemProperty(KEY_PREFIX + name);
+
+        return (value == null) ? defaultValue : Integer.parseInt(value);
+    }
+
+    private long getLong(String name, long defaultValue)
+    {
+        String value = getSystemProperty(KEY_PREFIX + name);
+
+        return (value == null) ? defaultValue : Long.parseLong(value);
+    }
+
     private String getString(String name, String defaultValue)
     {
         return getSystemProperty(KEY_PREFIX + name, defaultValue);
@@ -15,6 +15,7 @@
  */
 package org.ini4j;
 
+import org.ini4j.spi.ChannelWriter;
 import org.ini4j.spi.IniBuilder;
 import org.ini4j.spi.IniFormatter;
 import org.ini4j.spi.IniHandler;
@@ -33,6 +34,8 @@ import java.io.Writer;
 
 import java.net.URL;
 
+import java.nio.channels.WritableByteChannel;
+
 public class Ini extends BasicProfile implements Persistable, Configurable
 {
     private static final long serialVersionUID = -6029486578113700585L;
@@ -111,7 +114,7 @@ public class Ini extends BasicProfile implements Persistable, Configurable
 
     @Override public void load(File input) throws IOException, InvalidFileFormatException
     {
-        load(input.toURI().toURL());
+        IniParser.newInstance(getConfig()).parse(input, newBuilder());
     }
 
     @Override public void load(URL input) throws IOException, InvalidFileFormatException
@@ -141,10 +144,31 @@ public class Ini extends BasicProfile implements Persistable, Configurable
 
     @Override public void store(File output) throws IOException
     {
-        OutputStream stream = new FileOutputStream(output);
+        FileOutputStream stream = new FileOutputStream(output);
+
+        try
+        {
+            store(stream.getChannel());
+        }
+        finally
+        {
+            stream.close();
+        }
+    }
+
+    /**
+     * Stores through a {@link ChannelWriter}, which encodes straight into a
+     * byte buffer written to the channel. The channel is not closed.
+     */
+    public void store(WritableByteChannel output) throws IOException
+    {
+        IniFormatter formatter = IniFormatter.newInstance(output, getConfig());
 
-        store(stream);
-        stream.close();
+        store(formatter);
+        if (formatter.getError() != null)
+        {
+            throw formatter.getError();
+        }
     }
 
     protected IniHandler newBuilder()
@@ -182,4 +206,14 @@ public class Ini extends BasicProfile implements Persistable, Configurable
     {
         return getConfig().isPropertyFirstUpper();
     }
+
+    @Override boolean isGeneratedBeans()
+    {
+        return getConfig().isGeneratedBeans();
+    }
+
+    @Override boolean isValueCache()
+    {
+        return getConfig().isValueCache();
+    }
 }
@@ -21,8 +21,6 @@ import java.io.Reader;
 
 import java.net.URL;
 
-import java.util.ArrayList;
-import java.util.List;
 import java.util.prefs.AbstractPreferences;
 import java.util.prefs.BackingStoreException;
 
@@ -127,17 +125,7 @@ public class IniPreferences extends AbstractPreferences
      */
     @Override protected String[] childrenNamesSpi() throws BackingStoreException
     {
-        List<String> names = new ArrayList<String>();
-
-        for (String name : _ini.keySet())
-        {
-            if (name.indexOf(_ini.getPathSeparator()) < 0)
-            {
-                names.add(name);
-            }
-        }
-
-        return names.toArray(EMPTY);
+        return _ini.childrenNames(null);
     }
 
     /**
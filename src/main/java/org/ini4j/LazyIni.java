@@ -0,0 +1,789 @@
+/*
+ * Copyright 2005,2009 Ivan SZKIBA
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ini4j;
+
+import org.ini4j.spi.IniBuilder;
+import org.ini4j.spi.IniHandler;
+import org.ini4j.spi.SectionIndex;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.ObjectOutputStream;
+import java.io.Reader;
+
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+
+import java.net.URL;
+
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * {@link Ini} that parses sections on first access.
+ *
+ * Loading a local file only builds a {@link SectionIndex} (section name to
+ * byte offsets) and parses the lines before the first section (header
+ * comment and global section). The options of a section are parsed when the
+ * section is first looked up, through {@link #get(Object)},
+ * {@link #fetch(Object, Object)}, a bean proxy and so on. Parsed sections
+ * are kept in a bounded LRU cache (see {@link #setCacheSize(int)}); an
+ * evicted section is parsed again on the next access, unless it is still
+ * referenced somewhere, in which case the same instance is returned.
+ *
+ * Everything else - modifying the profile or any of its sections, storing
+ * it, reading section comments, iterating over {@link #values()} - first
+ * materializes the whole profile, after which it works like a plain
+ * {@link Ini}. Iterating over {@link #entrySet()} does the same, and so
+ * does removing a key through the key set of a section. Files that can
+ * not be indexed (includes, files not in an ASCII compatible encoding)
+ * and the other load methods are loaded eagerly.
+ *
+ * The file must not be modified while sections are loaded from it, and
+ * since sections are parsed late, malformed option lines are only reported
+ * (as {@link IllegalStateException}) when their section is accessed.
+ */
+public class LazyIni extends Ini
+{
+    public static final int DEFAULT_CACHE_SIZE = 64;
+    private static final int IMPLICIT = -1;
+    private static final long serialVersionUID = 2367263962347632785L;
+    private transient Map<String, List<Profile.Section>> _cache;
+    private int _cacheSize = DEFAULT_CACHE_SIZE;
+    private transient Map<String, int[]> _entries;
+    private transient SectionIndex _index;
+    private transient Map<String, Reference<List<Profile.Section>>> _loaded;
+    private transient boolean _loading;
+    private transient ReferenceQueue<List<Profile.Section>> _unreachable;
+
+    public LazyIni()
+    {
+        super();
+    }
+
+    public LazyIni(File input) throws IOException, InvalidFileFormatException
+    {
+        this();
+        setFile(input);
+        load();
+    }
+
+    @Override public List<Profile.Section> getAll(Object key)
+    {
+        return isLazy() ? sections(key) : super.getAll(key);
+    }
+
+    public int getCacheSize()
+    {
+        return _cacheSize;
+    }
+
+    public void setCacheSize(int value)
+    {
+        _cacheSize = value;
+    }
+
+    @Override public boolean isEmpty()
+    {
+        return isLazy() ? _entries.isEmpty() : super.isEmpty();
+    }
+
+    @Override public String getComment(Object key)
+    {
+        materialize();
+
+        return super.getComment(key);
+    }
+
+    @Override public void add(String key, Profile.Section value)
+    {
+        materialize();
+        super.add(key, value);
+    }
+
+    @Override public void add(String key, Profile.Section value, int index)
+    {
+        materialize();
+        super.add(key, value, index);
+    }
+
+    @Override public void clear()
+    {
+        unload();
+        super.clear();
+    }
+
+    @Override public boolean containsKey(Object key)
+    {
+        return isLazy() ? _entries.containsKey(key) : super.containsKey(key);
+    }
+
+    @Override public boolean containsValue(Object value)
+    {
+        materialize();
+
+        return super.containsValue(value);
+    }
+
+    @Override public Set<Map.Entry<String, Profile.Section>> entrySet()
+    {
+        materialize();
+
+        return super.entrySet();
+    }
+
+    @Override public Profile.Section get(Object key)
+    {
+        Profile.Section ret;
+
+        if (isLazy())
+        {
+            List<Profile.Section> values = sections(key);
+
+            ret = (values == null) ? null : values.get(values.size() - 1);
+        }
+        else
+        {
+            ret = super.get(key);
+        }
+
+        return ret;
+    }
+
+    @Override public Profile.Section get(Object key, int index)
+    {
+        Profile.Section ret;
+
+        if (isLazy())
+        {
+            List<Profile.Section> values = sections(key);
+
+            ret = (values == null) ? null : values.get(index);
+        }
+        else
+        {
+            ret = super.get(key, index);
+        }
+
+        return ret;
+    }
+
+    @Override public Set<String> keySet()
+    {
+        return isLazy() ? Collections.unmodifiableSet(_entries.keySet()) : super.keySet();
+    }
+
+    @Override public int length(Object key)
+    {
+        int ret;
+
+        if (isLazy())
+        {
+            List<Profile.Section> values = sections(key);
+
+            ret = (values == null) ? 0 : values.size();
+        }
+        else
+        {
+            ret = super.length(key);
+        }
+
+        return ret;
+    }
+
+    @Override public void load(InputStream input) throws IOException, InvalidFileFormatException
+    {
+        materialize();
+        super.load(input);
+    }
+
+    @Override public void load(Reader input) throws IOException, InvalidFileFormatException
+    {
+        materialize();
+        super.load(input);
+    }
+
+    @Override public void load(URL input) throws IOException, InvalidFileFormatException
+    {
+        materialize();
+        super.load(input);
+    }
+
+    /**
+     * Indexes the file if the profile is empty, otherwise loads it eagerly.
+     */
+    @Override public void load(File input) throws IOException, InvalidFileFormatException
+    {
+        materialize();
+        SectionIndex index = isEmpty() ? SectionIndex.newInstance(input, getConfig()) : null;
+
+        if (index == null)
+        {
+            super.load(input);
+        }
+        else
+        {
+            index(index);
+        }
+    }
+
+    @Override public Profile.Section put(String key, Profile.Section value)
+    {
+        materialize();
+
+        return super.put(key, value);
+    }
+
+    @Override public Profile.Section put(String key, Profile.Section value, int index)
+    {
+        materialize();
+
+        return super.put(key, value, index);
+    }
+
+    @Override public void putAll(Map<? extends String, ? extends Profile.Section> map)
+    {
+        materialize();
+        super.putAll(map);
+    }
+
+    @Override public List<Profile.Section> putAll(String key, List<Profile.Section> values)
+    {
+        materialize();
+
+        return super.putAll(key, values);
+    }
+
+    @Override public String putComment(String key, String comment)
+    {
+        materialize();
+
+        return super.putComment(key, comment);
+    }
+
+    @Override public Profile.Section remove(Object key)
+    {
+        materialize();
+
+        return super.remove(key);
+    }
+
+    @Override public Profile.Section remove(Object key, int index)
+    {
+        materialize();
+
+        return super.remove(key, index);
+    }
+
+    @Override public String removeComment(Object key)
+    {
+        materialize();
+
+        return super.removeComment(key);
+    }
+
+    @Override public int size()
+    {
+        return isLazy() ? _entries.size() : super.size();
+    }
+
+    @Override public String toString()
+    {
+        materialize();
+
+        return super.toString();
+    }
+
+    @Override public Collection<Profile.Section> values()
+    {
+        materialize();
+
+        return super.values();
+    }
+
+    boolean isLazy()
+    {
+        return _index != null;
+    }
+
+    @Override Profile.Section newSection(String name)
+    {
+        return new LazySection(name);
+    }
+
+    private void addEntry(String name, int entry)
+    {
+        if (isTreeMode())
+        {
+            int idx = name.lastIndexOf(getPathSeparator());
+
+            if (idx > 0)
+            {
+                String parent = name.substring(0, idx);
+
+                if (!_entries.containsKey(parent))
+                {
+                    addEntry(parent, IMPLICIT);
+                }
+            }
+        }
+
+        int[] entries = _entries.get(name);
+
+        if (entries == null)
+        {
+            entries = new int[] { entry };
+        }
+        else
+        {
+            entries = Arrays.copyOf(entries, entries.length + 1);
+            entries[entries.length - 1] = entry;
+        }
+
+        _entries.put(name, entries);
+    }
+
+    /**
+     * Parses the given index entries. {@link #IMPLICIT} stands for a parent
+     * section created by tree mode before its first child.
+     */
+    private Loader parse(String name, int[] entries) throws IOException
+    {
+        Loader loader = new Loader();
+        IniHandler builder = IniBuilder.newInstance(loader);
+
+        _loading = true;
+        try
+        {
+            builder.startIni();
+            for (int i : entries)
+            {
+                if (i == IMPLICIT)
+                {
+                    loader.add(name);
+                }
+                else
+                {
+                    _index.parse(i, builder);
+                }
+            }
+
+            builder.endIni();
+        }
+        finally
+        {
+            _loading = false;
+        }
+
+        return loader;
+    }
+
+    private void index(SectionIndex index) throws IOException
+    {
+        resetPaths();
+        _index = index;
+        _entries = new LinkedHashMap<String, int[]>();
+        _cache = new SectionCache();
+        _loaded = new HashMap<String, Reference<List<Profile.Section>>>();
+        _unreachable = new ReferenceQueue<List<Profile.Section>>();
+        try
+        {
+            Loader loader = parse(null, new int[] { 0 });
+
+            if (loader.getComment() != null)
+            {
+                setComment(loader.getComment());
+            }
+
+            for (String name : loader.keySet())
+            {
+                addEntry(name, 0);
+            }
+
+            for (int i = 1; i < index.size(); i++)
+            {
+                addEntry(index.getName(i), i);
+            }
+        }
+        catch (IOException x)
+        {
+            unload();
+
+            throw x;
+        }
+    }
+
+    private List<Profile.Section> loaded(Object key)
+    {
+        List<Profile.Section> ret = _cache.get(key);
+
+        if (ret == null)
+        {
+            Reference<List<Profile.Section>> ref = _loaded.get(key);
+
+            ret = (ref == null) ? null : ref.get();
+        }
+
+        return ret;
+    }
+
+    /**
+     * Parses the whole file and replaces the index with the parsed sections,
+     * keeping the instances already handed out.
+     */
+    private void materialize()
+    {
+        if (isLazy() && !_loading)
+        {
+            Loader loader = new Loader();
+
+            _loading = true;
+            try
+            {
+                loader.load(_index.getFile());
+            }
+            catch (IOException x)
+            {
+                throw new IllegalStateException(x);
+            }
+            finally
+            {
+                _loading = false;
+            }
+
+            Map<String, List<Profile.Section>> live = new HashMap<String, List<Profile.Section>>();
+
+            for (String name : loader.keySet())
+            {
+                List<Profile.Section> sections = loaded(name);
+
+                live.put(name, (sections == null) ? loader.getAll(name) : sections);
+            }
+
+            unload();
+            for (String name : loader.keySet())
+            {
+                super.putAll(name, live.get(name));
+                String comment = loader.getComment(name);
+
+                if (comment != null)
+                {
+                    super.putComment(name, comment);
+                }
+            }
+        }
+    }
+
+    private List<Profile.Section> sections(Object key)
+    {
+        List<Profile.Section> ret = loaded(key);
+
+        if ((ret == null) && _entries.containsKey(key))
+        {
+            try
+            {
+                ret = parse((String) key, _entries.get(key)).getAll(key);
+            }
+            catch (IOException x)
+            {
+                throw new IllegalStateException(x);
+            }
+
+            for (Profile.Section section : ret)
+            {
+                ((LazySection) section)._siblings = ret;
+            }
+
+            prune();
+            _loaded.put((String) key, new LoadedReference((String) key, ret, _unreachable));
+        }
+
+        if (ret != null)
+        {
+            _cache.put((String) key, ret);
+        }
+
+        return ret;
+    }
+
+    /**
+     * Drops the entries of the sections which were garbage collected.
+     */
+    private void prune()
+    {
+        for (Reference<?> ref = _unreachable.poll(); ref != null; ref = _unreachable.poll())
+        {
+            String name = ((LoadedReference) ref)._name;
+
+            if (_loaded.get(name) == ref)
+            {
+                _loaded.remove(name);
+            }
+        }
+    }
+
+    private void unload()
+    {
+        _index = null;
+        _entries = null;
+        _cache = null;
+        _loaded = null;
+        _unreachable = null;
+    }
+
+    private void writeObject(ObjectOutputStream out) throws IOException
+    {
+        materialize();
+        out.defaultWriteObject();
+    }
+
+    /**
+     * Plain {@link Ini} the sections are parsed into. The sections it creates
+     * belong to the enclosing profile.
+     */
+    private final class Loader extends Ini
+    {
+        private static final long serialVersionUID = -3094215707474392453L;
+
+        private Loader()
+        {
+            setConfig(LazyIni.this.getConfig());
+        }
+
+        @Override Profile.Section newSection(String name)
+        {
+            return LazyIni.this.newSection(name);
+        }
+    }
+
+    private static final class LoadedReference extends WeakReference<List<Profile.Section>>
+    {
+        private final String _name;
+
+        private LoadedReference(String name, List<Profile.Section> sections, ReferenceQueue<List<Profile.Section>> queue)
+        {
+            super(sections, queue);
+            _name = name;
+        }
+    }
+
+    private final class LazySection extends BasicProfileSection
+    {
+        private static final long serialVersionUID = 6498366405393937010L;
+
+        // keeps the loaded list reachable while the section is in use
+        @SuppressWarnings("unused")
+        private transient List<Profile.Section> _siblings;
+
+        private LazySection(String name)
+        {
+            super(LazyIni.this, name);
+        }
+
+        @Override public void add(String key, String value)
+        {
+            materialize();
+            super.add(key, value);
+        }
+
+        @Override public void add(String key, Object value)
+        {
+            materialize();
+            super.add(key, value);
+        }
+
+        @Override public void add(String key, String value, int index)
+        {
+            materialize();
+            super.add(key, value, index);
+        }
+
+        @Override public void add(String key, Object value, int index)
+        {
+            materialize();
+            super.add(key, value, index);
+        }
+
+        @Override public void clear()
+        {
+            materialize();
+            super.clear();
+        }
+
+        @Override public String put(String key, String value)
+        {
+            materialize();
+
+            return super.put(key, value);
+        }
+
+        @Override public String put(String key, Object value)
+        {
+            materialize();
+
+            return super.put(key, value);
+        }
+
+        @Override public String put(String key, String value, int index)
+        {
+            materialize();
+
+            return super.put(key, value, index);
+        }
+
+        @Override public String put(String key, Object value, int index)
+        {
+            materialize();
+
+            return super.put(key, value, index);
+        }
+
+        @Override public void putAll(Map<? extends String, ? extends String> map)
+        {
+            materialize();
+            super.putAll(map);
+        }
+
+        @Override public List<String> putAll(String key, List<String> values)
+        {
+            materialize();
+
+            return super.putAll(key, values);
+        }
+
+        @Override public Set<String> keySet()
+        {
+            return isLazy() ? new KeySet(super.keySet()) : super.keySet();
+        }
+
+        @Override public String putComment(String key, String comment)
+        {
+            materialize();
+
+            return super.putComment(key, comment);
+        }
+
+        @Override public String remove(Object key)
+        {
+            materialize();
+
+            return super.remove(key);
+        }
+
+        @Override public String remove(Object key, int index)
+        {
+            materialize();
+
+            return super.remove(key, index);
+        }
+
+        @Override public String removeComment(Object key)
+        {
+            materialize();
+
+            return super.removeComment(key);
+        }
+    }
+
+    /**
+     * Key view of a section which materializes the profile before a key
+     * is removed.
+     */
+    private final class KeySet extends AbstractSet<String>
+    {
+        private final Set<String> _keys;
+
+        private KeySet(Set<String> keys)
+        {
+            _keys = keys;
+        }
+
+        @Override public boolean contains(Object key)
+        {
+            return _keys.contains(key);
+        }
+
+        @Override public Iterator<String> iterator()
+        {
+            return new KeyIterator(_keys.iterator());
+        }
+
+        @Override public boolean remove(Object key)
+        {
+            materialize();
+
+            return _keys.remove(key);
+        }
+
+        @Override public int size()
+        {
+            return _keys.size();
+        }
+    }
+
+    private final class KeyIterator implements Iterator<String>
+    {
+        private final Iterator<String> _keys;
+
+        private KeyIterator(Iterator<String> keys)
+        {
+            _keys = keys;
+        }
+
+        @Override public boolean hasNext()
+        {
+            return _keys.hasNext();
+        }
+
+        @Override public String next()
+        {
+            return _keys.next();
+        }
+
+        @Override public void remove()
+        {
+            materialize();
+            _keys.remove();
+        }
+    }
+
+    private final class SectionCache extends LinkedHashMap<String, List<Profile.Section>>
+    {
+        private static final long serialVersionUID = -2193640532787226395L;
+        private static final float LOAD_FACTOR = 0.75f;
+        private static final int INITIAL_CAPACITY = 16;
+
+        private SectionCache()
+        {
+            super(INITIAL_CAPACITY, LOAD_FACTOR, true);
+        }
+
+        @Override protected boolean removeEldestEntry(Map.Entry<String, List<Profile.Section>> eldest)
+        {
+            return size() > _cacheSize;
+        }
+    }
+}
@@ -41,6 +41,14 @@ public interface OptionMap extends MultiMap<String, String>, CommentedMap<String
 
     <T> T fetchAll(Object key, Class<T> clazz);
 
+    boolean fetchBoolean(Object key, boolean defaultValue);
+
+    double fetchDouble(Object key, double defaultValue);
+
+    int fetchInt(Object key, int defaultValue);
+
+    long fetchLong(Object key, long defaultValue);
+
     void from(Object bean);
 
     void from(Object bean, String keyPrefix);
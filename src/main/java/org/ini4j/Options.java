@@ -128,7 +128,7 @@ public class Options extends BasicOptionMap implements Persistable, Configurable
 
     @Override public void load(File input) throws IOException, InvalidFileFormatException
     {
-        load(input.toURI().toURL());
+        OptionsParser.newInstance(getConfig()).parse(input, newBuilder());
     }
 
     @Override public void store() throws IOException
@@ -189,6 +189,16 @@ public class Options extends BasicOptionMap implements Persistable, Configurable
         return getConfig().isPropertyFirstUpper();
     }
 
+    @Override boolean isGeneratedBeans()
+    {
+        return getConfig().isGeneratedBeans();
+    }
+
+    @Override boolean isValueCache()
+    {
+        return getConfig().isValueCache();
+    }
+
     private void storeComment(OptionsHandler formatter, String comment)
     {
         formatter.handleComment(comment);
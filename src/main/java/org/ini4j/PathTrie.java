@@ -0,0 +1,158 @@
+/*
+ * Copyright 2005,2009 Ivan SZKIBA
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ini4j;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Section names of a profile as a tree of path components.
+ *
+ * Every node is one component of a name split at the path separator. Nodes
+ * of names which are keys of the profile are marked, the others only lead
+ * to deeper names. The children of a node are kept in the order their names
+ * were added, so the children of a section are listed in profile order.
+ */
+final class PathTrie
+{
+    private final Node _root = new Node(null, null);
+    private final char _separator;
+
+    PathTrie(char separator, Iterable<String> names)
+    {
+        _separator = separator;
+        for (String name : names)
+        {
+            add(name);
+        }
+    }
+
+    char getSeparator()
+    {
+        return _separator;
+    }
+
+    void add(String name)
+    {
+        Node node = _root;
+        int start = 0;
+
+        for (int end = name.indexOf(_separator); end >= 0; end = name.indexOf(_separator, start))
+        {
+            node = node.child(name.substring(start, end));
+            start = end + 1;
+        }
+
+        node = node.child(name.substring(start));
+        if (!node._key)
+        {
+            node._key = true;
+            node._parent._children.remove(node._name);
+            node._parent._children.put(node._name, node);
+        }
+    }
+
+    /**
+     * Simple names of the keys one level below the name, or the top level
+     * names for null.
+     */
+    List<String> children(String name)
+    {
+        List<String> ret = new ArrayList<String>();
+        Node node = (name == null) ? _root : find(name);
+
+        if ((node != null) && (node._children != null))
+        {
+            for (Node child : node._children.values())
+            {
+                if (child._key && ((node == _root) || (child._name.length() != 0)))
+                {
+                    ret.add(child._name);
+                }
+            }
+        }
+
+        return ret;
+    }
+
+    void remove(String name)
+    {
+        Node node = find(name);
+
+        if (node != null)
+        {
+            node._key = false;
+            while ((node != _root) && !node._key && ((node._children == null) || node._children.isEmpty()))
+            {
+                node._parent._children.remove(node._name);
+                node = node._parent;
+            }
+        }
+    }
+
+    private Node find(String name)
+    {
+        Node node = _root;
+        int start = 0;
+
+        for (int end = name.indexOf(_separator); (node != null) && (end >= 0); end = name.indexOf(_separator, start))
+        {
+            node = node.get(name.substring(start, end));
+            start = end + 1;
+        }
+
+        return (node == null) ? null : node.get(name.substring(start));
+    }
+
+    private static final class Node
+    {
+        private Map<String, Node> _children;
+        private boolean _key;
+        private final String _name;
+        private final Node _parent;
+
+        private Node(Node parent, String name)
+        {
+            _parent = parent;
+            _name = name;
+        }
+
+        private Node child(String name)
+        {
+            Node ret = get(name);
+
+            if (ret == null)
+            {
+                if (_children == null)
+                {
+                    _children = new LinkedHashMap<String, Node>();
+                }
+
+                ret = new Node(this, name);
+                _children.put(name, ret);
+            }
+
+            return ret;
+        }
+
+        private Node get(String name)
+        {
+            return (_children == null) ? null : _children.get(name);
+        }
+    }
+}
@@ -0,0 +1,322 @@
+/*
+ * Copyright 2005,2009 Ivan SZKIBA
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ini4j;
+
+import org.ini4j.spi.BeanTool;
+
+import java.util.List;
+
+/**
+ * Immutable copy of a profile for concurrent readers.
+ *
+ * Sections and options are stored in compact arrays with precomputed
+ * hashes, <code>${...}</code> references are resolved when the snapshot is
+ * taken. Reads (including beans created with <code>as()</code>) do not lock
+ * and never change any state, so a snapshot can be shared by any number of
+ * threads. Every mutator throws {@link UnsupportedOperationException}.
+ *
+ * To change the configuration, edit a mutable copy and publish a new
+ * snapshot, typically through an
+ * {@link java.util.concurrent.atomic.AtomicReference}:
+ *
+ * <pre>
+ * Ini ini = current.get().edit();
+ *
+ * ini.put("section", "option", "value");
+ * current.set(ProfileSnapshot.of(ini, current.get()));
+ * </pre>
+ *
+ * Passing the previous snapshot shares the data of unchanged sections with
+ * it. System properties and environment variables referenced by values are
+ * read once, when the snapshot is taken.
+ */
+public final class ProfileSnapshot extends BasicProfile
+{
+    private static final long serialVersionUID = -2385736106371405946L;
+    private final String _comment;
+    private final String[] _comments;
+    private final Config _config;
+    private final CompactMap<String, Section> _sections;
+
+    private ProfileSnapshot(Config config, CompactMap<String, Section> sections, String comment)
+    {
+        super(config.isTree(), config.isPropertyFirstUpper(), sections);
+        _config = config;
+        _sections = sections;
+        _comment = comment;
+        _comments = new String[sections.size()];
+    }
+
+    /**
+     * Takes a snapshot of the profile. The profile must not be modified
+     * while the snapshot is taken.
+     */
+    public static ProfileSnapshot of(Profile source)
+    {
+        return of(source, null);
+    }
+
+    /**
+     * Takes a snapshot of the profile, sharing the data of the sections
+     * that did not change since the previous snapshot.
+     */
+    public static ProfileSnapshot of(Profile source, ProfileSnapshot previous)
+    {
+        ProfileSnapshot ret = new ProfileSnapshot(newConfig(source), new CompactMap<String, Section>(source.keySet()), source.getComment());
+
+        for (int i = 0; i < ret._sections.size(); i++)
+        {
+            String name = ret._sections.getKey(i);
+            Section[] sections = new Section[source.length(name)];
+
+            for (int j = 0; j < sections.length; j++)
+            {
+                Section old = ((previous == null) || (j >= previous.length(name))) ? null : previous.get(name, j);
+
+                sections[j] = new SnapshotSection(ret, source.get(name, j), (SnapshotSection) old);
+            }
+
+            ret._sections.set(i, sections);
+            ret._comments[i] = source.getComment(name);
+        }
+
+        return ret;
+    }
+
+    @Override public String getComment()
+    {
+        return _comment;
+    }
+
+    @Override public void setComment(String value)
+    {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override public String getComment(Object key)
+    {
+        int idx = _sections.indexOf(key);
+
+        return (idx < 0) ? null : _comments[idx];
+    }
+
+    /**
+     * Mutable copy of the snapshot, with the configuration of the profile
+     * the snapshot was taken of.
+     */
+    public Ini edit()
+    {
+        Ini ret = new Ini();
+
+        ret.setConfig(_config.clone());
+        ret.setComment(_comment);
+        for (int i = 0; i < _sections.size(); i++)
+        {
+            String name = _sections.getKey(i);
+
+            for (Section section : _sections.getValues(i))
+            {
+                Section copy = ret.newSection(name);
+
+                ret.add(name, copy);
+                for (String option : section.keySet())
+                {
+                    copy.putAll(option, section.getAll(option));
+                    if (section.getComment(option) != null)
+                    {
+                        copy.putComment(option, section.getComment(option));
+                    }
+                }
+            }
+
+            if (_comments[i] != null)
+            {
+                ret.putComment(name, _comments[i]);
+            }
+        }
+
+        return ret;
+    }
+
+    @Override public String putComment(String key, String comment)
+    {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override public String removeComment(Object key)
+    {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override boolean isReadOnly()
+    {
+        return true;
+    }
+
+    @Override char getPathSeparator()
+    {
+        return _config.getPathSeparator();
+    }
+
+    @Override boolean isGeneratedBeans()
+    {
+        return _config.isGeneratedBeans();
+    }
+
+    @Override boolean isValueCache()
+    {
+        return _config.isValueCache();
+    }
+
+    @Override Section newSection(String name)
+    {
+        throw new UnsupportedOperationException();
+    }
+
+    private static Config newConfig(Profile source)
+    {
+        Config ret = ((source instanceof Configurable) ? ((Configurable) source).getConfig() : Config.getGlobal()).clone();
+
+        if (source instanceof BasicProfile)
+        {
+            BasicProfile profile = (BasicProfile) source;
+
+            ret.setTree(profile.isTreeMode());
+            ret.setPathSeparator(profile.getPathSeparator());
+            ret.setPropertyFirstUpper(profile.isPropertyFirstUpper());
+        }
+
+        return ret;
+    }
+
+    /**
+     * Section of a snapshot: the options, their comments and the resolved
+     * values of the options which contain references.
+     */
+    private static final class SnapshotSection extends BasicProfileSection
+    {
+        private static final long serialVersionUID = 4032281592906470337L;
+        private final String[] _comments;
+        private final CompactMap<String, String> _options;
+        private final String[][] _resolved;
+
+        private SnapshotSection(ProfileSnapshot profile, Section source, SnapshotSection previous)
+        {
+            this(profile, source, ((previous != null) && previous.isSame(source)) ? previous._options : copy(source));
+        }
+
+        private SnapshotSection(ProfileSnapshot profile, Section source, CompactMap<String, String> options)
+        {
+            super(profile, source.getName(), options);
+            _options = options;
+            _comments = new String[options.size()];
+            _resolved = new String[options.size()][];
+            for (int i = 0; i < options.size(); i++)
+            {
+                String option = options.getKey(i);
+                List<String> values = options.getValues(i);
+
+                _comments[i] = source.getComment(option);
+                for (int j = 0; j < values.size(); j++)
+                {
+                    if (ValueTemplate.isTemplate(values.get(j)))
+                    {
+                        if (_resolved[i] == null)
+                        {
+                            _resolved[i] = values.toArray(new String[values.size()]);
+                        }
+
+                        _resolved[i][j] = source.fetch(option, j);
+                    }
+                }
+            }
+        }
+
+        @Override public String getComment(Object key)
+        {
+            int idx = _options.indexOf(key);
+
+            return (idx < 0) ? null : _comments[idx];
+        }
+
+        @Override public <T> T as(Class<T> clazz)
+        {
+            return isGeneratedBeans() ? BeanTool.getInstance().generate(clazz, newBeanAccess(), true)
+                                      : BeanTool.getInstance().proxy(clazz, newBeanAccess(), true);
+        }
+
+        @Override public <T> T as(Class<T> clazz, String keyPrefix)
+        {
+            return isGeneratedBeans() ? BeanTool.getInstance().generate(clazz, newBeanAccess(keyPrefix), true)
+                                      : BeanTool.getInstance().proxy(clazz, newBeanAccess(keyPrefix), true);
+        }
+
+        @Override public String fetch(Object key, int index)
+        {
+            int idx = _options.indexOf(key);
+            String ret = null;
+
+            if (idx >= 0)
+            {
+                ret = (_resolved[idx] == null) ? _options.getValues(idx).get(index) : _resolved[idx][index];
+            }
+
+            return ret;
+        }
+
+        @Override public String putComment(String key, String comment)
+        {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override public String removeComment(Object key)
+        {
+            throw new UnsupportedOperationException();
+        }
+
+        private static CompactMap<String, String> copy(Section source)
+        {
+            CompactMap<String, String> ret = new CompactMap<String, String>(source.keySet());
+
+            for (int i = 0; i < ret.size(); i++)
+            {
+                ret.set(i, source.getAll(ret.getKey(i)).toArray());
+            }
+
+            return ret;
+        }
+
+        private boolean isSame(Section source)
+        {
+            boolean ret = source.size() == _options.size();
+            int i = 0;
+
+            for (String option : source.keySet())
+            {
+                ret = ret && option.equals(_options.getKey(i)) && source.getAll(option).equals(_options.getValues(i))
+                  && same(source.getComment(option), _comments[i]);
+                i++;
+            }
+
+            return ret;
+        }
+
+        private static boolean same(String a, String b)
+        {
+            return (a == null) ? (b == null) : a.equals(b);
+        }
+    }
+}
@@ -0,0 +1,401 @@
+/*
+ * Copyright 2005,2009 Ivan SZKIBA
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ini4j;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Graph of the <code>${section/option}</code> references of a profile.
+ *
+ * The graph is built in one pass over all option values (see
+ * {@link BasicProfile#getReferenceGraph()}). Its nodes are the values which
+ * contain references or are referenced, the edges point from a value to the
+ * values it references. The graph reflects the references at the time it
+ * was built, {@link #resolve()} reads the current values; get a new graph
+ * after references were added or removed.
+ */
+public class ReferenceGraph
+{
+    private final List<List<Node>> _cycles = new ArrayList<List<Node>>();
+    private final List<List<Integer>> _edges = new ArrayList<List<Integer>>();
+    private final Map<Node, Integer> _ids = new HashMap<Node, Integer>();
+    private final List<Node> _nodes = new ArrayList<Node>();
+    private final List<Node> _order = new ArrayList<Node>();
+    private final BasicProfile _profile;
+    private final Map<Node, List<String>> _unresolved = new LinkedHashMap<Node, List<String>>();
+
+    ReferenceGraph(BasicProfile profile)
+    {
+        _profile = profile;
+        for (String name : profile.keySet())
+        {
+            for (int s = 0; s < profile.length(name); s++)
+            {
+                Profile.Section section = profile.get(name, s);
+
+                for (String option : section.keySet())
+                {
+                    for (int i = 0; i < section.length(option); i++)
+                    {
+                        String value = section.get(option, i);
+
+                        if (ValueTemplate.isTemplate(value))
+                        {
+                            addValue(section, option, i, value);
+                        }
+                    }
+                }
+            }
+        }
+
+        sort();
+    }
+
+    /**
+     * Reference cycles: groups of values which (directly or indirectly)
+     * reference each other, or values which reference themselves. These
+     * references are left unresolved by {@link OptionMap#fetch(Object)}.
+     */
+    public List<List<Node>> getCycles()
+    {
+        return Collections.unmodifiableList(_cycles);
+    }
+
+    /**
+     * All nodes, every value after the values it references (except for
+     * the values of a cycle).
+     */
+    public List<Node> getNodes()
+    {
+        return Collections.unmodifiableList(_order);
+    }
+
+    /**
+     * Values referenced by the value of the node.
+     */
+    public List<Node> getReferences(Node node)
+    {
+        List<Node> ret = new ArrayList<Node>();
+        Integer id = _ids.get(node);
+
+        if (id != null)
+        {
+            for (int target : _edges.get(id))
+            {
+                ret.add(_nodes.get(target));
+            }
+        }
+
+        return ret;
+    }
+
+    /**
+     * References which do not point to an existing value (or to a defined
+     * system property or environment variable), as written, by the value
+     * which contains them.
+     */
+    public Map<Node, List<String>> getUnresolved()
+    {
+        return Collections.unmodifiableMap(_unresolved);
+    }
+
+    /**
+     * Resolves all values in the order of {@link #getNodes()}. Since the
+     * referenced values are resolved (and cached) first, every value is
+     * resolved only once.
+     */
+    public Map<Node, String> resolve()
+    {
+        Map<Node, String> ret = new LinkedHashMap<Node, String>();
+        ValueTemplate.Context context = new ValueTemplate.Context();
+
+        for (Node node : _order)
+        {
+            Profile.Section section = node.getSection();
+            String value = section.get(node.getOption(), node.getIndex());
+
+            if (ValueTemplate.isTemplate(value))
+            {
+                value = (section instanceof BasicOptionMap)
+                    ? ((BasicOptionMap) section).expand(node.getOption(), node.getIndex(), value, context)
+                    : section.fetch(node.getOption(), node.getIndex());
+            }
+
+            ret.put(node, value);
+        }
+
+        return ret;
+    }
+
+    private void addValue(Profile.Section section, String option, int index, String value)
+    {
+        int id = id(new Node(section, option, index));
+        ValueTemplate template = _profile.compile(value);
+
+        for (int i = 0; i < template.size(); i++)
+        {
+            ValueTemplate.Reference reference = template.getReference(i);
+            boolean resolved;
+
+            if (reference.getKind() == ValueTemplate.ENVIRONMENT)
+            {
+                resolved = Config.getEnvironment(reference.getOption()) != null;
+            }
+            else if (reference.getKind() == ValueTemplate.PROPERTY)
+            {
+                resolved = Config.getSystemProperty(reference.getOption()) != null;
+            }
+            else
+            {
+                Node target = target(reference, section);
+
+                resolved = target != null;
+                if (resolved)
+                {
+                    _edges.get(id).add(id(target));
+                }
+            }
+
+            if (!resolved)
+            {
+                List<String> texts = _unresolved.get(_nodes.get(id));
+
+                if (texts == null)
+                {
+                    texts = new ArrayList<String>();
+                    _unresolved.put(_nodes.get(id), texts);
+                }
+
+                texts.add(reference.getText());
+            }
+        }
+    }
+
+    private int id(Node node)
+    {
+        Integer ret = _ids.get(node);
+
+        if (ret == null)
+        {
+            ret = _nodes.size();
+            _ids.put(node, ret);
+            _nodes.add(node);
+            _edges.add(new ArrayList<Integer>());
+        }
+
+        return ret;
+    }
+
+    private void sort()
+    {
+        Tarjan tarjan = new Tarjan(_nodes.size());
+
+        for (int root = 0; root < _nodes.size(); root++)
+        {
+            if (tarjan._index[root] == 0)
+            {
+                tarjan.visit(root);
+            }
+        }
+    }
+
+    private Node target(ValueTemplate.Reference reference, Profile.Section owner)
+    {
+        Node ret = null;
+        Profile.Section section = owner;
+
+        if (reference.getSection() != null)
+        {
+            int length = _profile.length(reference.getSection());
+            int index = (reference.getSectionIndex() == -1) ? (length - 1) : reference.getSectionIndex();
+
+            section = ((index >= 0) && (index < length)) ? _profile.get(reference.getSection(), index) : null;
+        }
+
+        if (section != null)
+        {
+            int length = section.length(reference.getOption());
+            int index = (reference.getOptionIndex() == -1) ? (length - 1) : reference.getOptionIndex();
+
+            if ((index >= 0) && (index < length) && (section.get(reference.getOption(), index) != null))
+            {
+                ret = new Node(section, reference.getOption(), index);
+            }
+        }
+
+        return ret;
+    }
+
+    /**
+     * One value of an option: section, option name and value index.
+     */
+    public static final class Node
+    {
+        private final int _index;
+        private final String _option;
+        private final Profile.Section _section;
+
+        private Node(Profile.Section section, String option, int index)
+        {
+            _section = section;
+            _option = option;
+            _index = index;
+        }
+
+        public int getIndex()
+        {
+            return _index;
+        }
+
+        public String getOption()
+        {
+            return _option;
+        }
+
+        public Profile.Section getSection()
+        {
+            return _section;
+        }
+
+        @Override public boolean equals(Object obj)
+        {
+            boolean ret = false;
+
+            if (obj instanceof Node)
+            {
+                Node other = (Node) obj;
+
+                ret = (_section == other._section) && (_index == other._index) && _option.equals(other._option);
+            }
+
+            return ret;
+        }
+
+        @Override public int hashCode()
+        {
+            return (System.identityHashCode(_section) * 31 + _option.hashCode()) * 31 + _index;
+        }
+
+        @Override public String toString()
+        {
+            return _section.getName() + Profile.PATH_SEPARATOR + _option + '[' + _index + ']';
+        }
+    }
+
+    /**
+     * Strongly connected components (Tarjan), without recursion so long
+     * reference chains do not overflow the stack. A component is completed
+     * after everything it references, which gives the resolution order.
+     */
+    private final class Tarjan
+    {
+        private int _counter;
+        private final int[] _index;
+        private final int[] _low;
+        private final int[] _next;
+        private final boolean[] _onStack;
+        private final int[] _path;
+        private final int[] _stack;
+        private int _top;
+
+        private Tarjan(int size)
+        {
+            _index = new int[size];
+            _low = new int[size];
+            _next = new int[size];
+            _onStack = new boolean[size];
+            _path = new int[size];
+            _stack = new int[size];
+        }
+
+        private void push(int node)
+        {
+            _counter++;
+            _index[node] = _counter;
+            _low[node] = _counter;
+            _stack[_top++] = node;
+            _onStack[node] = true;
+        }
+
+        private void visit(int root)
+        {
+            int depth = 0;
+
+            _path[depth++] = root;
+            push(root);
+            while (depth > 0)
+            {
+                int v = _path[depth - 1];
+                List<Integer> edges = _edges.get(v);
+
+                if (_next[v] < edges.size())
+                {
+                    int w = edges.get(_next[v]++);
+
+                    if (_index[w] == 0)
+                    {
+                        _path[depth++] = w;
+                        push(w);
+                    }
+                    else if (_onStack[w])
+                    {
+                        _low[v] = Math.min(_low[v], _index[w]);
+                    }
+                }
+                else
+                {
+                    depth--;
+                    if (depth > 0)
+                    {
+                        int parent = _path[depth - 1];
+
+                        _low[parent] = Math.min(_low[parent], _low[v]);
+                    }
+
+                    if (_low[v] == _index[v])
+                    {
+                        pop(v);
+                    }
+                }
+            }
+        }
+
+        private void pop(int root)
+        {
+            List<Node> component = new ArrayList<Node>();
+            int w;
+
+            do
+            {
+                w = _stack[--_top];
+                _onStack[w] = false;
+                component.add(_nodes.get(w));
+            }
+            while (w != root);
+            Collections.reverse(component);
+            _order.addAll(component);
+            if ((component.size() > 1) || _edges.get(root).contains(root))
+            {
+                _cycles.add(component);
+            }
+        }
+    }
+}
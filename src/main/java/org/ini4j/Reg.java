@@ -18,6 +18,7 @@ package org.ini4j;
 import org.ini4j.spi.IniFormatter;
 import org.ini4j.spi.IniHandler;
 import org.ini4j.spi.IniParser;
+import org.ini4j.spi.MappedFileReader;
 import org.ini4j.spi.RegBuilder;
 
 import java.io.File;
@@ -175,7 +176,23 @@ public class Reg extends BasicRegistry implements Registry, Persistable, Configu
 
     @Override public void load(File input) throws IOException, InvalidFileFormatException
     {
-        load(input.toURI().toURL());
+        if (MappedFileReader.isMapped(input, getConfig()))
+        {
+            Reader reader = new MappedFileReader(input, getConfig().getFileEncoding(), false);
+
+            try
+            {
+                load(reader);
+            }
+            finally
+            {
+                reader.close();
+            }
+        }
+        else
+        {
+            load(input.toURI().toURL());
+        }
     }
 
     public void read(String registryKey) throws IOException
@@ -259,6 +276,16 @@ public class Reg extends BasicRegistry implements Registry, Persistable, Configu
         return getConfig().isPropertyFirstUpper();
     }
 
+    @Override boolean isGeneratedBeans()
+    {
+        return getConfig().isGeneratedBeans();
+    }
+
+    @Override boolean isValueCache()
+    {
+        return getConfig().isValueCache();
+    }
+
     void exec(String[] args) throws IOException
     {
         Process proc = Runtime.getRuntime().exec(args);
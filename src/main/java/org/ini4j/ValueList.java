@@ -0,0 +1,192 @@
+/*
+ * Copyright 2005,2009 Ivan SZKIBA
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ini4j;
+
+import java.io.Serializable;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.RandomAccess;
+
+/**
+ * Value list of a {@link BasicMultiMap} key.
+ *
+ * Nearly every key has exactly one value, so a single value is kept inline
+ * in the list object; an array is only allocated when a second value is
+ * added, and dropped again when the list shrinks to one value.
+ */
+final class ValueList<V> extends AbstractList<V> implements RandomAccess, Serializable
+{
+    private static final long serialVersionUID = 6230385164729624436L;
+
+    /**
+     * The value while the list has at most one, the value array otherwise.
+     */
+    private Object _data;
+    private int _size;
+
+    ValueList()
+    {
+        super();
+    }
+
+    ValueList(Collection<? extends V> values)
+    {
+        Object[] array = values.toArray();
+
+        _size = array.length;
+        if (_size > 1)
+        {
+            _data = Arrays.copyOf(array, _size, Object[].class);
+        }
+        else if (_size == 1)
+        {
+            _data = array[0];
+        }
+    }
+
+    @Override public void add(int index, V value)
+    {
+        if ((index < 0) || (index > _size))
+        {
+            throw new IndexOutOfBoundsException(String.valueOf(index));
+        }
+
+        if (_size == 0)
+        {
+            _data = value;
+        }
+        else if (_size == 1)
+        {
+            Object[] array = new Object[2];
+
+            array[index] = value;
+            array[1 - index] = _data;
+            _data = array;
+        }
+        else
+        {
+            Object[] array = (Object[]) _data;
+
+            if (_size == array.length)
+            {
+                array = Arrays.copyOf(array, _size + (_size >> 1) + 1);
+                _data = array;
+            }
+
+            System.arraycopy(array, index, array, index + 1, _size - index);
+            array[index] = value;
+        }
+
+        _size++;
+        modCount++;
+    }
+
+    @Override public void clear()
+    {
+        _data = null;
+        _size = 0;
+        modCount++;
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override public V get(int index)
+    {
+        check(index);
+
+        return (V) ((_size == 1) ? _data : ((Object[]) _data)[index]);
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override public V remove(int index)
+    {
+        check(index);
+        Object ret;
+
+        if (_size == 1)
+        {
+            ret = _data;
+            _data = null;
+        }
+        else
+        {
+            Object[] array = (Object[]) _data;
+
+            ret = array[index];
+            if (_size == 2)
+            {
+                _data = array[1 - index];
+            }
+            else
+            {
+                System.arraycopy(array, index + 1, array, index, _size - index - 1);
+                array[_size - 1] = null;
+            }
+        }
+
+        _size--;
+        modCount++;
+
+        return (V) ret;
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override public V set(int index, V value)
+    {
+        check(index);
+        Object ret;
+
+        if (_size == 1)
+        {
+            ret = _data;
+            _data = value;
+        }
+        else
+        {
+            Object[] array = (Object[]) _data;
+
+            ret = array[index];
+            array[index] = value;
+        }
+
+        return (V) ret;
+    }
+
+    @Override public int size()
+    {
+        return _size;
+    }
+
+    /**
+     * Drops the unused capacity of the value array.
+     */
+    void trimToSize()
+    {
+        if ((_size > 1) && (((Object[]) _data).length > _size))
+        {
+            _data = Arrays.copyOf((Object[]) _data, _size);
+        }
+    }
+
+    private void check(int index)
+    {
+        if ((index < 0) || (index >= _size))
+        {
+            throw new IndexOutOfBoundsException(String.valueOf(index));
+        }
+    }
+}
@@ -0,0 +1,494 @@
+/*
+ * Copyright 2005,2009 Ivan SZKIBA
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ini4j;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Option value compiled into literal text and <code>${...}</code> references.
+ *
+ * Values are compiled only once: the resolved value is cached by the option
+ * map together with the template, the options (and system properties) it
+ * looked up and the cached results of the values it references. It is
+ * reused as long as none of them changed, so a chain of references is
+ * resolved once and then only checked.
+ */
+final class ValueTemplate
+{
+    static final int OPTION = 0;
+    static final int ENVIRONMENT = 1;
+    static final int PROPERTY = 2;
+    private static final char SUBST_CHAR = '$';
+    private final String[] _literals;
+    private final Reference[] _references;
+
+    ValueTemplate(String value, List<Reference> references)
+    {
+        int n = references.size();
+        int pos = 0;
+
+        _references = references.toArray(new Reference[n]);
+        _literals = new String[n + 1];
+        for (int i = 0; i < n; i++)
+        {
+            _literals[i] = value.substring(pos, _references[i]._start);
+            pos = _references[i]._end;
+        }
+
+        _literals[n] = value.substring(pos);
+    }
+
+    static boolean isTemplate(String value)
+    {
+        return (value != null) && (value.indexOf(SUBST_CHAR) >= 0);
+    }
+
+    Reference getReference(int index)
+    {
+        return _references[index];
+    }
+
+    /**
+     * Concatenates the literal text and the values of the references.
+     * References without value (null) are kept as they were written.
+     */
+    String expand(String[] values)
+    {
+        String ret;
+
+        if (_references.length == 0)
+        {
+            ret = _literals[0];
+        }
+        else
+        {
+            StringBuilder buff = new StringBuilder();
+
+            for (int i = 0; i < _references.length; i++)
+            {
+                buff.append(_literals[i]);
+                buff.append((values[i] == null) ? _references[i]._text : values[i]);
+            }
+
+            buff.append(_literals[_references.length]);
+            ret = buff.toString();
+        }
+
+        return ret;
+    }
+
+    int size()
+    {
+        return _references.length;
+    }
+
+    /**
+     * State of one (possibly nested) resolution: the options being resolved,
+     * for cycle detection, and the dependencies collected for each of them.
+     */
+    static final class Context
+    {
+        private final Set<Dependency> _active = new HashSet<Dependency>();
+        private Frame _frame = new Frame(null, null);
+        private final Map<Result, Boolean> _checked = new IdentityHashMap<Result, Boolean>();
+
+        void depend(Result result)
+        {
+            _frame._results.add(result);
+        }
+
+        void depend(MultiMap<?, ?> map, Object key, int index, Object value)
+        {
+            _frame._dependencies.add(new Dependency(map, key, index, value));
+        }
+
+        /**
+         * Starts the resolution of an option value. Returns false, and marks
+         * the current resolution as not cacheable, when the value is already
+         * being resolved (reference cycle).
+         */
+        boolean enter(MultiMap<?, ?> map, Object key, int index)
+        {
+            Dependency slot = new Dependency(map, key, index, null);
+            boolean ret = _active.add(slot);
+
+            if (ret)
+            {
+                _frame = new Frame(_frame, slot);
+            }
+            else
+            {
+                _frame._cacheable = false;
+            }
+
+            return ret;
+        }
+
+        /**
+         * Same as {@link Result#isValid(String)}, but every result is
+         * checked only once per context, so resolving many values that share
+         * references stays linear.
+         */
+        boolean isValid(Result result, String raw)
+        {
+            return (raw == result._raw) && result.isValid(_checked, 0);
+        }
+
+        String fetch(OptionMap map, String option, int index)
+        {
+            String ret;
+
+            if (index == -1)
+            {
+                ret = map.get(option);
+            }
+            else
+            {
+                ret = (index < map.length(option)) ? map.get(option, index) : null;
+            }
+
+            depend(map, option, index, ret);
+            if (isTemplate(ret))
+            {
+                if (map instanceof BasicOptionMap)
+                {
+                    ret = ((BasicOptionMap) map).expand(option, (index == -1) ? (map.length(option) - 1) : index, ret, this);
+                }
+                else
+                {
+                    ret = (index == -1) ? map.fetch(option) : map.fetch(option, index);
+                    _frame._cacheable = false;
+                }
+            }
+
+            return ret;
+        }
+
+        /**
+         * Finishes the resolution started with {@link #enter}. The result
+         * becomes a dependency of the enclosing resolution.
+         */
+        Result leave(String raw, ValueTemplate template, String value)
+        {
+            Frame frame = _frame;
+            Result ret = new Result(raw, template, value, frame._dependencies.toArray(new Dependency[frame._dependencies.size()]),
+                    frame._results.toArray(new Result[frame._results.size()]), frame._cacheable);
+
+            _active.remove(frame._slot);
+            _frame = frame._parent;
+            depend(ret);
+            _frame._cacheable &= frame._cacheable;
+            if (frame._cacheable)
+            {
+                _checked.put(ret, Boolean.TRUE);
+            }
+
+            return ret;
+        }
+
+        String property(String name)
+        {
+            String ret = Config.getSystemProperty(name);
+
+            depend(null, name, -1, ret);
+
+            return ret;
+        }
+    }
+
+    static final class Reference
+    {
+        private final int _end;
+        private final int _kind;
+        private final String _option;
+        private final int _optionIndex;
+        private final String _section;
+        private final int _sectionIndex;
+        private final int _start;
+        private final String _text;
+
+        Reference(String value, int start, int end, int kind, String section, int sectionIndex, String option, int optionIndex)
+        {
+            _text = value.substring(start, end);
+            _start = start;
+            _end = end;
+            _kind = kind;
+            _section = section;
+            _sectionIndex = sectionIndex;
+            _option = option;
+            _optionIndex = optionIndex;
+        }
+
+        int getKind()
+        {
+            return _kind;
+        }
+
+        String getOption()
+        {
+            return _option;
+        }
+
+        /**
+         * Index of the option value, -1 for the last one.
+         */
+        int getOptionIndex()
+        {
+            return _optionIndex;
+        }
+
+        /**
+         * Section name, null for the section of the value.
+         */
+        String getSection()
+        {
+            return _section;
+        }
+
+        /**
+         * Index of the section, -1 for the last one.
+         */
+        int getSectionIndex()
+        {
+            return _sectionIndex;
+        }
+
+        /**
+         * The reference as written, <code>${...}</code>.
+         */
+        String getText()
+        {
+            return _text;
+        }
+    }
+
+    /**
+     * Resolved value together with everything it was resolved from.
+     */
+    static final class Result
+    {
+        private static final int MAX_DEPTH = 64;
+        private final boolean _cacheable;
+        private final Dependency[] _dependencies;
+        private final String _raw;
+        private final Result[] _results;
+        private final ValueTemplate _template;
+        private final String _value;
+
+        private Result(String raw, ValueTemplate template, String value, Dependency[] dependencies, Result[] results, boolean cacheable)
+        {
+            _raw = raw;
+            _template = template;
+            _value = value;
+            _dependencies = dependencies;
+            _results = results;
+            _cacheable = cacheable;
+        }
+
+        boolean isCacheable()
+        {
+            return _cacheable;
+        }
+
+        String getRaw()
+        {
+            return _raw;
+        }
+
+        ValueTemplate getTemplate()
+        {
+            return _template;
+        }
+
+        boolean isValid(String raw)
+        {
+            return (raw == _raw) && isValid(null, 0);
+        }
+
+        String getValue()
+        {
+            return _value;
+        }
+
+        /**
+         * The raw values of the referenced options are checked by the
+         * dependencies, so the nested results only check their own.
+         */
+        private boolean isValid(Map<Result, Boolean> checked, int depth)
+        {
+            Boolean known = (checked == null) ? null : checked.get(this);
+            boolean ret;
+
+            if (known == null)
+            {
+                ret = isValidDependencies();
+                for (int i = 0; ret && (i < _results.length); i++)
+                {
+                    ret = (depth < MAX_DEPTH) ? _results[i].isValid(checked, depth + 1) : _results[i].isValidDeep(checked);
+                }
+
+                if (checked != null)
+                {
+                    checked.put(this, ret);
+                }
+            }
+            else
+            {
+                ret = known;
+            }
+
+            return ret;
+        }
+
+        /**
+         * Checks long chains of nested results without recursion.
+         */
+        private boolean isValidDeep(Map<Result, Boolean> checked)
+        {
+            Set<Result> visited = Collections.newSetFromMap(new IdentityHashMap<Result, Boolean>());
+            List<Result> stack = new ArrayList<Result>();
+            boolean ret = true;
+
+            stack.add(this);
+            while (ret && !stack.isEmpty())
+            {
+                Result result = stack.remove(stack.size() - 1);
+                Boolean known = (checked == null) ? null : checked.get(result);
+
+                if (known != null)
+                {
+                    ret = known;
+                }
+                else if (visited.add(result))
+                {
+                    ret = result.isValidDependencies();
+                    stack.addAll(Arrays.asList(result._results));
+                }
+            }
+
+            if (checked != null)
+            {
+                if (ret)
+                {
+                    for (Result result : visited)
+                    {
+                        checked.put(result, Boolean.TRUE);
+                    }
+                }
+                else
+                {
+                    checked.put(this, Boolean.FALSE);
+                }
+            }
+
+            return ret;
+        }
+
+        private boolean isValidDependencies()
+        {
+            boolean ret = true;
+
+            for (int i = 0; ret && (i < _dependencies.length); i++)
+            {
+                ret = _dependencies[i].isValid();
+            }
+
+            return ret;
+        }
+    }
+
+    /**
+     * Value looked up during a resolution: option (or section) of a map, or
+     * a system property when the map is null. Equality ignores the value.
+     */
+    private static final class Dependency
+    {
+        private final int _index;
+        private final Object _key;
+        private final MultiMap<?, ?> _map;
+        private final Object _value;
+
+        private Dependency(MultiMap<?, ?> map, Object key, int index, Object value)
+        {
+            _map = map;
+            _key = key;
+            _index = index;
+            _value = value;
+        }
+
+        private boolean isValid()
+        {
+            Object current;
+
+            if (_map == null)
+            {
+                current = Config.getSystemProperty((String) _key);
+            }
+            else if (_index == -1)
+            {
+                current = _map.get(_key);
+            }
+            else
+            {
+                current = (_index < _map.length(_key)) ? _map.get(_key, _index) : null;
+            }
+
+            return current == _value;
+        }
+
+        @Override public boolean equals(Object obj)
+        {
+            boolean ret = false;
+
+            if (obj instanceof Dependency)
+            {
+                Dependency other = (Dependency) obj;
+
+                ret = (_map == other._map) && (_index == other._index) && _key.equals(other._key);
+            }
+
+            return ret;
+        }
+
+        @Override public int hashCode()
+        {
+            return (System.identityHashCode(_map) * 31 + _key.hashCode()) * 31 + _index;
+        }
+    }
+
+    private static final class Frame
+    {
+        private boolean _cacheable = true;
+        private final Set<Dependency> _dependencies = new LinkedHashSet<Dependency>();
+        private final Frame _parent;
+        private final Set<Result> _results = Collections.newSetFromMap(new IdentityHashMap<Result, Boolean>());
+        private final Dependency _slot;
+
+        private Frame(Frame parent, Dependency slot)
+        {
+            _parent = parent;
+            _slot = slot;
+        }
+    }
+}
@@ -15,7 +15,6 @@
  */
 package org.ini4j.spi;
 
-import java.beans.Introspector;
 import java.beans.PropertyChangeListener;
 import java.beans.PropertyChangeSupport;
 import java.beans.PropertyVetoException;
@@ -28,93 +27,53 @@ import java.lang.reflect.Method;
 
 public abstract class AbstractBeanInvocationHandler implements InvocationHandler
 {
-    private static final String PROPERTY_CHANGE_LISTENER = "PropertyChangeListener";
-    private static final String VETOABLE_CHANGE_LISTENER = "VetoableChangeListener";
-    private static final String ADD_PREFIX = "add";
-    private static final String READ_PREFIX = "get";
-    private static final String REMOVE_PREFIX = "remove";
-    private static final String READ_BOOLEAN_PREFIX = "is";
-    private static final String WRITE_PREFIX = "set";
-    private static final String HAS_PREFIX = "has";
-
-    private static enum Prefix
-    {
-        READ(READ_PREFIX),
-        READ_BOOLEAN(READ_BOOLEAN_PREFIX),
-        WRITE(WRITE_PREFIX),
-        ADD_CHANGE(ADD_PREFIX + PROPERTY_CHANGE_LISTENER),
-        ADD_VETO(ADD_PREFIX + VETOABLE_CHANGE_LISTENER),
-        REMOVE_CHANGE(REMOVE_PREFIX + PROPERTY_CHANGE_LISTENER),
-        REMOVE_VETO(REMOVE_PREFIX + VETOABLE_CHANGE_LISTENER),
-        HAS(HAS_PREFIX);
-        private int _len;
-        private String _value;
-
-        private Prefix(String value)
-        {
-            _value = value;
-            _len = value.length();
-        }
-
-        public static Prefix parse(String str)
-        {
-            Prefix ret = null;
-
-            for (Prefix p : values())
-            {
-                if (str.startsWith(p.getValue()))
-                {
-                    ret = p;
-
-                    break;
-                }
-            }
-
-            return ret;
-        }
-
-        public String getTail(String input)
-        {
-            return Introspector.decapitalize(input.substring(_len));
-        }
+    private PropertyChangeSupport _pcSupport;
+    private volatile Object _proxy;
+    private final boolean _readOnly;
+    private VetoableChangeSupport _vcSupport;
 
-        public String getValue()
-        {
-            return _value;
-        }
+    protected AbstractBeanInvocationHandler()
+    {
+        this(false);
     }
 
-    private PropertyChangeSupport _pcSupport;
-    private Object _proxy;
-    private VetoableChangeSupport _vcSupport;
+    /**
+     * Handler of a bean over immutable data: property reads (and has
+     * checks) do not lock the handler, so any number of threads can read
+     * through the same proxy concurrently.
+     */
+    protected AbstractBeanInvocationHandler(boolean readOnly)
+    {
+        _readOnly = readOnly;
+    }
 
+    /**
+     * Dispatches the call on the bean operation of the method, resolved
+     * once per interface (see {@link BeanModel}).
+     */
     @Override public Object invoke(Object proxy, Method method, Object[] args) throws PropertyVetoException
     {
         Object ret = null;
-        Prefix prefix = Prefix.parse(method.getName());
+        BeanModel.Operation operation = BeanModel.of(method.getDeclaringClass()).get(method);
+        BeanModel.Kind kind = (operation == null) ? null : operation.getKind();
 
-        if (prefix != null)
+        if (kind != null)
         {
-            String tail = prefix.getTail(method.getName());
-
             updateProxy(proxy);
-            switch (prefix)
+            switch (kind)
             {
 
                 case READ:
-                    ret = getProperty(prefix.getTail(method.getName()), method.getReturnType());
-                    break;
-
                 case READ_BOOLEAN:
-                    ret = getProperty(prefix.getTail(method.getName()), method.getReturnType());
+                    ret = getProperty(operation.getProperty(), operation.getType());
                     break;
 
                 case WRITE:
-                    setProperty(tail, args[0], method.getParameterTypes()[0]);
+                    setProperty(operation.getProperty(), args[0], operation.getType());
                     break;
 
                 case HAS:
-                    ret = Boolean.valueOf(hasProperty(prefix.getTail(method.getName())));
+                    ret = Boolean.valueOf(hasProperty(operation.getProperty()));
                     break;
 
                 case ADD_CHANGE:
@@ -147,38 +106,23 @@ public abstract class AbstractBeanInvocationHandler implements InvocationHandler
 
     protected abstract boolean hasPropertySpi(String property);
 
-    protected synchronized Object getProperty(String property, Class<?> clazz)
+    protected Object getProperty(String property, Class<?> clazz)
     {
-        Object o;
+        Object ret;
 
-        try
+        if (_readOnly)
         {
-            o = getPropertySpi(property, clazz);
-            if (o == null)
-            {
-                o = zero(clazz);
-            }
-            else if (clazz.isArray() && (o instanceof String[]) && !clazz.equals(String[].class))
-            {
-                String[] str = (String[]) o;
-
-                o = Array.newInstance(clazz.getComponentType(), str.length);
-                for (int i = 0; i < str.length; i++)
-                {
-                    Array.set(o, i, parse(str[i], clazz.getComponentType()));
-                }
-            }
-            else if ((o instanceof String) && !clazz.equals(String.class))
-            {
-                o = parse((String) o, clazz);
-            }
+            ret = readProperty(property, clazz);
         }
-        catch (Exception x)
+        else
         {
-            o = zero(clazz);
+            synchronized (this)
+            {
+                ret = readProperty(property, clazz);
+            }
         }
 
-        return o;
+        return ret;
     }
 
     protected synchronized void setProperty(String property, Object value, Class<?> clazz) throws PropertyVetoException
@@ -246,17 +190,20 @@ public abstract class AbstractBeanInvocationHandler implements InvocationHandler
         }
     }
 
-    protected synchronized boolean hasProperty(String property)
+    protected boolean hasProperty(String property)
     {
         boolean ret;
 
-        try
+        if (_readOnly)
         {
-            ret = hasPropertySpi(property);
+            ret = readHasProperty(property);
         }
-        catch (Exception x)
+        else
         {
-            ret = false;
+            synchronized (this)
+            {
+                ret = readHasProperty(property);
+            }
         }
 
         return ret;
@@ -288,11 +235,67 @@ public abstract class AbstractBeanInvocationHandler implements InvocationHandler
         return BeanTool.getInstance().zero(clazz);
     }
 
-    private synchronized void updateProxy(Object value)
+    private Object readProperty(String property, Class<?> clazz)
+    {
+        Object o;
+
+        try
+        {
+            o = getPropertySpi(property, clazz);
+            if (o == null)
+            {
+                o = zero(clazz);
+            }
+            else if (clazz.isArray() && (o instanceof String[]) && !clazz.equals(String[].class))
+            {
+                String[] str = (String[]) o;
+
+                o = Array.newInstance(clazz.getComponentType(), str.length);
+                for (int i = 0; i < str.length; i++)
+                {
+                    Array.set(o, i, parse(str[i], clazz.getComponentType()));
+                }
+            }
+            else if ((o instanceof String) && !clazz.equals(String.class))
+            {
+                o = parse((String) o, clazz);
+            }
+        }
+        catch (Exception x)
+        {
+            o = zero(clazz);
+        }
+
+        return o;
+    }
+
+    private boolean readHasProperty(String property)
+    {
+        boolean ret;
+
+        try
+        {
+            ret = hasPropertySpi(property);
+        }
+        catch (Exception x)
+        {
+            ret = false;
+        }
+
+        return ret;
+    }
+
+    void updateProxy(Object value)
     {
         if (_proxy == null)
         {
-            _proxy = value;
+            synchronized (this)
+            {
+                if (_proxy == null)
+                {
+                    _proxy = value;
+                }
+            }
         }
     }
 }
@@ -24,25 +24,44 @@ abstract class AbstractFormatter implements HandlerBase
     private static final char OPERATOR = '=';
     private static final char COMMENT = '#';
     private static final char SPACE = ' ';
+    private char[] _chars = new char[0];
     private Config _config = Config.getGlobal();
     private boolean _header = true;
+    private final StringBuilder _line = new StringBuilder();
     private PrintWriter _output;
 
     @Override public void handleComment(String comment)
     {
         if (getConfig().isComment() && (!_header || getConfig().isHeaderComment()) && (comment != null) && (comment.length() != 0))
         {
-            for (String line : comment.split(getConfig().getLineSeparator()))
+            String separator = getConfig().getLineSeparator();
+            StringBuilder line = newLine();
+            int end = comment.length();
+            int start = 0;
+
+            // trailing empty lines are dropped, as String.split does
+            while ((separator.length() != 0) && (end >= separator.length()) && comment.startsWith(separator, end - separator.length()))
             {
-                getOutput().print(COMMENT);
-                getOutput().print(line);
-                getOutput().print(getConfig().getLineSeparator());
+                end -= separator.length();
+            }
+
+            while (start < end)
+            {
+                int idx = (separator.length() == 0) ? -1 : comment.indexOf(separator, start);
+                int stop = ((idx < 0) || (idx > end)) ? end : idx;
+
+                line.append(COMMENT);
+                line.append(comment, start, stop);
+                line.append(separator);
+                start = stop + separator.length();
             }
 
             if (_header)
             {
-                getOutput().print(getConfig().getLineSeparator());
+                line.append(separator);
             }
+
+            print(line);
         }
 
         _header = false;
@@ -50,22 +69,24 @@ abstract class AbstractFormatter implements HandlerBase
 
     @Override public void handleOption(String optionName, String optionValue)
     {
+        StringBuilder line = newLine();
+
         if (getConfig().isStrictOperator())
         {
             if (getConfig().isEmptyOption() || (optionValue != null))
             {
-                getOutput().print(escapeKey(optionName));
-                getOutput().print(OPERATOR);
+                appendKey(line, optionName);
+                line.append(OPERATOR);
             }
 
             if (optionValue != null)
             {
-                getOutput().print(escapeValue(optionValue));
+                appendValue(line, optionValue);
             }
 
             if (getConfig().isEmptyOption() || (optionValue != null))
             {
-                getOutput().print(getConfig().getLineSeparator());
+                line.append(getConfig().getLineSeparator());
             }
         }
         else
@@ -74,15 +95,16 @@ abstract class AbstractFormatter implements HandlerBase
 
             if (value != null)
             {
-                getOutput().print(escapeKey(optionName));
-                getOutput().print(SPACE);
-                getOutput().print(OPERATOR);
-                getOutput().print(SPACE);
-                getOutput().print(escapeValue(value));
-                getOutput().print(getConfig().getLineSeparator());
+                appendKey(line, optionName);
+                line.append(SPACE);
+                line.append(OPERATOR);
+                line.append(SPACE);
+                appendValue(line, value);
+                line.append(getConfig().getLineSeparator());
             }
         }
 
+        print(line);
         setHeader(false);
     }
 
@@ -111,6 +133,30 @@ abstract class AbstractFormatter implements HandlerBase
         _header = value;
     }
 
+    void appendKey(StringBuilder line, String input)
+    {
+        if (getConfig().isEscape())
+        {
+            EscapeTool.getInstance().escape(line, input);
+        }
+        else
+        {
+            line.append(input);
+        }
+    }
+
+    void appendValue(StringBuilder line, String input)
+    {
+        if (getConfig().isEscape() && !getConfig().isEscapeKeyOnly())
+        {
+            EscapeTool.getInstance().escape(line, input);
+        }
+        else
+        {
+            line.append(input);
+        }
+    }
+
     String escapeKey(String input)
     {
         return getConfig().isEscape() ? EscapeTool.getInstance().escape(input) : input;
@@ -120,4 +166,33 @@ abstract class AbstractFormatter implements HandlerBase
     {
         return getConfig().isEscape() &&  ! getConfig().isEscapeKeyOnly() ? EscapeTool.getInstance().escape(input) : input;
     }
+
+    /**
+     * Reusable buffer of the next output record.
+     */
+    StringBuilder newLine()
+    {
+        _line.setLength(0);
+
+        return _line;
+    }
+
+    /**
+     * Writes the record with a single call to the output.
+     */
+    void print(StringBuilder line)
+    {
+        int len = line.length();
+
+        if (len != 0)
+        {
+            if (_chars.length < len)
+            {
+                _chars = new char[Math.max(len, _chars.length * 2)];
+            }
+
+            line.getChars(0, len, _chars, 0);
+            getOutput().write(_chars, 0, len);
+        }
+    }
 }
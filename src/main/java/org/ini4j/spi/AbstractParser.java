@@ -19,6 +19,7 @@ package org.ini4j.spi;
 import org.ini4j.Config;
 import org.ini4j.InvalidFileFormatException;
 
+import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.Reader;
@@ -31,16 +32,24 @@ import java.util.Locale;
 
 abstract class AbstractParser
 {
+    private static final char ESCAPE_CHAR = '\\';
+    private static final char SPACE = ' ';
+    private static final boolean PLAIN_UNESCAPE = EscapeTool.getInstance().getClass() == EscapeTool.class;
     private final String _comments;
     private Config _config = Config.getGlobal();
-    private final String _operators;
+    private final boolean[] _operatorTable;
 
     protected AbstractParser(String operators, String comments)
     {
-        _operators = operators;
+        _operatorTable = newCharTable(operators);
         _comments = comments;
     }
 
+    String getComments()
+    {
+        return _comments;
+    }
+
     protected Config getConfig()
     {
         return _config;
@@ -82,6 +91,77 @@ abstract class AbstractParser
         return new IniSource(input, handler, _comments, getConfig());
     }
 
+    IniSource newIniSource(Reader input, URL base, HandlerBase handler)
+    {
+        return new IniSource(input, base, handler, _comments, getConfig());
+    }
+
+    IniSource newIniSource(File input, HandlerBase handler) throws IOException
+    {
+        return new IniSource(new MappedFileReader(input, getConfig().getFileEncoding(), true), input.toURI().toURL(), handler, _comments,
+                getConfig());
+    }
+
+    IniScanner newIniScanner(File input, char[] buffer) throws IOException
+    {
+        return new IniScanner(new MappedFileReader(input, getConfig().getFileEncoding(), true), input.toURI().toURL(), buffer, _comments,
+                getConfig());
+    }
+
+    IniScanner newIniScanner(Reader input, URL base, char[] buffer)
+    {
+        return new IniScanner(input, base, buffer, _comments, getConfig());
+    }
+
+    IniScanner newIniScanner(Reader input, char[] buffer)
+    {
+        return new IniScanner(input, buffer, _comments, getConfig());
+    }
+
+    IniScanner newIniScanner(URL input, char[] buffer) throws IOException
+    {
+        return new IniScanner(input, buffer, _comments, getConfig());
+    }
+
+    void parseOptionLine(IniScanner scanner, HandlerBase handler) throws InvalidFileFormatException
+    {
+        char[] line = scanner.getLine();
+        int start = scanner.getLineStart();
+        int end = scanner.getLineEnd();
+        int idx = indexOfOperator(line, start, end);
+        String name = null;
+        String value = null;
+
+        if (idx < 0)
+        {
+            if (getConfig().isEmptyOption())
+            {
+                name = scanner.lineToString();
+            }
+            else
+            {
+                parseError(scanner.lineToString(), scanner.getUrl(), scanner.getLineNumber());
+            }
+        }
+        else
+        {
+            name = unescapeKey(line, start, idx);
+            value = unescapeValue(line, idx + 1, end);
+        }
+
+        if (name.length() == 0)
+        {
+            parseError(scanner.lineToString(), scanner.getUrl(), scanner.getLineNumber());
+        }
+
+        if (getConfig().isLowerCaseOption())
+        {
+            name = name.toLowerCase(Locale.getDefault());
+        }
+
+        handler.handleOption(name, value);
+    }
+
     void parseOptionLine(String line, HandlerBase handler, URL url, int lineNumber) throws InvalidFileFormatException
     {
         int idx = indexOfOperator(line);
@@ -128,32 +208,121 @@ abstract class AbstractParser
         return (getConfig().isEscape() && !getConfig().isEscapeKeyOnly()) ? EscapeTool.getInstance().unescape(line) : line;
     }
 
-    private int indexOfOperator(String line)
+    /**
+     * Same as unescapeKey(new String(chars, start, end - start)).trim(), but
+     * without the intermediate strings when there is nothing to unescape.
+     */
+    String unescapeKey(char[] chars, int start, int end)
+    {
+        return (getConfig().isEscape() && needUnescape(chars, start, end)) ? unescapeKey(new String(chars, start, end - start)).trim()
+                                                                           : trimmed(chars, start, end);
+    }
+
+    /**
+     * Same as unescapeValue(new String(chars, start, end - start)).trim(), but
+     * without the intermediate strings when there is nothing to unescape.
+     */
+    String unescapeValue(char[] chars, int start, int end)
+    {
+        return (getConfig().isEscape() && !getConfig().isEscapeKeyOnly() && needUnescape(chars, start, end))
+          ? unescapeValue(new String(chars, start, end - start)).trim() : trimmed(chars, start, end);
+    }
+
+    int indexOfOperator(char[] chars, int start, int end)
     {
         int idx = -1;
+        boolean escaped = false;
 
-        for (char c : _operators.toCharArray())
+        for (int i = start; i < end; i++)
         {
-            int index = line.indexOf(c);
+            char c = chars[i];
 
-            while ((index >= 0))
+            if (!escaped && isOperator(c))
             {
-                if ((index >= 0) && ((index == 0) || (line.charAt(index - 1) != '\\')) && ((idx == -1) || (index < idx)))
-                {
-                    idx = index;
+                idx = i;
+
+                break;
+            }
+
+            escaped = c == ESCAPE_CHAR;
+        }
+
+        return idx;
+    }
+
+    String trimmed(char[] chars, int start, int end)
+    {
+        int s = start;
+        int e = end;
+
+        while ((s < e) && (chars[s] <= SPACE))
+        {
+            s++;
+        }
+
+        while ((e > s) && (chars[e - 1] <= SPACE))
+        {
+            e--;
+        }
+
+        return new String(chars, s, e - s);
+    }
+
+    boolean needUnescape(char[] chars, int start, int end)
+    {
+        boolean ret = !PLAIN_UNESCAPE;
 
-                    break;
-                }
+        for (int i = start; !ret && (i < end); i++)
+        {
+            ret = chars[i] == ESCAPE_CHAR;
+        }
+
+        return ret;
+    }
+
+    int indexOfOperator(String line)
+    {
+        int idx = -1;
+        boolean escaped = false;
 
-                index = (index == (line.length() - 1)) ? -1 : line.indexOf(c, index + 1);
+        for (int i = 0; i < line.length(); i++)
+        {
+            char c = line.charAt(i);
+
+            if (!escaped && isOperator(c))
+            {
+                idx = i;
+
+                break;
             }
 
-            //if ((index >= 0) && ((index == 0) || (line.charAt(index - 1) != '\\')) && ((idx == -1) || (index < idx)))
-            // {
-            //     idx = index;
-            // }
+            escaped = c == ESCAPE_CHAR;
         }
 
         return idx;
     }
+
+    private static boolean[] newCharTable(String chars)
+    {
+        int size = 0;
+
+        for (int i = 0; i < chars.length(); i++)
+        {
+            size = Math.max(size, chars.charAt(i) + 1);
+        }
+
+        boolean[] table = new boolean[size];
+
+        for (int i = 0; i < chars.length(); i++)
+        {
+            table[chars.charAt(i)] = true;
+        }
+
+        return table;
+    }
+
+    private boolean isOperator(char c)
+    {
+        return (c < _operatorTable.length) && _operatorTable[c];
+    }
 }
@@ -15,6 +15,7 @@
  */
 package org.ini4j.spi;
 
+import org.ini4j.BasicMultiMap;
 import org.ini4j.CommentedMap;
 import org.ini4j.Config;
 import org.ini4j.Ini;
@@ -25,6 +26,7 @@ abstract class AbstractProfileBuilder implements IniHandler
     private Profile.Section _currentSection;
     private boolean _header;
     private String _lastComment;
+    private StringPool _pool;
 
     @Override public void endIni()
     {
@@ -34,10 +36,14 @@ abstract class AbstractProfileBuilder implements IniHandler
         {
             setHeaderComment();
         }
+
+        trim(getProfile());
+        _pool = null;
     }
 
     @Override public void endSection()
     {
+        trim(_currentSection);
         _currentSection = null;
     }
 
@@ -52,8 +58,17 @@ abstract class AbstractProfileBuilder implements IniHandler
         _lastComment = comment;
     }
 
-    @Override public void handleOption(String name, String value)
+    @Override public void handleOption(String option, String optionValue)
     {
+        String name = option;
+        String value = optionValue;
+
+        if (_pool != null)
+        {
+            name = _pool.intern(option);
+            value = _pool.internValue(optionValue);
+        }
+
         _header = false;
         if (getConfig().isMultiOption())
         {
@@ -77,10 +92,14 @@ abstract class AbstractProfileBuilder implements IniHandler
         {
             _header = true;
         }
+
+        _pool = (getConfig().getStringPoolSize() > 0) ? new StringPool(getConfig().getStringPoolSize()) : null;
     }
 
-    @Override public void startSection(String sectionName)
+    @Override public void startSection(String name)
     {
+        String sectionName = (_pool == null) ? name : _pool.intern(name);
+
         if (getConfig().isMultiSection())
         {
             _currentSection = getProfile().add(sectionName);
@@ -109,6 +128,14 @@ abstract class AbstractProfileBuilder implements IniHandler
         _header = false;
     }
 
+    private static void trim(Object map)
+    {
+        if (map instanceof BasicMultiMap)
+        {
+            ((BasicMultiMap) map).trimToSize();
+        }
+    }
+
     abstract Config getConfig();
 
     abstract Profile getProfile();
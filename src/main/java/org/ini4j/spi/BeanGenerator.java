@@ -0,0 +1,554 @@
+/*
+ * Copyright 2005,2009 Ivan SZKIBA
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ini4j.spi;
+
+import java.beans.PropertyChangeListener;
+import java.beans.PropertyVetoException;
+import java.beans.VetoableChangeListener;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Generates a {@link GeneratedBean} subclass implementing a bean interface.
+ *
+ * Classes are generated for public interfaces whose abstract methods are
+ * all bean methods the generated code can express (getters, setters, has
+ * methods and listener registration) over public types; for any other
+ * interface no class is generated and the caller falls back to a proxy.
+ * The class is defined in its own class loader, a child of the loader of
+ * the interface, and its constructor is cached per interface.
+ */
+final class BeanGenerator
+{
+    private static final String PACKAGE = "org/ini4j/spi/generated/";
+    private static final String BASE = GeneratedBean.class.getName().replace('.', '/');
+    private static final String OBJECT = "java/lang/Object";
+    private static final String CONSTRUCTOR = "<init>";
+    private static final String CODE = "Code";
+    private static final int MAGIC = 0xcafebabe;
+    private static final int VERSION = 50;
+    private static final int ACC_PUBLIC = 0x0001;
+    private static final int ACC_FINAL_SUPER = 0x0030;
+    private static final int CONSTANT_UTF8 = 1;
+    private static final int CONSTANT_CLASS = 7;
+    private static final int CONSTANT_METHODREF = 10;
+    private static final int CONSTANT_NAME_AND_TYPE = 12;
+    private static final int ALOAD_0 = 0x2a;
+    private static final int ALOAD_1 = 0x2b;
+    private static final int ALOAD_2 = 0x2c;
+    private static final int SIPUSH = 0x11;
+    private static final int ILOAD = 0x15;
+    private static final int LLOAD = 0x16;
+    private static final int FLOAD = 0x17;
+    private static final int DLOAD = 0x18;
+    private static final int ALOAD = 0x19;
+    private static final int IRETURN = 0xac;
+    private static final int LRETURN = 0xad;
+    private static final int FRETURN = 0xae;
+    private static final int DRETURN = 0xaf;
+    private static final int ARETURN = 0xb0;
+    private static final int RETURN = 0xb1;
+    private static final int POP = 0x57;
+    private static final int INVOKEVIRTUAL = 0xb6;
+    private static final int INVOKESPECIAL = 0xb7;
+    private static final int INVOKESTATIC = 0xb8;
+    private static final int CHECKCAST = 0xc0;
+    private static final int MAX_STACK = 4;
+    private static final int MAX_OPERATIONS = Short.MAX_VALUE;
+    private static final AtomicInteger COUNTER = new AtomicInteger();
+    private static final ClassValue<Constructor<?>> CONSTRUCTORS = new ClassValue<Constructor<?>>()
+        {
+            @Override protected Constructor<?> computeValue(Class<?> type)
+            {
+                return isSupported(type) ? generate(type) : null;
+            }
+        };
+    private final ByteArrayOutputStream _code = new ByteArrayOutputStream();
+    private final ByteArrayOutputStream _constants = new ByteArrayOutputStream();
+    private final Map<String, Integer> _index = new HashMap<String, Integer>();
+    private final ByteArrayOutputStream _methods = new ByteArrayOutputStream();
+    private int _next = 1;
+
+    private BeanGenerator()
+    {
+        super();
+    }
+
+    /**
+     * Constructor (taking the invocation handler) of the class generated
+     * for the interface, or null if the interface is not supported.
+     */
+    static Constructor<?> getConstructor(Class<?> clazz)
+    {
+        return CONSTRUCTORS.get(clazz);
+    }
+
+    private static Constructor<?> generate(Class<?> clazz)
+    {
+        String name = PACKAGE + clazz.getSimpleName() + "$Bean" + COUNTER.incrementAndGet();
+        byte[] code;
+
+        try
+        {
+            code = new BeanGenerator().write(name, clazz);
+        }
+        catch (IOException x)
+        {
+            throw new IllegalStateException(x);
+        }
+
+        Class<?> generated = new Loader(clazz.getClassLoader()).define(name.replace('/', '.'), code);
+
+        try
+        {
+            return generated.getConstructor(AbstractBeanInvocationHandler.class);
+        }
+        catch (NoSuchMethodException x)
+        {
+            throw new IllegalStateException(x);
+        }
+    }
+
+    private static boolean isSupported(Class<?> clazz)
+    {
+        BeanModel model = BeanModel.of(clazz);
+        boolean ret = clazz.isInterface() && Modifier.isPublic(clazz.getModifiers()) && (model.size() <= MAX_OPERATIONS);
+
+        for (int i = 0; ret && (i < model.size()); i++)
+        {
+            BeanModel.Operation operation = model.get(i);
+            Method method = operation.getMethod();
+
+            ret = !Modifier.isAbstract(method.getModifiers()) || (isSupported(operation) && isPublic(method) && !isReserved(method));
+        }
+
+        return ret;
+    }
+
+    private static boolean isSupported(BeanModel.Operation operation)
+    {
+        Method method = operation.getMethod();
+        Class<?>[] params = method.getParameterTypes();
+        boolean ret;
+
+        if (operation.getKind() == null)
+        {
+            ret = false;
+        }
+        else
+        {
+            switch (operation.getKind())
+            {
+
+                case READ:
+                case READ_BOOLEAN:
+                    ret = true;
+                    break;
+
+                case HAS:
+                    ret = method.getReturnType() == Boolean.TYPE;
+                    break;
+
+                case WRITE:
+                    ret = (params.length == 1) && (method.getReturnType() == Void.TYPE);
+                    break;
+
+                case ADD_CHANGE:
+                case REMOVE_CHANGE:
+                    ret = isListener(method, PropertyChangeListener.class);
+                    break;
+
+                default:
+                    ret = isListener(method, VetoableChangeListener.class);
+                    break;
+            }
+        }
+
+        return ret;
+    }
+
+    private static boolean isListener(Method method, Class<?> listener)
+    {
+        Class<?>[] params = method.getParameterTypes();
+
+        return (params.length == 2) && (params[0] == String.class) && (params[1] == listener) && (method.getReturnType() == Void.TYPE);
+    }
+
+    private static boolean isVetoDeclared(Method method)
+    {
+        boolean ret = false;
+
+        for (Class<?> type : method.getExceptionTypes())
+        {
+            ret = ret || type.isAssignableFrom(PropertyVetoException.class);
+        }
+
+        return ret;
+    }
+
+    private static boolean isPublic(Method method)
+    {
+        boolean ret = isPublic(method.getReturnType());
+
+        for (Class<?> type : method.getParameterTypes())
+        {
+            ret = ret && isPublic(type);
+        }
+
+        return ret;
+    }
+
+    private static boolean isPublic(Class<?> type)
+    {
+        Class<?> c = type;
+
+        while (c.isArray())
+        {
+            c = c.getComponentType();
+        }
+
+        return c.isPrimitive() || Modifier.isPublic(c.getModifiers());
+    }
+
+    /**
+     * Methods which would override the methods of the base class.
+     */
+    private static boolean isReserved(Method method)
+    {
+        boolean ret;
+
+        try
+        {
+            GeneratedBean.class.getDeclaredMethod(method.getName(), method.getParameterTypes());
+            ret = true;
+        }
+        catch (NoSuchMethodException x)
+        {
+            ret = false;
+        }
+
+        return ret;
+    }
+
+    private int classRef(String name) throws IOException
+    {
+        int utf = utf8(name);
+
+        return constant("C" + name, CONSTANT_CLASS, utf, -1);
+    }
+
+    private int constant(String key, int tag, int first, int second) throws IOException
+    {
+        Integer ret = _index.get(key);
+
+        if (ret == null)
+        {
+            DataOutputStream out = new DataOutputStream(_constants);
+
+            out.writeByte(tag);
+            out.writeShort(first);
+            if (second >= 0)
+            {
+                out.writeShort(second);
+            }
+
+            ret = _next++;
+            _index.put(key, ret);
+        }
+
+        return ret;
+    }
+
+    private void invoke(int opcode, String owner, String name, String descriptor) throws IOException
+    {
+        int ownerRef = classRef(owner);
+        int nameRef = utf8(name);
+        int descriptorRef = utf8(descriptor);
+        int nameAndType = constant("T" + name + ' ' + descriptor, CONSTANT_NAME_AND_TYPE, nameRef, descriptorRef);
+
+        op(opcode);
+        u2(constant("M" + owner + '.' + name + descriptor, CONSTANT_METHODREF, ownerRef, nameAndType));
+    }
+
+    private void method(String name, String descriptor, int locals) throws IOException
+    {
+        DataOutputStream out = new DataOutputStream(_methods);
+        byte[] code = _code.toByteArray();
+
+        out.writeShort(ACC_PUBLIC);
+        out.writeShort(utf8(name));
+        out.writeShort(utf8(descriptor));
+        out.writeShort(1);
+        out.writeShort(utf8(CODE));
+        out.writeInt(code.length + 12);
+        out.writeShort(MAX_STACK);
+        out.writeShort(locals);
+        out.writeInt(code.length);
+        out.write(code);
+        out.writeShort(0);
+        out.writeShort(0);
+        _code.reset();
+    }
+
+    private void op(int opcode)
+    {
+        _code.write(opcode);
+    }
+
+    private void operation(int index, BeanModel.Operation operation) throws IOException
+    {
+        Method method = operation.getMethod();
+        int locals = 1;
+
+        for (Class<?> type : method.getParameterTypes())
+        {
+            locals += ((type == Long.TYPE) || (type == Double.TYPE)) ? 2 : 1;
+        }
+
+        op(ALOAD_0);
+        op(SIPUSH);
+        u2(index);
+        switch (operation.getKind())
+        {
+
+            case READ:
+            case READ_BOOLEAN:
+                invoke(INVOKEVIRTUAL, BASE, "getProperty", "(I)Ljava/lang/Object;");
+                unbox(method.getReturnType());
+                break;
+
+            case HAS:
+                invoke(INVOKEVIRTUAL, BASE, "hasProperty", "(I)Z");
+                op(IRETURN);
+                break;
+
+            case WRITE:
+                load(method.getParameterTypes()[0], 1);
+                invoke(INVOKEVIRTUAL, BASE, isVetoDeclared(method) ? "setProperty" : "setUndeclared", "(ILjava/lang/Object;)V");
+                op(RETURN);
+                break;
+
+            default:
+                op(ALOAD_1);
+                op(ALOAD_2);
+                invoke(INVOKEVIRTUAL, BASE, "listener", "(ILjava/lang/String;Ljava/lang/Object;)V");
+                op(RETURN);
+                break;
+        }
+
+        method(method.getName(), BeanModel.descriptor(method), locals);
+    }
+
+    /**
+     * Loads the argument, boxing primitive values.
+     */
+    private void load(Class<?> type, int slot) throws IOException
+    {
+        BeanModel.Primitive primitive = type.isPrimitive() ? BeanModel.Primitive.of(type) : null;
+
+        if (primitive == null)
+        {
+            op(ALOAD);
+        }
+        else if (type == Long.TYPE)
+        {
+            op(LLOAD);
+        }
+        else if (type == Float.TYPE)
+        {
+            op(FLOAD);
+        }
+        else if (type == Double.TYPE)
+        {
+            op(DLOAD);
+        }
+        else
+        {
+            op(ILOAD);
+        }
+
+        _code.write(slot);
+        if (primitive != null)
+        {
+            String wrapper = primitive.getWrapper().getName().replace('.', '/');
+
+            invoke(INVOKESTATIC, wrapper, "valueOf", "(" + primitive.getDescriptor() + ")L" + wrapper + ';');
+        }
+    }
+
+    private void u2(int value)
+    {
+        _code.write((value >> 8) & 0xff);
+        _code.write(value & 0xff);
+    }
+
+    /**
+     * Converts the property value on the stack to the return type and
+     * returns it.
+     */
+    private void unbox(Class<?> type) throws IOException
+    {
+        if (type == Void.TYPE)
+        {
+            op(POP);
+            op(RETURN);
+        }
+        else if (type.isPrimitive())
+        {
+            BeanModel.Primitive primitive = BeanModel.Primitive.of(type);
+            String wrapper = primitive.getWrapper().getName().replace('.', '/');
+
+            op(CHECKCAST);
+            u2(classRef(wrapper));
+            invoke(INVOKEVIRTUAL, wrapper, primitive.getUnbox(), "()" + primitive.getDescriptor());
+            if (type == Long.TYPE)
+            {
+                op(LRETURN);
+            }
+            else if (type == Float.TYPE)
+            {
+                op(FRETURN);
+            }
+            else if (type == Double.TYPE)
+            {
+                op(DRETURN);
+            }
+            else
+            {
+                op(IRETURN);
+            }
+        }
+        else
+        {
+            if (type != Object.class)
+            {
+                op(CHECKCAST);
+                u2(classRef(type.isArray() ? BeanModel.descriptor(type) : type.getName().replace('.', '/')));
+            }
+
+            op(ARETURN);
+        }
+    }
+
+    private int utf8(String value) throws IOException
+    {
+        String key = "U" + value;
+        Integer ret = _index.get(key);
+
+        if (ret == null)
+        {
+            DataOutputStream out = new DataOutputStream(_constants);
+
+            out.writeByte(CONSTANT_UTF8);
+            out.writeUTF(value);
+            ret = _next++;
+            _index.put(key, ret);
+        }
+
+        return ret;
+    }
+
+    private byte[] write(String name, Class<?> clazz) throws IOException
+    {
+        BeanModel model = BeanModel.of(clazz);
+        int count = 1;
+        ByteArrayOutputStream ret = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(ret);
+        int thisRef = classRef(name);
+        int superRef = classRef(BASE);
+        int interfaceRef = classRef(clazz.getName().replace('.', '/'));
+        String constructor = "(L" + AbstractBeanInvocationHandler.class.getName().replace('.', '/') + ";)V";
+
+        op(ALOAD_0);
+        op(ALOAD_1);
+        invoke(INVOKESPECIAL, BASE, CONSTRUCTOR, constructor);
+        op(RETURN);
+        method(CONSTRUCTOR, constructor, 2);
+        for (int i = 0; i < model.size(); i++)
+        {
+            if (Modifier.isAbstract(model.get(i).getMethod().getModifiers()))
+            {
+                operation(i, model.get(i));
+                count++;
+            }
+        }
+
+        out.writeInt(MAGIC);
+        out.writeShort(0);
+        out.writeShort(VERSION);
+        out.writeShort(_next);
+        _constants.writeTo(out);
+        out.writeShort(ACC_PUBLIC | ACC_FINAL_SUPER);
+        out.writeShort(thisRef);
+        out.writeShort(superRef);
+        out.writeShort(1);
+        out.writeShort(interfaceRef);
+        out.writeShort(0);
+        out.writeShort(count);
+        _methods.writeTo(out);
+        out.writeShort(0);
+
+        return ret.toByteArray();
+    }
+
+    /**
+     * Class loader of a generated class: the base classes come from the
+     * loader of this library, everything else from the loader of the
+     * interface.
+     */
+    private static final class Loader extends ClassLoader
+    {
+        private Loader(ClassLoader parent)
+        {
+            super(parent);
+        }
+
+        @Override protected Class<?> loadClass(String name, boolean resolve) throws ClassNotFoundException
+        {
+            Class<?> ret;
+
+            if (name.equals(GeneratedBean.class.getName()))
+            {
+                ret = GeneratedBean.class;
+            }
+            else if (name.equals(AbstractBeanInvocationHandler.class.getName()))
+            {
+                ret = AbstractBeanInvocationHandler.class;
+            }
+            else
+            {
+                ret = super.loadClass(name, resolve);
+            }
+
+            return ret;
+        }
+
+        private Class<?> define(String name, byte[] code)
+        {
+            return defineClass(name, code, 0, code.length);
+        }
+    }
+}
@@ -0,0 +1,263 @@
+/*
+ * Copyright 2005,2009 Ivan SZKIBA
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ini4j.spi;
+
+import java.beans.Introspector;
+
+import java.lang.reflect.Method;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Bean operations of the methods of an interface, resolved once per
+ * interface, by index (for generated beans) and by method (for proxies).
+ */
+final class BeanModel
+{
+    private static final String PROPERTY_CHANGE_LISTENER = "PropertyChangeListener";
+    private static final String VETOABLE_CHANGE_LISTENER = "VetoableChangeListener";
+    private static final String ADD_PREFIX = "add";
+    private static final String READ_PREFIX = "get";
+    private static final String REMOVE_PREFIX = "remove";
+    private static final String READ_BOOLEAN_PREFIX = "is";
+    private static final String WRITE_PREFIX = "set";
+    private static final String HAS_PREFIX = "has";
+    private static final ClassValue<BeanModel> MODELS = new ClassValue<BeanModel>()
+        {
+            @Override protected BeanModel computeValue(Class<?> type)
+            {
+                return new BeanModel(type);
+            }
+        };
+    private final Map<Method, Operation> _methods = new HashMap<Method, Operation>();
+    private final Operation[] _operations;
+
+    private BeanModel(Class<?> clazz)
+    {
+        Map<String, Operation> operations = new LinkedHashMap<String, Operation>();
+
+        for (Method method : clazz.getMethods())
+        {
+            String signature = method.getName() + descriptor(method);
+
+            Operation operation = operations.get(signature);
+
+            if (operation == null)
+            {
+                operation = new Operation(method);
+                operations.put(signature, operation);
+            }
+
+            _methods.put(method, operation);
+        }
+
+        _operations = operations.values().toArray(new Operation[operations.size()]);
+    }
+
+    static BeanModel of(Class<?> clazz)
+    {
+        return MODELS.get(clazz);
+    }
+
+    static String descriptor(Method method)
+    {
+        StringBuilder ret = new StringBuilder();
+
+        ret.append('(');
+        for (Class<?> type : method.getParameterTypes())
+        {
+            ret.append(descriptor(type));
+        }
+
+        ret.append(')');
+        ret.append(descriptor(method.getReturnType()));
+
+        return ret.toString();
+    }
+
+    static String descriptor(Class<?> type)
+    {
+        String ret;
+
+        if (type.isPrimitive())
+        {
+            ret = String.valueOf(Primitive.of(type).getDescriptor());
+        }
+        else if (type.isArray())
+        {
+            ret = type.getName().replace('.', '/');
+        }
+        else
+        {
+            ret = 'L' + type.getName().replace('.', '/') + ';';
+        }
+
+        return ret;
+    }
+
+    /**
+     * Operation of a method of the interface (or of one of its super
+     * interfaces), or null for other methods.
+     */
+    Operation get(Method method)
+    {
+        return _methods.get(method);
+    }
+
+    Operation get(int index)
+    {
+        return _operations[index];
+    }
+
+    int size()
+    {
+        return _operations.length;
+    }
+
+    enum Kind
+    {
+        READ(READ_PREFIX),
+        READ_BOOLEAN(READ_BOOLEAN_PREFIX),
+        WRITE(WRITE_PREFIX),
+        ADD_CHANGE(ADD_PREFIX + PROPERTY_CHANGE_LISTENER),
+        ADD_VETO(ADD_PREFIX + VETOABLE_CHANGE_LISTENER),
+        REMOVE_CHANGE(REMOVE_PREFIX + PROPERTY_CHANGE_LISTENER),
+        REMOVE_VETO(REMOVE_PREFIX + VETOABLE_CHANGE_LISTENER),
+        HAS(HAS_PREFIX);
+        private final String _prefix;
+
+        private Kind(String prefix)
+        {
+            _prefix = prefix;
+        }
+
+        private static Kind parse(String name)
+        {
+            Kind ret = null;
+
+            for (Kind kind : values())
+            {
+                if ((ret == null) && name.startsWith(kind._prefix))
+                {
+                    ret = kind;
+                }
+            }
+
+            return ret;
+        }
+    }
+
+    /**
+     * Primitive types with their descriptor, wrapper and unboxing method.
+     */
+    enum Primitive
+    {
+        BOOLEAN(Boolean.TYPE, Boolean.class, 'Z', "booleanValue"),
+        BYTE(Byte.TYPE, Byte.class, 'B', "byteValue"),
+        CHAR(Character.TYPE, Character.class, 'C', "charValue"),
+        SHORT(Short.TYPE, Short.class, 'S', "shortValue"),
+        INT(Integer.TYPE, Integer.class, 'I', "intValue"),
+        LONG(Long.TYPE, Long.class, 'J', "longValue"),
+        FLOAT(Float.TYPE, Float.class, 'F', "floatValue"),
+        DOUBLE(Double.TYPE, Double.class, 'D', "doubleValue"),
+        VOID(Void.TYPE, Void.class, 'V', null);
+        private final char _descriptor;
+        private final Class<?> _type;
+        private final String _unbox;
+        private final Class<?> _wrapper;
+
+        private Primitive(Class<?> type, Class<?> wrapper, char descriptor, String unbox)
+        {
+            _type = type;
+            _wrapper = wrapper;
+            _descriptor = descriptor;
+            _unbox = unbox;
+        }
+
+        static Primitive of(Class<?> type)
+        {
+            Primitive ret = null;
+
+            for (Primitive primitive : values())
+            {
+                if (primitive._type == type)
+                {
+                    ret = primitive;
+                }
+            }
+
+            return ret;
+        }
+
+        char getDescriptor()
+        {
+            return _descriptor;
+        }
+
+        String getUnbox()
+        {
+            return _unbox;
+        }
+
+        Class<?> getWrapper()
+        {
+            return _wrapper;
+        }
+    }
+
+    /**
+     * Bean operation of a method: its kind (null for methods which are not
+     * bean methods), the property name and the property type.
+     */
+    static final class Operation
+    {
+        private final Kind _kind;
+        private final Method _method;
+        private final String _property;
+        private final Class<?> _type;
+
+        private Operation(Method method)
+        {
+            _method = method;
+            _kind = Kind.parse(method.getName());
+            _property = (_kind == null) ? null : Introspector.decapitalize(method.getName().substring(_kind._prefix.length()));
+            _type = ((_kind == Kind.WRITE) && (method.getParameterTypes().length != 0)) ? method.getParameterTypes()[0]
+                                                                                          : method.getReturnType();
+        }
+
+        Kind getKind()
+        {
+            return _kind;
+        }
+
+        Method getMethod()
+        {
+            return _method;
+        }
+
+        String getProperty()
+        {
+            return _property;
+        }
+
+        Class<?> getType()
+        {
+            return _type;
+        }
+    }
+}
@@ -21,19 +21,72 @@ import java.beans.PropertyDescriptor;
 
 import java.io.File;
 
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
 import java.lang.reflect.Array;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
 import java.lang.reflect.Proxy;
 
+import java.math.BigDecimal;
+import java.math.BigInteger;
+
+import java.net.InetAddress;
 import java.net.URI;
 import java.net.URL;
 
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+import java.util.ArrayList;
+import java.util.List;
 import java.util.TimeZone;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 public class BeanTool
 {
     private static final String PARSE_METHOD = "valueOf";
     private static final BeanTool INSTANCE = ServiceFinder.findService(BeanTool.class);
+    private static final ClassValue<Property[]> PROPERTIES = new ClassValue<Property[]>()
+        {
+            @Override protected Property[] computeValue(Class<?> type)
+            {
+                return Property.of(type);
+            }
+        };
+    private static final ClassValue<Method> PARSERS = new ClassValue<Method>()
+        {
+            @Override protected Method computeValue(Class<?> type)
+            {
+                Method ret;
+
+                try
+                {
+                    ret = type.getMethod(PARSE_METHOD, new Class[] { String.class });
+                }
+                catch (NoSuchMethodException x)
+                {
+                    ret = null;
+                }
+
+                return ret;
+            }
+        };
+    private final ConcurrentMap<Class<?>, ValueConverter<?>> _converters = new ConcurrentHashMap<Class<?>, ValueConverter<?>>();
+
+    public BeanTool()
+    {
+        for (Builtin builtin : Builtin.values())
+        {
+            for (Class<?> type : builtin._types)
+            {
+                _converters.put(type, builtin);
+            }
+        }
+    }
 
     public static final BeanTool getInstance()
     {
@@ -42,36 +95,40 @@ public class BeanTool
 
     public void inject(Object bean, BeanAccess props)
     {
-        for (PropertyDescriptor pd : getPropertyDescriptors(bean.getClass()))
+        for (Property property : PROPERTIES.get(bean.getClass()))
         {
             try
             {
-                Method method = pd.getWriteMethod();
-                String name = pd.getName();
+                Class<?> type = property.getType();
+                String name = property.getName();
 
-                if ((method != null) && (props.propLength(name) != 0))
+                if (property.isWritable() && (props.propLength(name) != 0))
                 {
                     Object value;
 
-                    if (pd.getPropertyType().isArray())
+                    if (type.isArray())
                     {
-                        value = Array.newInstance(pd.getPropertyType().getComponentType(), props.propLength(name));
+                        value = Array.newInstance(type.getComponentType(), props.propLength(name));
                         for (int i = 0; i < props.propLength(name); i++)
                         {
-                            Array.set(value, i, parse(props.propGet(name, i), pd.getPropertyType().getComponentType()));
+                            Array.set(value, i, parse(props.propGet(name, i), type.getComponentType()));
                         }
                     }
                     else
                     {
-                        value = parse(props.propGet(name), pd.getPropertyType());
+                        value = parse(props.propGet(name), type);
                     }
 
-                    method.invoke(bean, value);
+                    property.set(bean, value);
                 }
             }
-            catch (Exception x)
+            catch (Error x)
             {
-                throw (IllegalArgumentException) (new IllegalArgumentException("Failed to set property: " + pd.getDisplayName()).initCause(
+                throw x;
+            }
+            catch (Throwable x)
+            {
+                throw (IllegalArgumentException) (new IllegalArgumentException("Failed to set property: " + property.getDisplayName()).initCause(
                         x));
             }
         }
@@ -79,19 +136,17 @@ public class BeanTool
 
     public void inject(BeanAccess props, Object bean)
     {
-        for (PropertyDescriptor pd : getPropertyDescriptors(bean.getClass()))
+        for (Property property : PROPERTIES.get(bean.getClass()))
         {
             try
             {
-                Method method = pd.getReadMethod();
-
-                if ((method != null) && !"class".equals(pd.getName()))
+                if (property.isReadable())
                 {
-                    Object value = method.invoke(bean, (Object[]) null);
+                    Object value = property.get(bean);
 
                     if (value != null)
                     {
-                        if (pd.getPropertyType().isArray())
+                        if (property.getType().isArray())
                         {
                             for (int i = 0; i < Array.getLength(value); i++)
                             {
@@ -102,64 +157,129 @@ public class BeanTool
                                     v = v.toString();
                                 }
 
-                                props.propAdd(pd.getName(), (String) v);
+                                props.propAdd(property.getName(), (String) v);
                             }
                         }
                         else
                         {
-                            props.propSet(pd.getName(), value.toString());
+                            props.propSet(property.getName(), value.toString());
                         }
                     }
                 }
             }
-            catch (Exception x)
+            catch (Error x)
             {
-                throw new IllegalArgumentException("Failed to set property: " + pd.getDisplayName(), x);
+                throw x;
+            }
+            catch (Throwable x)
+            {
+                throw new IllegalArgumentException("Failed to set property: " + property.getDisplayName(), x);
             }
         }
     }
 
-    @SuppressWarnings("unchecked")
-    public <T> T parse(String value, Class<T> clazz) throws IllegalArgumentException
+    /**
+     * Bean over the properties, implemented by a generated class instead of
+     * a proxy (see {@link #generate(Class, AbstractBeanInvocationHandler)}).
+     */
+    public <T> T generate(Class<T> clazz, BeanAccess props, boolean readOnly)
     {
-        if (clazz == null)
-        {
-            throw new IllegalArgumentException("null argument");
-        }
+        return generate(clazz, new BeanInvocationHandler(props, readOnly));
+    }
 
-        Object o = null;
+    /**
+     * Instance of a class generated for the bean interface, which calls the
+     * handler without the method name matching of a proxy. Falls back to a
+     * proxy if no class can be generated for the interface, for example if
+     * it is not public or has methods which are not bean methods.
+     */
+    public <T> T generate(Class<T> clazz, AbstractBeanInvocationHandler handler)
+    {
+        Constructor<?> constructor = BeanGenerator.getConstructor(clazz);
+        Object ret;
 
-        if (value == null)
+        if (constructor == null)
         {
-            o = zero(clazz);
-        }
-        else if (clazz.isPrimitive())
-        {
-            o = parsePrimitiveValue(value, clazz);
+            ret = Proxy.newProxyInstance(Thread.currentThread().getContextClassLoader(), new Class<?>[] { clazz }, handler);
         }
         else
         {
-            if (clazz == String.class)
+            try
             {
-                o = value;
+                ret = constructor.newInstance(handler);
             }
-            else if (clazz == Character.class)
+            catch (InvocationTargetException x)
             {
-                o = new Character(value.charAt(0));
+                throw new IllegalStateException(x.getCause());
             }
-            else
+            catch (InstantiationException x)
+            {
+                throw new IllegalStateException(x);
+            }
+            catch (IllegalAccessException x)
             {
-                o = parseSpecialValue(value, clazz);
+                throw new IllegalStateException(x);
             }
         }
 
-        return (T) o;
+        return clazz.cast(ret);
+    }
+
+    /**
+     * Converter of values to the type: the registered one, or for types
+     * without one, {@link Enum#valueOf(Class, String)} for enums and the
+     * <code>valueOf(String)</code> method of the type otherwise. The
+     * resolved converter is cached.
+     */
+    @SuppressWarnings(Warnings.UNCHECKED)
+    public <T> ValueConverter<T> getConverter(Class<T> clazz)
+    {
+        ValueConverter<?> ret = _converters.get(clazz);
+
+        if (ret == null)
+        {
+            ret = clazz.isEnum() ? newEnumConverter(clazz) : new SpecialConverter(clazz);
+            ValueConverter<?> old = _converters.putIfAbsent(clazz, ret);
+
+            ret = (old == null) ? ret : old;
+        }
+
+        return (ValueConverter<T>) ret;
+    }
+
+    public <T> T parse(String value, Class<T> clazz) throws IllegalArgumentException
+    {
+        if (clazz == null)
+        {
+            throw new IllegalArgumentException("null argument");
+        }
+
+        return (value == null) ? zero(clazz) : getConverter(clazz).parse(value);
     }
 
     public <T> T proxy(Class<T> clazz, BeanAccess props)
+    {
+        return proxy(clazz, props, false);
+    }
+
+    /**
+     * Proxy over read only properties: getters do not lock the invocation
+     * handler (see {@link AbstractBeanInvocationHandler}).
+     */
+    public <T> T proxy(Class<T> clazz, BeanAccess props, boolean readOnly)
     {
         return clazz.cast(Proxy.newProxyInstance(Thread.currentThread().getContextClassLoader(), new Class[] { clazz },
-                    new BeanInvocationHandler(props)));
+                    new BeanInvocationHandler(props, readOnly)));
+    }
+
+    /**
+     * Registers the converter of a type, replacing the built in or
+     * previously registered one. Converters of primitive types are used for
+     * the primitive type only, register the wrapper type separately.
+     */
+    public <T> void register(Class<T> clazz, ValueConverter<? extends T> converter)
+    {
+        _converters.put(clazz, converter);
     }
 
     @SuppressWarnings("unchecked")
@@ -206,6 +326,12 @@ public class BeanTool
         return (T) o;
     }
 
+    /**
+     * Parses a value through the static valueOf(String) method of the type.
+     * Registered converters, built-in ones such as those of File, URL and
+     * TimeZone included, take precedence, so this is only reached for
+     * types without one.
+     */
     @SuppressWarnings(Warnings.UNCHECKED)
     protected Object parseSpecialValue(String value, Class clazz) throws IllegalArgumentException
     {
@@ -213,35 +339,16 @@ public class BeanTool
 
         try
         {
-            if (clazz == File.class)
-            {
-                o = new File(value);
-            }
-            else if (clazz == URL.class)
-            {
-                o = new URL(value);
-            }
-            else if (clazz == URI.class)
-            {
-                o = new URI(value);
-            }
-            else if (clazz == Class.class)
-            {
-                o = Class.forName(value);
-            }
-            else if (clazz == TimeZone.class)
-            {
-                o = TimeZone.getTimeZone(value);
-            }
-            else
-            {
 
-                // TODO handle constructor with String arg as converter from String
-                // look for "valueOf" converter method
-                Method parser = clazz.getMethod(PARSE_METHOD, new Class[] { String.class });
+            // TODO handle constructor with String arg as converter from String
+            Method parser = PARSERS.get(clazz);
 
-                o = parser.invoke(null, new Object[] { value });
+            if (parser == null)
+            {
+                throw new NoSuchMethodException(clazz.getName() + '.' + PARSE_METHOD);
             }
+
+            o = parser.invoke(null, new Object[] { value });
         }
         catch (Exception x)
         {
@@ -251,71 +358,22 @@ public class BeanTool
         return o;
     }
 
-    private PropertyDescriptor[] getPropertyDescriptors(Class clazz)
+    /**
+     * Enum converter for a type already checked with {@link Class#isEnum()}.
+     */
+    @SuppressWarnings(Warnings.UNCHECKED)
+    private static <E extends Enum<E>> ValueConverter<E> newEnumConverter(Class<?> type)
     {
-        try
-        {
-            return Introspector.getBeanInfo(clazz).getPropertyDescriptors();
-        }
-        catch (IntrospectionException x)
-        {
-            throw new IllegalArgumentException(x);
-        }
-    }
-
-    private Object parsePrimitiveValue(String value, Class clazz) throws IllegalArgumentException
-    {
-        Object o = null;
-
-        try
-        {
-            if (clazz == Boolean.TYPE)
-            {
-                o = Boolean.valueOf(value);
-            }
-            else if (clazz == Byte.TYPE)
-            {
-                o = Byte.valueOf(value);
-            }
-            else if (clazz == Character.TYPE)
-            {
-                o = new Character(value.charAt(0));
-            }
-            else if (clazz == Double.TYPE)
-            {
-                o = Double.valueOf(value);
-            }
-            else if (clazz == Float.TYPE)
-            {
-                o = Float.valueOf(value);
-            }
-            else if (clazz == Integer.TYPE)
-            {
-                o = Integer.valueOf(value);
-            }
-            else if (clazz == Long.TYPE)
-            {
-                o = Long.valueOf(value);
-            }
-            else if (clazz == Short.TYPE)
-            {
-                o = Short.valueOf(value);
-            }
-        }
-        catch (Exception x)
-        {
-            throw (IllegalArgumentException) new IllegalArgumentException().initCause(x);
-        }
-
-        return o;
+        return new EnumConverter<E>((Class<E>) type);
     }
 
     static class BeanInvocationHandler extends AbstractBeanInvocationHandler
     {
         private final BeanAccess _backend;
 
-        BeanInvocationHandler(BeanAccess backend)
+        BeanInvocationHandler(BeanAccess backend, boolean readOnly)
         {
+            super(readOnly);
             _backend = backend;
         }
 
@@ -368,4 +426,306 @@ public class BeanTool
             return _backend.propLength(property) != 0;
         }
     }
+
+    /**
+     * Built in converters and the types they are registered for.
+     */
+    private enum Builtin implements ValueConverter<Object>
+    {
+        BIG_DECIMAL(BigDecimal.class)
+        {
+            @Override Object convert(String value)
+            {
+                return new BigDecimal(value);
+            }
+        },
+        BIG_INTEGER(BigInteger.class)
+        {
+            @Override Object convert(String value)
+            {
+                return new BigInteger(value);
+            }
+        },
+        BOOLEAN(Boolean.TYPE, Boolean.class)
+        {
+            @Override Object convert(String value)
+            {
+                return Boolean.valueOf(value);
+            }
+        },
+        BYTE(Byte.TYPE, Byte.class)
+        {
+            @Override Object convert(String value)
+            {
+                return Byte.valueOf(value);
+            }
+        },
+        CHARACTER(Character.TYPE, Character.class)
+        {
+            @Override Object convert(String value)
+            {
+                return Character.valueOf(value.charAt(0));
+            }
+        },
+        CLASS(Class.class)
+        {
+            @Override Object convert(String value) throws ClassNotFoundException
+            {
+                return Class.forName(value);
+            }
+        },
+        DOUBLE(Double.TYPE, Double.class)
+        {
+            @Override Object convert(String value)
+            {
+                return Double.valueOf(value);
+            }
+        },
+        FILE(File.class)
+        {
+            @Override Object convert(String value)
+            {
+                return new File(value);
+            }
+        },
+        FLOAT(Float.TYPE, Float.class)
+        {
+            @Override Object convert(String value)
+            {
+                return Float.valueOf(value);
+            }
+        },
+        INET_ADDRESS(InetAddress.class)
+        {
+            @Override Object convert(String value) throws Exception
+            {
+                return InetAddress.getByName(value);
+            }
+        },
+        INTEGER(Integer.TYPE, Integer.class)
+        {
+            @Override Object convert(String value)
+            {
+                return Integer.valueOf(value);
+            }
+        },
+        LONG(Long.TYPE, Long.class)
+        {
+            @Override Object convert(String value)
+            {
+                return Long.valueOf(value);
+            }
+        },
+        PATH(Path.class)
+        {
+            @Override Object convert(String value)
+            {
+                return Paths.get(value);
+            }
+        },
+        SHORT(Short.TYPE, Short.class)
+        {
+            @Override Object convert(String value)
+            {
+                return Short.valueOf(value);
+            }
+        },
+        STRING(String.class)
+        {
+            @Override Object convert(String value)
+            {
+                return value;
+            }
+        },
+        TIME_ZONE(TimeZone.class)
+        {
+            @Override Object convert(String value)
+            {
+                return TimeZone.getTimeZone(value);
+            }
+        },
+        URI(URI.class)
+        {
+            @Override Object convert(String value) throws Exception
+            {
+                return new URI(value);
+            }
+        },
+        URL(URL.class)
+        {
+            @Override Object convert(String value) throws Exception
+            {
+                return new URL(value);
+            }
+        };
+
+        private final Class<?>[] _types;
+
+        private Builtin(Class<?>... types)
+        {
+            _types = types;
+        }
+
+        @Override public Object parse(String value) throws IllegalArgumentException
+        {
+            Object ret;
+
+            try
+            {
+                ret = convert(value);
+            }
+            catch (IllegalArgumentException x)
+            {
+                throw x;
+            }
+            catch (Exception x)
+            {
+                throw (IllegalArgumentException) new IllegalArgumentException().initCause(x);
+            }
+
+            return ret;
+        }
+
+        abstract Object convert(String value) throws Exception;
+    }
+
+    private static final class EnumConverter<T extends Enum<T>> implements ValueConverter<T>
+    {
+        private final Class<T> _type;
+
+        private EnumConverter(Class<T> type)
+        {
+            _type = type;
+        }
+
+        @Override public T parse(String value) throws IllegalArgumentException
+        {
+            return Enum.valueOf(_type, value);
+        }
+    }
+
+    /**
+     * Converter of the types without a registered one, through
+     * {@link BeanTool#parseSpecialValue(String, Class)}.
+     */
+    private final class SpecialConverter implements ValueConverter<Object>
+    {
+        private final Class<?> _type;
+
+        private SpecialConverter(Class<?> type)
+        {
+            _type = type;
+        }
+
+        @Override public Object parse(String value) throws IllegalArgumentException
+        {
+            return parseSpecialValue(value, _type);
+        }
+    }
+
+    /**
+     * Bean property with its accessors, resolved once per class. Accessors
+     * are method handles, or the plain methods when the handles cannot be
+     * created (non public classes); these fail when invoked, just like they
+     * did without the cache.
+     */
+    private static final class Property
+    {
+        private static final MethodType GETTER_TYPE = MethodType.methodType(Object.class, Object.class);
+        private static final MethodType SETTER_TYPE = MethodType.methodType(void.class, Object.class, Object.class);
+        private final PropertyDescriptor _descriptor;
+        private final MethodHandle _getter;
+        private final Method _reader;
+        private final MethodHandle _setter;
+        private final Method _writer;
+
+        private Property(PropertyDescriptor descriptor)
+        {
+            _descriptor = descriptor;
+            _reader = "class".equals(descriptor.getName()) ? null : descriptor.getReadMethod();
+            _writer = descriptor.getWriteMethod();
+            _getter = handle(_reader, GETTER_TYPE);
+            _setter = handle(_writer, SETTER_TYPE);
+        }
+
+        private static Property[] of(Class<?> type)
+        {
+            List<Property> ret = new ArrayList<Property>();
+
+            try
+            {
+                for (PropertyDescriptor pd : Introspector.getBeanInfo(type).getPropertyDescriptors())
+                {
+                    ret.add(new Property(pd));
+                }
+            }
+            catch (IntrospectionException x)
+            {
+                throw new IllegalArgumentException(x);
+            }
+
+            return ret.toArray(new Property[ret.size()]);
+        }
+
+        private String getDisplayName()
+        {
+            return _descriptor.getDisplayName();
+        }
+
+        private String getName()
+        {
+            return _descriptor.getName();
+        }
+
+        private boolean isReadable()
+        {
+            return _reader != null;
+        }
+
+        private Class<?> getType()
+        {
+            return _descriptor.getPropertyType();
+        }
+
+        private boolean isWritable()
+        {
+            return _writer != null;
+        }
+
+        private Object get(Object bean) throws Throwable
+        {
+            return (_getter == null) ? _reader.invoke(bean) : (Object) _getter.invokeExact(bean);
+        }
+
+        private void set(Object bean, Object value) throws Throwable
+        {
+            if (_setter == null)
+            {
+                _writer.invoke(bean, value);
+            }
+            else
+            {
+                _setter.invokeExact(bean, value);
+            }
+        }
+
+        private static MethodHandle handle(Method method, MethodType type)
+        {
+            MethodHandle ret = null;
+
+            if (method != null)
+            {
+                try
+                {
+                    ret = MethodHandles.lookup().unreflect(method).asType(type);
+                }
+                catch (IllegalAccessException x)
+                {
+                    ret = null;
+                }
+            }
+
+            return ret;
+        }
+    }
 }
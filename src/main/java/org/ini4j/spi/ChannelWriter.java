@@ -0,0 +1,198 @@
+/*
+ * Copyright 2005,2009 Ivan SZKIBA
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ini4j.spi;
+
+import java.io.IOException;
+import java.io.Writer;
+
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.CharacterCodingException;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+
+/**
+ * Writer encoding into a byte buffer drained to a channel.
+ *
+ * Unlike an <code>OutputStreamWriter</code> it does no locking and copies
+ * the characters only once, into a large char buffer, which is encoded
+ * when full. A failed channel write is kept and thrown again by
+ * {@link #flush()}, so callers writing through a <code>PrintWriter</code>
+ * (which swallows exceptions) still see it, see
+ * {@link IniFormatter#getError()}. The writer is not thread safe.
+ */
+public class ChannelWriter extends Writer
+{
+    private static final int BUFFER_SIZE = 1 << 14;
+
+    // room for a surrogate pair, which is encoded at once
+    private static final int MIN_BUFFER_SIZE = 2;
+    private final ByteBuffer _bytes;
+    private final WritableByteChannel _channel;
+    private final char[] _chars;
+    private final CharsetEncoder _encoder;
+    private IOException _error;
+    private int _length;
+
+    public ChannelWriter(WritableByteChannel channel, Charset charset)
+    {
+        this(channel, charset, BUFFER_SIZE);
+    }
+
+    public ChannelWriter(WritableByteChannel channel, Charset charset, int bufferSize)
+    {
+        _channel = channel;
+        _encoder = charset.newEncoder().onMalformedInput(CodingErrorAction.REPLACE).onUnmappableCharacter(CodingErrorAction.REPLACE);
+        _chars = new char[Math.max(bufferSize, MIN_BUFFER_SIZE)];
+        _bytes = ByteBuffer.allocate((int) Math.ceil(_chars.length * (double) _encoder.maxBytesPerChar()));
+    }
+
+    @Override public Writer append(CharSequence csq) throws IOException
+    {
+        String str = String.valueOf(csq);
+
+        write(str, 0, str.length());
+
+        return this;
+    }
+
+    @Override public void close() throws IOException
+    {
+        flush();
+        _channel.close();
+    }
+
+    @Override public void flush() throws IOException
+    {
+        encode(true);
+        _encoder.reset();
+    }
+
+    @Override public void write(int c) throws IOException
+    {
+        if (_length == _chars.length)
+        {
+            encode(false);
+        }
+
+        _chars[_length++] = (char) c;
+    }
+
+    @Override public void write(String str) throws IOException
+    {
+        write(str, 0, str.length());
+    }
+
+    @Override public void write(char[] buff, int offset, int len) throws IOException
+    {
+        int start = offset;
+        int end = offset + len;
+
+        while (start < end)
+        {
+            int n = Math.min(end - start, _chars.length - _length);
+
+            System.arraycopy(buff, start, _chars, _length, n);
+            _length += n;
+            start += n;
+            if (_length == _chars.length)
+            {
+                encode(false);
+            }
+        }
+    }
+
+    @Override public void write(String str, int offset, int len) throws IOException
+    {
+        int start = offset;
+        int end = offset + len;
+
+        while (start < end)
+        {
+            int n = Math.min(end - start, _chars.length - _length);
+
+            str.getChars(start, start + n, _chars, _length);
+            _length += n;
+            start += n;
+            if (_length == _chars.length)
+            {
+                encode(false);
+            }
+        }
+    }
+
+    private void drain() throws IOException
+    {
+        _bytes.flip();
+        try
+        {
+            while (_bytes.hasRemaining())
+            {
+                _channel.write(_bytes);
+            }
+        }
+        catch (IOException x)
+        {
+            _error = x;
+            throw x;
+        }
+
+        _bytes.clear();
+    }
+
+    /**
+     * Encodes the buffered chars; a trailing high surrogate is kept for the
+     * next call unless this is the end of the input.
+     */
+    private void encode(boolean endOfInput) throws IOException
+    {
+        if (_error != null)
+        {
+            throw _error;
+        }
+
+        CharBuffer chars = CharBuffer.wrap(_chars, 0, _length);
+        CoderResult result = _encoder.encode(chars, _bytes, endOfInput);
+
+        while (result.isOverflow())
+        {
+            drain();
+            result = _encoder.encode(chars, _bytes, endOfInput);
+        }
+
+        if (result.isError())
+        {
+            throw new CharacterCodingException();
+        }
+
+        if (endOfInput)
+        {
+            result = _encoder.flush(_bytes);
+            while (result.isOverflow())
+            {
+                drain();
+                result = _encoder.flush(_bytes);
+            }
+        }
+
+        drain();
+        _length = chars.remaining();
+        System.arraycopy(_chars, chars.position(), _chars, 0, _length);
+    }
+}
@@ -15,6 +15,11 @@
  */
 package org.ini4j.spi;
 
+/**
+ * Escaping of option names and values. Each method scans the input first
+ * and returns it as is (or, for quoting, copies it once) when there is
+ * nothing to escape, which is the case for most values.
+ */
 public class EscapeTool
 {
     private static final String ESCAPE_LETTERS = "\\tnfbr:=";
@@ -37,35 +42,24 @@ public class EscapeTool
         return INSTANCE;
     }
 
+    /**
+     * Escapes the line, returning the same instance if no character needs
+     * escaping.
+     */
     public String escape(String line)
     {
-        int len = line.length();
-        StringBuilder buffer = new StringBuilder(len * 2);
+        int start = findEscaped(line);
+        String ret = line;
 
-        for (int i = 0; i < len; i++)
+        if (start < line.length())
         {
-            char c = line.charAt(i);
-            int idx = ESCAPEABLE_CHARS.indexOf(c);
+            StringBuilder buffer = new StringBuilder(line.length() * 2);
 
-            if (idx >= 0)
-            {
-                buffer.append(ESCAPE_CHAR);
-                buffer.append(ESCAPE_LETTERS.charAt(idx));
-            }
-            else
-            {
-                if ((c < ASCII_MIN) || (c > ASCII_MAX))
-                {
-                    escapeBinary(buffer, c);
-                }
-                else
-                {
-                    buffer.append(c);
-                }
-            }
+            escape(buffer, line, start);
+            ret = buffer.toString();
         }
 
-        return buffer.toString();
+        return ret;
     }
 
     public String quote(String value)
@@ -74,21 +68,24 @@ public class EscapeTool
 
         if ((value != null) && (value.length() != 0))
         {
-            StringBuilder buff = new StringBuilder();
+            int len = value.length();
+            StringBuilder buff = new StringBuilder(len + 2 + (len >> 3));
+            int start = 0;
 
             buff.append(DOUBLE_QUOTE);
-            for (int i = 0; i < value.length(); i++)
+            for (int i = 0; i < len; i++)
             {
                 char c = value.charAt(i);
 
                 if ((c == ESCAPE_CHAR) || (c == DOUBLE_QUOTE))
                 {
+                    buff.append(value, start, i);
                     buff.append(ESCAPE_CHAR);
+                    start = i;
                 }
-
-                buff.append(c);
             }
 
+            buff.append(value, start, len);
             buff.append(DOUBLE_QUOTE);
             ret = buff.toString();
         }
@@ -96,71 +93,73 @@ public class EscapeTool
         return ret;
     }
 
+    /**
+     * Unescapes the line, returning the same instance if it has no escape
+     * character.
+     */
     public String unescape(String line)
     {
-        int n = line.length();
-        StringBuilder buffer = new StringBuilder(n);
-        int i = 0;
+        int start = line.indexOf(ESCAPE_CHAR);
 
-        while (i < n)
+        return (start < 0) ? line : unescape(line, start);
+    }
+
+    public String unquote(String value)
+    {
+        int end = value.length() - 1;
+        int start = value.indexOf(ESCAPE_CHAR, 1);
+        String ret;
+
+        if ((start < 0) || (start >= end))
         {
-            char c = line.charAt(i++);
+            ret = (end > 1) ? value.substring(1, end) : "";
+        }
+        else
+        {
+            StringBuilder buff = new StringBuilder(end);
+            boolean escape = false;
 
-            if (c == ESCAPE_CHAR)
+            buff.append(value, 1, start);
+            for (int i = start; i < end; i++)
             {
-                c = line.charAt(i++);
-                int next = unescapeBinary(buffer, c, line, i);
+                char c = value.charAt(i);
 
-                if (next == i)
+                if ((c == ESCAPE_CHAR) && !escape)
                 {
-                    int idx = ESCAPE_LETTERS.indexOf(c);
-
-                    if (idx >= 0)
-                    {
-                        c = ESCAPEABLE_CHARS.charAt(idx);
-                    }
-
-                    buffer.append(c);
+                    escape = true;
                 }
                 else
                 {
-                    i = next;
+                    if (c == ESCAPE_CHAR)
+                    {
+                        escape = false;
+                    }
+
+                    buff.append(c);
                 }
             }
-            else
-            {
-                buffer.append(c);
-            }
+
+            ret = buff.toString();
         }
 
-        return buffer.toString();
+        return ret;
     }
 
-    public String unquote(String value)
+    /**
+     * Appends the escaped line to the buffer, without creating a string.
+     */
+    void escape(StringBuilder buffer, String line)
     {
-        StringBuilder buff = new StringBuilder();
-        boolean escape = false;
+        int start = findEscaped(line);
 
-        for (int i = 1; i < (value.length() - 1); i++)
+        if (start == line.length())
         {
-            char c = value.charAt(i);
-
-            if (c == ESCAPE_CHAR)
-            {
-                if (!escape)
-                {
-                    escape = true;
-
-                    continue;
-                }
-
-                escape = false;
-            }
-
-            buff.append(c);
+            buffer.append(line);
+        }
+        else
+        {
+            escape(buffer, line, start);
         }
-
-        return buff.toString();
     }
 
     void escapeBinary(StringBuilder buff, char c)
@@ -172,23 +171,133 @@ public class EscapeTool
         buff.append(HEX[c & HEX_DIGIT_MASK]);
     }
 
+    /**
+     * Parses <code>count</code> digits of the line from the index, without
+     * creating a substring.
+     */
+    char parseDigits(String line, int index, int count, int radix, String message)
+    {
+        int ret = 0;
+        boolean valid = (index + count) <= line.length();
+
+        for (int i = index; valid && (i < (index + count)); i++)
+        {
+            int digit = Character.digit(line.charAt(i), radix);
+
+            valid = digit >= 0;
+            ret = (ret * radix) + digit;
+        }
+
+        if (!valid)
+        {
+            throw new IllegalArgumentException(message);
+        }
+
+        return (char) ret;
+    }
+
     int unescapeBinary(StringBuilder buff, char escapeType, String line, int index)
     {
         int ret = index;
 
         if (escapeType == 'u')
         {
-            try
+            buff.append(parseDigits(line, index, UNICODE_HEX_DIGITS, HEX_RADIX, "Malformed \\uxxxx encoding."));
+            ret = index + UNICODE_HEX_DIGITS;
+        }
+
+        return ret;
+    }
+
+    /**
+     * Same as checking {@link #ESCAPEABLE_CHARS} and the printable range, the
+     * escapeable control characters being below the printable range.
+     */
+    private boolean isEscaped(char c)
+    {
+        return (c < ASCII_MIN) || (c > ASCII_MAX) || (c == ESCAPE_CHAR) || (c == ':') || (c == '=');
+    }
+
+    private void escape(StringBuilder buffer, String line, int start)
+    {
+        int len = line.length();
+
+        buffer.append(line, 0, start);
+        for (int i = start; i < len; i++)
+        {
+            char c = line.charAt(i);
+            int idx = ESCAPEABLE_CHARS.indexOf(c);
+
+            if (idx >= 0)
             {
-                buff.append((char) Integer.parseInt(line.substring(index, index + UNICODE_HEX_DIGITS), HEX_RADIX));
-                ret = index + UNICODE_HEX_DIGITS;
+                buffer.append(ESCAPE_CHAR);
+                buffer.append(ESCAPE_LETTERS.charAt(idx));
             }
-            catch (Exception x)
+            else
             {
-                throw new IllegalArgumentException("Malformed \\uxxxx encoding.", x);
+                if ((c < ASCII_MIN) || (c > ASCII_MAX))
+                {
+                    escapeBinary(buffer, c);
+                }
+                else
+                {
+                    buffer.append(c);
+                }
             }
         }
+    }
+
+    private int findEscaped(String line)
+    {
+        int len = line.length();
+        int ret = 0;
+
+        while ((ret < len) && !isEscaped(line.charAt(ret)))
+        {
+            ret++;
+        }
 
         return ret;
     }
+
+    private String unescape(String line, int start)
+    {
+        int n = line.length();
+        StringBuilder buffer = new StringBuilder(n);
+        int i = start;
+
+        buffer.append(line, 0, start);
+        while (i < n)
+        {
+            char c = line.charAt(i++);
+
+            if (c == ESCAPE_CHAR)
+            {
+                c = line.charAt(i++);
+                int next = unescapeBinary(buffer, c, line, i);
+
+                if (next == i)
+                {
+                    int idx = ESCAPE_LETTERS.indexOf(c);
+
+                    if (idx >= 0)
+                    {
+                        c = ESCAPEABLE_CHARS.charAt(idx);
+                    }
+
+                    buffer.append(c);
+                }
+                else
+                {
+                    i = next;
+                }
+            }
+            else
+            {
+                buffer.append(c);
+            }
+        }
+
+        return buffer.toString();
+    }
 }
@@ -0,0 +1,102 @@
+/*
+ * Copyright 2005,2009 Ivan SZKIBA
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ini4j.spi;
+
+import java.beans.PropertyChangeListener;
+import java.beans.PropertyVetoException;
+import java.beans.VetoableChangeListener;
+
+import java.lang.reflect.UndeclaredThrowableException;
+
+/**
+ * Base class of the bean classes generated by
+ * {@link BeanTool#generate(Class, AbstractBeanInvocationHandler)}.
+ *
+ * A generated class implements every method of its interface with a call
+ * to one of the methods below, passing the index of the method in the
+ * {@link BeanModel} of the interface. The calls go straight to the
+ * invocation handler, without the method name matching of a proxy.
+ */
+public abstract class GeneratedBean
+{
+    private final AbstractBeanInvocationHandler _handler;
+    private final BeanModel _model;
+
+    protected GeneratedBean(AbstractBeanInvocationHandler handler)
+    {
+        _handler = handler;
+        _model = BeanModel.of(getClass().getInterfaces()[0]);
+        handler.updateProxy(this);
+    }
+
+    protected final Object getProperty(int index)
+    {
+        BeanModel.Operation operation = _model.get(index);
+
+        return _handler.getProperty(operation.getProperty(), operation.getType());
+    }
+
+    protected final void setProperty(int index, Object value) throws PropertyVetoException
+    {
+        BeanModel.Operation operation = _model.get(index);
+
+        _handler.setProperty(operation.getProperty(), value, operation.getType());
+    }
+
+    /**
+     * Setter of a method which does not declare PropertyVetoException; a
+     * veto is wrapped the same way a proxy would wrap it.
+     */
+    protected final void setUndeclared(int index, Object value)
+    {
+        try
+        {
+            setProperty(index, value);
+        }
+        catch (PropertyVetoException x)
+        {
+            throw new UndeclaredThrowableException(x);
+        }
+    }
+
+    protected final boolean hasProperty(int index)
+    {
+        return _handler.hasProperty(_model.get(index).getProperty());
+    }
+
+    protected final void listener(int index, String property, Object listener)
+    {
+        switch (_model.get(index).getKind())
+        {
+
+            case ADD_CHANGE:
+                _handler.addPropertyChangeListener(property, (PropertyChangeListener) listener);
+                break;
+
+            case ADD_VETO:
+                _handler.addVetoableChangeListener(property, (VetoableChangeListener) listener);
+                break;
+
+            case REMOVE_CHANGE:
+                _handler.removePropertyChangeListener(property, (PropertyChangeListener) listener);
+                break;
+
+            default:
+                _handler.removeVetoableChangeListener(property, (VetoableChangeListener) listener);
+                break;
+        }
+    }
+}
@@ -17,11 +17,17 @@ package org.ini4j.spi;
 
 import org.ini4j.Config;
 
+import java.io.IOException;
 import java.io.PrintWriter;
 import java.io.Writer;
 
+import java.nio.channels.WritableByteChannel;
+
 public class IniFormatter extends AbstractFormatter implements IniHandler
 {
+    private ChannelWriter _channel;
+    private IOException _error;
+
     public static IniFormatter newInstance(Writer out, Config config)
     {
         IniFormatter instance = newInstance();
@@ -32,9 +38,45 @@ public class IniFormatter extends AbstractFormatter implements IniHandler
         return instance;
     }
 
+    /**
+     * Formatter writing to the channel through a {@link ChannelWriter}, in
+     * the file encoding of the configuration. The channel is flushed but
+     * not closed at the end of the ini. The print writer output swallows
+     * write errors, so a failed channel write is kept and returned by
+     * {@link #getError()} after {@link #endIni()}.
+     */
+    public static IniFormatter newInstance(WritableByteChannel out, Config config)
+    {
+        ChannelWriter writer = new ChannelWriter(out, config.getFileEncoding());
+        IniFormatter instance = newInstance(writer, config);
+
+        instance._channel = writer;
+
+        return instance;
+    }
+
+    /**
+     * Write error of a channel formatter, or null.
+     */
+    public IOException getError()
+    {
+        return _error;
+    }
+
     @Override public void endIni()
     {
         getOutput().flush();
+        if (_channel != null)
+        {
+            try
+            {
+                _channel.flush();
+            }
+            catch (IOException x)
+            {
+                _error = x;
+            }
+        }
     }
 
     @Override public void endSection()
@@ -52,10 +94,13 @@ public class IniFormatter extends AbstractFormatter implements IniHandler
         setHeader(false);
         if (!getConfig().isGlobalSection() || !sectionName.equals(getConfig().getGlobalSectionName()))
         {
-            getOutput().print(IniParser.SECTION_BEGIN);
-            getOutput().print(escapeKey(sectionName));
-            getOutput().print(IniParser.SECTION_END);
-            getOutput().print(getConfig().getLineSeparator());
+            StringBuilder line = newLine();
+
+            line.append(IniParser.SECTION_BEGIN);
+            appendKey(line, sectionName);
+            line.append(IniParser.SECTION_END);
+            line.append(getConfig().getLineSeparator());
+            print(line);
         }
     }
 
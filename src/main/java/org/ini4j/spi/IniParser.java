@@ -19,6 +19,7 @@ package org.ini4j.spi;
 import org.ini4j.Config;
 import org.ini4j.InvalidFileFormatException;
 
+import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.Reader;
@@ -29,8 +30,8 @@ import java.util.Locale;
 
 public class IniParser extends AbstractParser
 {
-    private static final String COMMENTS = ";#";
-    private static final String OPERATORS = ":=";
+    static final String COMMENTS = ";#";
+    static final String OPERATORS = ":=";
     static final char SECTION_BEGIN = '[';
     static final char SECTION_END = ']';
 
@@ -53,6 +54,30 @@ public class IniParser extends AbstractParser
         return instance;
     }
 
+    /**
+     * Parses a local file. Files reaching the {@link Config#getParallelThreshold()}
+     * size are parsed in parallel (see {@link ParallelIniLoader}), files
+     * reaching the {@link Config#getMmapThreshold()} size are read through a
+     * {@link MappedFileReader}, other files the same way as
+     * {@link #parse(URL, IniHandler)}.
+     */
+    public void parse(File input, IniHandler handler) throws IOException, InvalidFileFormatException
+    {
+        boolean parallel = ParallelIniLoader.isParallel(input, getConfig()) && new ParallelIniLoader(this, input).load(handler);
+
+        if (!parallel)
+        {
+            if (MappedFileReader.isMapped(input, getConfig()))
+            {
+                parse(newIniSource(input, handler), handler);
+            }
+            else
+            {
+                parse(input.toURI().toURL(), handler);
+            }
+        }
+    }
+
     public void parse(InputStream input, IniHandler handler) throws IOException, InvalidFileFormatException
     {
         parse(newIniSource(input, handler), handler);
@@ -68,9 +93,27 @@ public class IniParser extends AbstractParser
         parse(newIniSource(input, handler), handler);
     }
 
+    /**
+     * Parses a chunk of a file: a part starting with a section line (or the
+     * beginning of the file), without the startIni/endIni events.
+     */
+    void parseChunk(Reader input, URL base, int lineNumber, IniHandler handler) throws IOException, InvalidFileFormatException
+    {
+        IniSource source = newIniSource(input, base, handler);
+
+        source.setLineNumber(lineNumber);
+        parseSections(source, handler);
+    }
+
     private void parse(IniSource source, IniHandler handler) throws IOException, InvalidFileFormatException
     {
         handler.startIni();
+        parseSections(source, handler);
+        handler.endIni();
+    }
+
+    private void parseSections(IniSource source, IniHandler handler) throws IOException, InvalidFileFormatException
+    {
         String sectionName = null;
 
         for (String line = source.readLine(); line != null; line = source.readLine())
@@ -107,8 +150,6 @@ public class IniParser extends AbstractParser
         {
             handler.endSection();
         }
-
-        handler.endIni();
     }
 
     private String parseSectionLine(String line, IniSource source, IniHandler handler) throws InvalidFileFormatException
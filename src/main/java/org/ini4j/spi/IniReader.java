@@ -0,0 +1,391 @@
+/*
+ * Copyright 2005,2009 Ivan SZKIBA
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ini4j.spi;
+
+import org.ini4j.Config;
+import org.ini4j.InvalidFileFormatException;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+
+import java.net.URL;
+
+import java.util.Locale;
+
+/**
+ * Pull style ini file reader.
+ *
+ * Instead of building a profile or calling an {@link IniHandler}, the file
+ * is consumed one event at a time with {@link #next()}, so memory use does
+ * not depend on the file size and reading can stop at any point:
+ *
+ * <pre>
+ * IniReader reader = new IniReader(file, config);
+ *
+ * try
+ * {
+ *     for (IniReader.Event event = reader.next(); event != null; event = reader.next())
+ *     {
+ *         if ((event == IniReader.Event.OPTION) &amp;&amp; "sneezy".equals(reader.getSection()))
+ *         {
+ *             ...
+ *         }
+ *     }
+ * }
+ * finally
+ * {
+ *     reader.close();
+ * }
+ * </pre>
+ *
+ * Lines are read the same way as by {@link ScanningIniParser} (same
+ * {@link Config} settings, comments, line continuations and includes) and
+ * the events follow the same order as the handler calls of the parser. When
+ * the global section is enabled, a {@link Event#SECTION} event with the
+ * global section name is reported before the first option outside of any
+ * section.
+ *
+ * Option names and values are returned as views into the reader buffer and
+ * are valid only until the next call of {@link #next()}. Use
+ * <code>toString()</code> to keep them.
+ */
+public class IniReader implements Closeable
+{
+    public static enum Event
+    {
+        SECTION,
+        OPTION,
+        COMMENT;
+    }
+
+    private String _comment;
+    private final Config _config;
+    private Event _event;
+    private boolean _held;
+    private final CharView _name = new CharView();
+    private final IniParser _parser = new IniParser();
+    private final IniScanner _scanner;
+    private String _section;
+    private final CharView _value = new CharView();
+
+    public IniReader(Reader input, Config config)
+    {
+        _config = config;
+        _parser.setConfig(config);
+        _scanner = _parser.newIniScanner(input, newBuffer());
+    }
+
+    IniReader(Reader input, URL base, int lineNumber, char[] buffer, Config config)
+    {
+        _config = config;
+        _parser.setConfig(config);
+        _scanner = _parser.newIniScanner(input, base, buffer);
+        _scanner.setLineNumber(lineNumber);
+    }
+
+    public IniReader(InputStream input, Config config)
+    {
+        this(new UnicodeInputStreamReader(input, config.getFileEncoding()), config);
+    }
+
+    public IniReader(URL input, Config config) throws IOException
+    {
+        _config = config;
+        _parser.setConfig(config);
+        _scanner = _parser.newIniScanner(input, newBuffer());
+    }
+
+    public IniReader(File input, Config config) throws IOException
+    {
+        _config = config;
+        _parser.setConfig(config);
+        _scanner = MappedFileReader.isMapped(input, config) ? _parser.newIniScanner(input, newBuffer())
+                                                            : _parser.newIniScanner(input.toURI().toURL(), newBuffer());
+    }
+
+    /**
+     * Text of the current {@link Event#COMMENT} event.
+     */
+    public String getComment()
+    {
+        return (_event == Event.COMMENT) ? _comment : null;
+    }
+
+    public Event getEvent()
+    {
+        return _event;
+    }
+
+    public int getLineNumber()
+    {
+        return _scanner.getLineNumber();
+    }
+
+    /**
+     * Section name of a {@link Event#SECTION} event, option name of an
+     * {@link Event#OPTION} event.
+     */
+    public CharSequence getName()
+    {
+        CharSequence ret = null;
+
+        if (_event == Event.SECTION)
+        {
+            ret = _section;
+        }
+        else if (_event == Event.OPTION)
+        {
+            ret = _name;
+        }
+
+        return ret;
+    }
+
+    /**
+     * Name of the section the reader is in, or null before the first section.
+     */
+    public String getSection()
+    {
+        return _section;
+    }
+
+    /**
+     * Option value of an {@link Event#OPTION} event. Null for options
+     * without value (see {@link Config#isEmptyOption()}).
+     */
+    public CharSequence getValue()
+    {
+        return ((_event == Event.OPTION) && !_value.isNull()) ? _value : null;
+    }
+
+    @Override public void close() throws IOException
+    {
+        _scanner.close();
+    }
+
+    /**
+     * Moves to the next event. Returns null (and closes the reader) at the
+     * end of the input.
+     */
+    public Event next() throws IOException, InvalidFileFormatException
+    {
+        Event event = Event.OPTION;
+
+        if (_held)
+        {
+            _held = false;
+            readOption();
+        }
+        else
+        {
+            IniScanner.Token token = _scanner.next();
+
+            if (token == null)
+            {
+                event = null;
+                _scanner.close();
+            }
+            else if (token == IniScanner.Token.COMMENT)
+            {
+                event = Event.COMMENT;
+                _comment = _scanner.getComment();
+            }
+            else if (_scanner.getLine()[_scanner.getLineStart()] == IniParser.SECTION_BEGIN)
+            {
+                event = Event.SECTION;
+                readSection();
+            }
+            else if (_section == null)
+            {
+                if (!_config.isGlobalSection())
+                {
+                    parseError();
+                }
+
+                event = Event.SECTION;
+                _section = _config.getGlobalSectionName();
+                _held = true;
+            }
+            else
+            {
+                readOption();
+            }
+        }
+
+        _event = event;
+
+        return event;
+    }
+
+    private char[] newBuffer()
+    {
+        return new char[IniScanner.DEFAULT_BUFFER_SIZE];
+    }
+
+    private void parseError() throws InvalidFileFormatException
+    {
+        _parser.parseError(_scanner.lineToString(), _scanner.getUrl(), _scanner.getLineNumber());
+    }
+
+    private void readOption() throws InvalidFileFormatException
+    {
+        char[] line = _scanner.getLine();
+        int start = _scanner.getLineStart();
+        int end = _scanner.getLineEnd();
+        int idx = _parser.indexOfOperator(line, start, end);
+
+        if (idx < 0)
+        {
+            if (!_config.isEmptyOption())
+            {
+                parseError();
+            }
+
+            _name.set(line, start, end);
+            _value.clear();
+        }
+        else
+        {
+            if (_config.isEscape() && _parser.needUnescape(line, start, idx))
+            {
+                _name.set(_parser.unescapeKey(line, start, idx));
+            }
+            else
+            {
+                _name.set(line, start, idx);
+            }
+
+            if (_config.isEscape() && !_config.isEscapeKeyOnly() && _parser.needUnescape(line, idx + 1, end))
+            {
+                _value.set(_parser.unescapeValue(line, idx + 1, end));
+            }
+            else
+            {
+                _value.set(line, idx + 1, end);
+            }
+        }
+
+        if (_name.length() == 0)
+        {
+            parseError();
+        }
+
+        if (_config.isLowerCaseOption())
+        {
+            _name.set(_name.toString().toLowerCase(Locale.getDefault()));
+        }
+    }
+
+    private void readSection() throws InvalidFileFormatException
+    {
+        char[] line = _scanner.getLine();
+        int start = _scanner.getLineStart();
+        int end = _scanner.getLineEnd();
+
+        if (line[end - 1] != IniParser.SECTION_END)
+        {
+            parseError();
+        }
+
+        String sectionName = _parser.unescapeKey(_parser.trimmed(line, start + 1, end - 1));
+
+        if ((sectionName.length() == 0) && !_config.isUnnamedSection())
+        {
+            parseError();
+        }
+
+        if (_config.isLowerCaseSection())
+        {
+            sectionName = sectionName.toLowerCase(Locale.getDefault());
+        }
+
+        _section = sectionName;
+    }
+
+    /**
+     * Reusable, trimmed view of a char array range (or of a string, when
+     * the text had to be unescaped or converted).
+     */
+    private static final class CharView implements CharSequence
+    {
+        private static final char SPACE = ' ';
+        private char[] _chars;
+        private int _end;
+        private int _start;
+        private String _string;
+
+        @Override public char charAt(int index)
+        {
+            return (_string == null) ? _chars[_start + index] : _string.charAt(index);
+        }
+
+        @Override public int length()
+        {
+            return (_string == null) ? (_end - _start) : _string.length();
+        }
+
+        @Override public CharSequence subSequence(int start, int end)
+        {
+            return toString().substring(start, end);
+        }
+
+        @Override public String toString()
+        {
+            return (_string == null) ? new String(_chars, _start, _end - _start) : _string;
+        }
+
+        private boolean isNull()
+        {
+            return (_string == null) && (_chars == null);
+        }
+
+        private void clear()
+        {
+            _chars = null;
+            _string = null;
+        }
+
+        private void set(String value)
+        {
+            _chars = null;
+            _string = value;
+        }
+
+        private void set(char[] chars, int start, int end)
+        {
+            int s = start;
+            int e = end;
+
+            while ((s < e) && (chars[s] <= SPACE))
+            {
+                s++;
+            }
+
+            while ((e > s) && (chars[e - 1] <= SPACE))
+            {
+                e--;
+            }
+
+            _chars = chars;
+            _start = s;
+            _end = e;
+            _string = null;
+        }
+    }
+}
@@ -0,0 +1,420 @@
+/*
+ * Copyright 2005,2009 Ivan SZKIBA
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ini4j.spi;
+
+import org.ini4j.Config;
+
+import java.io.IOException;
+import java.io.Reader;
+
+import java.net.URL;
+
+/**
+ * Char array based line scanner.
+ *
+ * Same line semantic as {@link IniSource} (comments, line continuation and
+ * includes), but lines are reported as offsets into a reusable char buffer
+ * instead of freshly allocated strings. Comments are reported as separate
+ * tokens, in the same order as {@link IniSource} passes them to its handler.
+ * The line returned by {@link #next()} is valid until the next call.
+ */
+class IniScanner
+{
+    static final int DEFAULT_BUFFER_SIZE = 0x10000;
+    private static final int JOINED_BUFFER_SIZE = 0x100;
+    private static final char ESCAPE_CHAR = '\\';
+    private static final char CR = '\r';
+    private static final char LF = '\n';
+    private static final char SPACE = ' ';
+
+    static enum Token
+    {
+        COMMENT,
+        LINE;
+    }
+
+    private URL _base;
+    private char[] _buffer;
+    private IniScanner _chain;
+    private final StringBuilder _comment = new StringBuilder();
+    private final String _commentChars;
+    private String _commentText;
+    private final Config _config;
+    private boolean _eof;
+    private boolean _held;
+    private char[] _joined;
+    private int _joinedLength;
+    private int _limit;
+    private char[] _line;
+    private int _lineEnd;
+    private int _lineNumber;
+    private int _lineStart;
+    private int _physicalEnd;
+    private int _physicalStart;
+    private int _position;
+    private final Reader _reader;
+
+    IniScanner(Reader input, char[] buffer, String comments, Config config)
+    {
+        _reader = input;
+        _buffer = buffer;
+        _commentChars = comments;
+        _config = config;
+    }
+
+    IniScanner(URL input, char[] buffer, String comments, Config config) throws IOException
+    {
+        this(new UnicodeInputStreamReader(input.openStream(), config.getFileEncoding()), input, buffer, comments, config);
+    }
+
+    IniScanner(Reader input, URL base, char[] buffer, String comments, Config config)
+    {
+        this(input, buffer, comments, config);
+        _base = base;
+    }
+
+    String getComment()
+    {
+        return (_chain == null) ? _commentText : _chain.getComment();
+    }
+
+    char[] getLine()
+    {
+        return (_chain == null) ? _line : _chain.getLine();
+    }
+
+    int getLineEnd()
+    {
+        return (_chain == null) ? _lineEnd : _chain.getLineEnd();
+    }
+
+    int getLineNumber()
+    {
+        return (_chain == null) ? _lineNumber : _chain.getLineNumber();
+    }
+
+    void setLineNumber(int value)
+    {
+        _lineNumber = value;
+    }
+
+    int getLineStart()
+    {
+        return (_chain == null) ? _lineStart : _chain.getLineStart();
+    }
+
+    URL getUrl()
+    {
+        return (_chain == null) ? _base : _chain.getUrl();
+    }
+
+    String lineToString()
+    {
+        return new String(getLine(), getLineStart(), getLineEnd() - getLineStart());
+    }
+
+    void close() throws IOException
+    {
+        if (_chain != null)
+        {
+            _chain.close();
+            _chain = null;
+        }
+
+        _reader.close();
+    }
+
+    Token next() throws IOException
+    {
+        Token token;
+
+        if (_chain == null)
+        {
+            token = nextLocal();
+        }
+        else
+        {
+            token = _chain.next();
+            if (token == null)
+            {
+                _chain = null;
+                token = next();
+            }
+        }
+
+        return token;
+    }
+
+    private void append(int start, int end)
+    {
+        int len = end - start;
+
+        if (_joined == null)
+        {
+            _joined = new char[Math.max(len * 2, JOINED_BUFFER_SIZE)];
+        }
+        else if ((_joinedLength + len) > _joined.length)
+        {
+            char[] grown = new char[Math.max((_joinedLength + len) * 2, _joined.length * 2)];
+
+            System.arraycopy(_joined, 0, grown, 0, _joinedLength);
+            _joined = grown;
+        }
+
+        System.arraycopy(_buffer, start, _joined, _joinedLength, len);
+        _joinedLength += len;
+    }
+
+    private int countEndingEscapes()
+    {
+        int escapeCount = 0;
+
+        for (int i = _physicalEnd - 1; (i >= _physicalStart) && (_buffer[i] == ESCAPE_CHAR); i--)
+        {
+            escapeCount++;
+        }
+
+        return escapeCount;
+    }
+
+    private int fill(int scan) throws IOException
+    {
+        int ret = scan;
+
+        if (_position != 0)
+        {
+            System.arraycopy(_buffer, _position, _buffer, 0, _limit - _position);
+            ret -= _position;
+            _limit -= _position;
+            _position = 0;
+        }
+
+        if (_limit == _buffer.length)
+        {
+            char[] grown = new char[_buffer.length * 2];
+
+            System.arraycopy(_buffer, 0, grown, 0, _limit);
+            _buffer = grown;
+        }
+
+        int n = _reader.read(_buffer, _limit, _buffer.length - _limit);
+
+        if (n < 0)
+        {
+            _eof = true;
+        }
+        else
+        {
+            _limit += n;
+        }
+
+        return ret;
+    }
+
+    private Token flushComment()
+    {
+        _comment.deleteCharAt(_comment.length() - 1);
+        _commentText = _comment.toString();
+        _comment.setLength(0);
+
+        return Token.COMMENT;
+    }
+
+    private Token handleInclude() throws IOException
+    {
+        Token token = Token.LINE;
+        int start = _lineStart;
+        int end = _lineEnd;
+
+        if (_config.isInclude() && ((end - start) > 2) && (_line[start] == IniSource.INCLUDE_BEGIN) && (_line[end - 1] == IniSource.INCLUDE_END))
+        {
+            String location = new String(_line, start + 1, end - start - 2).trim();
+            boolean optional = location.charAt(0) == IniSource.INCLUDE_OPTIONAL;
+
+            if (optional)
+            {
+                location = location.substring(1).trim();
+            }
+
+            URL loc = (_base == null) ? new URL(location) : new URL(_base, location);
+
+            if (optional)
+            {
+                try
+                {
+                    _chain = new IniScanner(loc, new char[DEFAULT_BUFFER_SIZE], _commentChars, _config);
+                }
+                catch (IOException x)
+                {
+                    assert true;
+                }
+            }
+            else
+            {
+                _chain = new IniScanner(loc, new char[DEFAULT_BUFFER_SIZE], _commentChars, _config);
+            }
+
+            token = next();
+        }
+
+        return token;
+    }
+
+    private Token nextLocal() throws IOException
+    {
+        Token token = null;
+
+        _joinedLength = 0;
+        while (_held || readPhysicalLine())
+        {
+            _held = false;
+            if (_physicalStart == _physicalEnd)
+            {
+                if (_comment.length() != 0)
+                {
+                    token = flushComment();
+
+                    break;
+                }
+            }
+            else if ((_joinedLength == 0) && (_commentChars.indexOf(_buffer[_physicalStart]) >= 0))
+            {
+                _comment.append(_buffer, _physicalStart + 1, _physicalEnd - _physicalStart - 1);
+                _comment.append(_config.getLineSeparator());
+            }
+            else if (_comment.length() != 0)
+            {
+                _held = true;
+                token = flushComment();
+
+                break;
+            }
+            else if (!_config.isEscapeNewline() || ((countEndingEscapes() & 1) == 0))
+            {
+                if (_joinedLength == 0)
+                {
+                    setLine(_buffer, _physicalStart, _physicalEnd);
+                }
+                else
+                {
+                    append(_physicalStart, _physicalEnd);
+                    setLine(_joined, 0, _joinedLength);
+                }
+
+                token = handleInclude();
+
+                break;
+            }
+            else
+            {
+                append(_physicalStart, _physicalEnd - 1);
+            }
+        }
+
+        if (token == null)
+        {
+            // handle end comments
+            if (_comment.length() != 0)
+            {
+                token = flushComment();
+            }
+            else
+            {
+                _reader.close();
+            }
+        }
+
+        return token;
+    }
+
+    private boolean readPhysicalLine() throws IOException
+    {
+        boolean found = false;
+        int scan = _position;
+
+        while (!found && ((scan < _limit) || !_eof))
+        {
+            if (scan == _limit)
+            {
+                scan = fill(scan);
+
+                continue;
+            }
+
+            char c = _buffer[scan];
+
+            if ((c == LF) || (c == CR))
+            {
+                if ((c == CR) && ((scan + 1) == _limit) && !_eof)
+                {
+                    // need one more char to decide about CR LF
+                    scan = fill(scan);
+
+                    continue;
+                }
+
+                setPhysicalLine(_position, scan);
+                _position = scan + 1;
+                if ((c == CR) && (_position < _limit) && (_buffer[_position] == LF))
+                {
+                    _position++;
+                }
+
+                found = true;
+            }
+            else
+            {
+                scan++;
+            }
+        }
+
+        if (!found && (_position < _limit))
+        {
+            setPhysicalLine(_position, _limit);
+            _position = _limit;
+            found = true;
+        }
+
+        return found;
+    }
+
+    private void setLine(char[] chars, int start, int end)
+    {
+        _line = chars;
+        _lineStart = start;
+        _lineEnd = end;
+    }
+
+    private void setPhysicalLine(int start, int end)
+    {
+        int s = start;
+        int e = end;
+
+        while ((s < e) && (_buffer[s] <= SPACE))
+        {
+            s++;
+        }
+
+        while ((e > s) && (_buffer[e - 1] <= SPACE))
+        {
+            e--;
+        }
+
+        _physicalStart = s;
+        _physicalEnd = e;
+        _lineNumber++;
+    }
+}
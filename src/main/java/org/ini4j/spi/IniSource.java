@@ -53,8 +53,13 @@ class IniSource
 
     IniSource(URL input, HandlerBase handler, String comments, Config config) throws IOException
     {
-        this(new UnicodeInputStreamReader(input.openStream(), config.getFileEncoding()), handler, comments, config);
-        _base = input;
+        this(new UnicodeInputStreamReader(input.openStream(), config.getFileEncoding()), input, handler, comments, config);
+    }
+
+    IniSource(Reader input, URL base, HandlerBase handler, String comments, Config config)
+    {
+        this(input, handler, comments, config);
+        _base = base;
     }
 
     URL getUrl() {
@@ -83,6 +88,11 @@ class IniSource
         return ret;
     }
 
+    void setLineNumber(int value)
+    {
+        _reader.setLineNumber(value);
+    }
+
     String readLine() throws IOException
     {
         String line;
@@ -0,0 +1,346 @@
+/*
+ * Copyright 2005,2009 Ivan SZKIBA
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ini4j.spi;
+
+import org.ini4j.Config;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintWriter;
+import java.io.Writer;
+
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
+
+/**
+ * Push style ini file writer.
+ *
+ * Sections, options and comments are formatted and written as they come,
+ * without building a profile, so memory use does not depend on the
+ * number of options:
+ *
+ * <pre>
+ * IniWriter writer = new IniWriter(file, config);
+ *
+ * try
+ * {
+ *     writer.comment("generated");
+ *     writer.section("sneezy");
+ *     writer.option("weight", "69.7");
+ * }
+ * finally
+ * {
+ *     writer.close();
+ * }
+ * </pre>
+ *
+ * The output is the same as the {@link IniFormatter} output of a profile
+ * with the same content and {@link Config} settings (escaping, strict
+ * operator, empty options, comments). Names and values which could not be
+ * read back as written are rejected with an
+ * {@link IllegalArgumentException}. Duplicated sections and options are
+ * not checked, as that would need memory for every name written.
+ *
+ * Write errors are reported by the first call after the failure.
+ */
+public class IniWriter implements Closeable, Flushable
+{
+    private static final char ESCAPE_CHAR = '\\';
+    private boolean _closed;
+    private String _comment;
+    private final Config _config;
+    private final IniFormatter _formatter;
+    private final PrintWriter _output;
+    private String _section;
+    private final Sink _sink;
+
+    public IniWriter(Writer output, Config config)
+    {
+        _config = config;
+        _sink = new Sink(output);
+        _output = new PrintWriter(_sink);
+        _formatter = IniFormatter.newInstance(_output, config);
+        _formatter.startIni();
+    }
+
+    public IniWriter(WritableByteChannel output, Config config)
+    {
+        this(new ChannelWriter(output, config.getFileEncoding()), config);
+    }
+
+    public IniWriter(OutputStream output, Config config)
+    {
+        this(Channels.newChannel(output), config);
+    }
+
+    public IniWriter(File output, Config config) throws IOException
+    {
+        this(new FileOutputStream(output).getChannel(), config);
+    }
+
+    /**
+     * Name of the section the writer is in, or null before the first section.
+     */
+    public String getSection()
+    {
+        return _section;
+    }
+
+    /**
+     * Ends the current section, writes all buffered output and closes the
+     * underlying output.
+     */
+    @Override public void close() throws IOException
+    {
+        if (!_closed)
+        {
+            _closed = true;
+            if (_section != null)
+            {
+                _formatter.endSection();
+            }
+
+            writeComment();
+            _formatter.endIni();
+            _output.close();
+            checkError();
+        }
+    }
+
+    /**
+     * Comment line(s) of the next section or option. The last comment is
+     * kept until that is written, so a section comment follows the end of
+     * the previous section. Multiple lines are separated by the line
+     * separator of the configuration. The first comment is written as file
+     * header (see {@link Config#isHeaderComment()}). Null comment is ignored.
+     */
+    public void comment(String text) throws IOException
+    {
+        checkOpen();
+        if ((text != null) && hasLineBreak(text.replace(_config.getLineSeparator(), "")))
+        {
+            throw new IllegalArgumentException("Invalid comment: " + text);
+        }
+
+        if (text != null)
+        {
+            writeComment();
+            _comment = text;
+        }
+
+        checkError();
+    }
+
+    @Override public void flush() throws IOException
+    {
+        checkOpen();
+        _output.flush();
+        checkError();
+    }
+
+    /**
+     * Option of the current section. Options before the first section go
+     * to the global section, when it is enabled (see
+     * {@link Config#isGlobalSection()}). Null value is written as an
+     * option without value, so it requires {@link Config#isEmptyOption()}.
+     */
+    public void option(String name, String value) throws IOException
+    {
+        checkOpen();
+        if (_section == null)
+        {
+            if (!_config.isGlobalSection())
+            {
+                throw new IllegalStateException("Option outside of a section: " + name);
+            }
+
+            section(_config.getGlobalSectionName());
+        }
+
+        if ((name == null) || (name.length() == 0) || (IniParser.COMMENTS.indexOf(name.charAt(0)) >= 0)
+              || (name.charAt(0) == IniParser.SECTION_BEGIN) || (!_config.isEscape() && (hasLineBreak(name) || hasOperator(name))))
+        {
+            throw new IllegalArgumentException("Invalid option name: " + name);
+        }
+
+        if ((value == null) ? !_config.isEmptyOption()
+                            : ((!_config.isEscape() || _config.isEscapeKeyOnly()) && (hasLineBreak(value) || hasContinuation(value))))
+        {
+            throw new IllegalArgumentException("Invalid value of option " + name + ": " + value);
+        }
+
+        writeComment();
+        _formatter.handleOption(name, value);
+        checkError();
+    }
+
+    /**
+     * Ends the current section (if any) and starts a new one. The global
+     * section can only be the first section of the file.
+     */
+    public void section(String name) throws IOException
+    {
+        checkOpen();
+        if ((name == null) || ((name.length() == 0) && !_config.isUnnamedSection()) || (!_config.isEscape() && hasLineBreak(name)))
+        {
+            throw new IllegalArgumentException("Invalid section name: " + name);
+        }
+
+        if ((_section != null) && _config.isGlobalSection() && name.equals(_config.getGlobalSectionName()))
+        {
+            throw new IllegalStateException("Global section after section: " + _section);
+        }
+
+        if (_section != null)
+        {
+            _formatter.endSection();
+        }
+
+        writeComment();
+        _formatter.startSection(name);
+        _section = name;
+        checkError();
+    }
+
+    private boolean hasContinuation(String text)
+    {
+        return (text.length() != 0) && (text.charAt(text.length() - 1) == ESCAPE_CHAR);
+    }
+
+    private boolean hasLineBreak(String text)
+    {
+        return (text.indexOf('\n') >= 0) || (text.indexOf('\r') >= 0);
+    }
+
+    private boolean hasOperator(String text)
+    {
+        boolean ret = false;
+
+        for (int i = 0; i < IniParser.OPERATORS.length(); i++)
+        {
+            ret |= text.indexOf(IniParser.OPERATORS.charAt(i)) >= 0;
+        }
+
+        return ret;
+    }
+
+    private void writeComment()
+    {
+        if (_comment != null)
+        {
+            _formatter.handleComment(_comment);
+            _comment = null;
+        }
+    }
+
+    private void checkError() throws IOException
+    {
+        if (_sink.getError() != null)
+        {
+            throw _sink.getError();
+        }
+    }
+
+    private void checkOpen() throws IOException
+    {
+        if (_closed)
+        {
+            throw new IOException("Writer closed");
+        }
+    }
+
+    /**
+     * Writer which keeps the first error of the underlying writer, as the
+     * print writer of the formatter only sets an error flag.
+     */
+    private static final class Sink extends Writer
+    {
+        private IOException _error;
+        private final Writer _out;
+
+        private Sink(Writer out)
+        {
+            _out = out;
+        }
+
+        @Override public void close() throws IOException
+        {
+            try
+            {
+                _out.close();
+            }
+            catch (IOException x)
+            {
+                throw failed(x);
+            }
+        }
+
+        @Override public void flush() throws IOException
+        {
+            try
+            {
+                _out.flush();
+            }
+            catch (IOException x)
+            {
+                throw failed(x);
+            }
+        }
+
+        @Override public void write(char[] cbuf, int off, int len) throws IOException
+        {
+            try
+            {
+                _out.write(cbuf, off, len);
+            }
+            catch (IOException x)
+            {
+                throw failed(x);
+            }
+        }
+
+        @Override public void write(String str, int off, int len) throws IOException
+        {
+            try
+            {
+                _out.write(str, off, len);
+            }
+            catch (IOException x)
+            {
+                throw failed(x);
+            }
+        }
+
+        private IOException getError()
+        {
+            return _error;
+        }
+
+        private IOException failed(IOException x)
+        {
+            if (_error == null)
+            {
+                _error = x;
+            }
+
+            return x;
+        }
+    }
+}
@@ -0,0 +1,204 @@
+/*
+ * Copyright 2005,2009 Ivan SZKIBA
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ini4j.spi;
+
+import org.ini4j.Config;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.Reader;
+
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CodingErrorAction;
+
+/**
+ * Reader over a memory mapped file.
+ *
+ * The file is mapped in large windows and decoded straight into the buffer
+ * passed to {@link #read(char[], int, int)}, without the intermediate byte
+ * and char buffers of the stream based readers. With BOM detection enabled
+ * the encoding is chosen the same way as by {@link UnicodeInputStreamReader},
+ * otherwise the given charset is used as is.
+ *
+ * Mapped regions are released by the garbage collector, not by
+ * {@link #close()}.
+ */
+public class MappedFileReader extends Reader
+{
+    static final int WINDOW_SIZE = 0x4000000;
+    private ByteBuffer _bytes;
+    private final FileChannel _channel;
+    private final CharsetDecoder _decoder;
+    private final long _end;
+    private boolean _eof;
+    private boolean _flush;
+    private long _offset;
+    private final boolean _shared;
+    private final int _windowSize;
+
+    public MappedFileReader(File file, Charset encoding, boolean detectBom) throws IOException
+    {
+        this(file, encoding, detectBom, WINDOW_SIZE);
+    }
+
+    MappedFileReader(File file, Charset encoding, boolean detectBom, int windowSize) throws IOException
+    {
+        _channel = new FileInputStream(file).getChannel();
+        _windowSize = windowSize;
+        _shared = false;
+        Charset charset = encoding;
+        int skip = 0;
+
+        try
+        {
+            _end = _channel.size();
+            map(0);
+            if (detectBom)
+            {
+                byte[] data = new byte[UnicodeInputStreamReader.BOM_SIZE];
+
+                _bytes.get(data, 0, Math.min(data.length, _bytes.remaining()));
+                UnicodeInputStreamReader.Bom bom = UnicodeInputStreamReader.Bom.find(data);
+
+                if (bom != null)
+                {
+                    charset = bom.getCharset();
+                    skip = bom.getSize();
+                }
+
+                _bytes.position(skip);
+            }
+        }
+        catch (IOException x)
+        {
+            _channel.close();
+
+            throw x;
+        }
+
+        _decoder = newDecoder(charset);
+    }
+
+    /**
+     * Reader over the [start, end) byte range of an already open channel,
+     * without BOM detection. Closing the reader leaves the channel open.
+     */
+    MappedFileReader(FileChannel channel, long start, long end, Charset charset) throws IOException
+    {
+        _channel = channel;
+        _end = end;
+        _windowSize = WINDOW_SIZE;
+        _shared = true;
+        _decoder = newDecoder(charset);
+        map(start);
+    }
+
+    /**
+     * Reader over the remaining bytes of a buffer (a slice of a mapped window
+     * or bytes read into the heap), without BOM detection.
+     */
+    MappedFileReader(ByteBuffer bytes, Charset charset)
+    {
+        _channel = null;
+        _bytes = bytes.slice();
+        _end = _bytes.limit();
+        _windowSize = _bytes.limit();
+        _shared = true;
+        _decoder = newDecoder(charset);
+    }
+
+    /**
+     * Returns true if the file should be loaded through this reader
+     * according to the {@link Config#getMmapThreshold()} setting.
+     */
+    public static boolean isMapped(File file, Config config)
+    {
+        long threshold = config.getMmapThreshold();
+
+        return (threshold >= 0) && file.isFile() && (file.length() >= threshold);
+    }
+
+    @Override public void close() throws IOException
+    {
+        _bytes = null;
+        if (!_shared)
+        {
+            _channel.close();
+        }
+    }
+
+    @Override public int read(char[] cbuf, int off, int len) throws IOException
+    {
+        if (_bytes == null)
+        {
+            throw new IOException("Stream closed");
+        }
+
+        CharBuffer out = CharBuffer.wrap(cbuf, off, len);
+
+        while (out.hasRemaining() && !_eof)
+        {
+            if (_flush)
+            {
+                if (_decoder.flush(out).isOverflow())
+                {
+                    break;
+                }
+
+                _eof = true;
+            }
+            else
+            {
+                boolean last = (_offset + _bytes.limit()) == _end;
+
+                if (_decoder.decode(_bytes, out, last).isOverflow())
+                {
+                    break;
+                }
+
+                if (last)
+                {
+                    _flush = true;
+                }
+                else
+                {
+                    // remap from the first byte not decoded yet (may be a partial char)
+                    map(_offset + _bytes.position());
+                }
+            }
+        }
+
+        int n = out.position() - off;
+
+        return ((n == 0) && _eof) ? -1 : n;
+    }
+
+    private static CharsetDecoder newDecoder(Charset charset)
+    {
+        return charset.newDecoder().onMalformedInput(CodingErrorAction.REPLACE).onUnmappableCharacter(CodingErrorAction.REPLACE);
+    }
+
+    private void map(long offset) throws IOException
+    {
+        _offset = offset;
+        _bytes = _channel.map(FileChannel.MapMode.READ_ONLY, offset, Math.min(_windowSize, _end - offset));
+    }
+}
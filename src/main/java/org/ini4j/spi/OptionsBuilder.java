@@ -46,6 +46,8 @@ public class OptionsBuilder implements OptionsHandler
         {
             setHeaderComment();
         }
+
+        _options.trimToSize();
     }
 
     @Override public void handleComment(String comment)
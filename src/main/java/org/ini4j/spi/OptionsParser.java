@@ -19,6 +19,7 @@ package org.ini4j.spi;
 import org.ini4j.Config;
 import org.ini4j.InvalidFileFormatException;
 
+import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.Reader;
@@ -49,6 +50,18 @@ public class OptionsParser extends AbstractParser
         return instance;
     }
 
+    public void parse(File input, OptionsHandler handler) throws IOException, InvalidFileFormatException
+    {
+        if (MappedFileReader.isMapped(input, getConfig()))
+        {
+            parse(newIniSource(input, handler), handler);
+        }
+        else
+        {
+            parse(input.toURI().toURL(), handler);
+        }
+    }
+
     public void parse(InputStream input, OptionsHandler handler) throws IOException, InvalidFileFormatException
     {
         parse(newIniSource(input, handler), handler);
@@ -0,0 +1,490 @@
+/*
+ * Copyright 2005,2009 Ivan SZKIBA
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ini4j.spi;
+
+import org.ini4j.Config;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.Reader;
+
+import java.net.URL;
+
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+/**
+ * Parallel parser driver for large local files.
+ *
+ * A byte level pre-scan splits the file at lines starting with
+ * <code>[</code> (section lines), skipping lines that are continuations of
+ * a previous line or comments. Each chunk is parsed on a shared fork-join
+ * pool by {@link IniParser#parseChunk} into an event list, and the event
+ * lists are replayed into the real handler in file order. The handler
+ * therefore sees exactly the same events as with sequential parsing,
+ * including comments and repeated sections. The first chunk covers
+ * everything before the first split point, so options of the global
+ * section are parsed (or rejected) there, as usual.
+ *
+ * On a parse error the events before the error are replayed, then the
+ * exception is thrown, like the sequential parser does.
+ *
+ * Sequential parsing is used instead when includes are enabled (an include
+ * may pull in sections anywhere), when the file is not in UTF-8, US-ASCII
+ * or ISO-8859-1 (or has a non UTF-8 BOM), or when the file has no split
+ * point at all.
+ */
+class ParallelIniLoader
+{
+    static final long MIN_CHUNK_SIZE = 0x100000L;
+    private static final int CHUNKS_PER_THREAD = 4;
+    private static final List<String> ASCII_COMPATIBLE = Arrays.asList("UTF-8", "US-ASCII", "ISO-8859-1");
+    private final long _chunkSize;
+    private final File _file;
+    private final IniParser _parser;
+
+    ParallelIniLoader(IniParser parser, File file)
+    {
+        this(parser, file, Math.max(MIN_CHUNK_SIZE, file.length() / (getPool().getParallelism() * CHUNKS_PER_THREAD)));
+    }
+
+    ParallelIniLoader(IniParser parser, File file, long chunkSize)
+    {
+        _parser = parser;
+        _file = file;
+        _chunkSize = chunkSize;
+    }
+
+    static boolean isParallel(File file, Config config)
+    {
+        long threshold = config.getParallelThreshold();
+
+        return (threshold >= 0) && !config.isInclude() && file.isFile() && (file.length() >= threshold);
+    }
+
+    /**
+     * Parses the file in parallel. Returns false, without calling the
+     * handler, if the file has to be parsed sequentially.
+     */
+    boolean load(IniHandler handler) throws IOException
+    {
+        FileChannel channel = new FileInputStream(_file).getChannel();
+        boolean ret = false;
+
+        try
+        {
+            long start = 0;
+            Charset charset = _parser.getConfig().getFileEncoding();
+            UnicodeInputStreamReader.Bom bom = readBom(channel);
+
+            if (bom != null)
+            {
+                charset = bom.getCharset();
+                start = bom.getSize();
+            }
+
+            if (isAsciiCompatible(charset))
+            {
+                List<Chunk> chunks = new Splitter(_parser.getComments(), _parser.getConfig().isEscapeNewline(), _chunkSize).split(channel,
+                        start);
+
+                if (chunks.size() > 1)
+                {
+                    parse(channel, charset, chunks, handler);
+                    ret = true;
+                }
+            }
+        }
+        finally
+        {
+            channel.close();
+        }
+
+        return ret;
+    }
+
+    /**
+     * True if line ends, spaces, backslashes and brackets are single bytes
+     * that never occur inside other characters, so the {@link Splitter} can
+     * work on the raw bytes.
+     */
+    static boolean isAsciiCompatible(Charset charset)
+    {
+        return ASCII_COMPATIBLE.contains(charset.name());
+    }
+
+    static UnicodeInputStreamReader.Bom readBom(FileChannel channel) throws IOException
+    {
+        byte[] data = new byte[UnicodeInputStreamReader.BOM_SIZE];
+
+        channel.read(ByteBuffer.wrap(data), 0);
+
+        return UnicodeInputStreamReader.Bom.find(data);
+    }
+
+    private static ForkJoinPool getPool()
+    {
+        return PoolHolder.POOL;
+    }
+
+    private void parse(FileChannel channel, Charset charset, List<Chunk> chunks, IniHandler handler) throws IOException
+    {
+        URL base = _file.toURI().toURL();
+        List<Future<Recorder>> results = new ArrayList<Future<Recorder>>(chunks.size());
+
+        for (Chunk chunk : chunks)
+        {
+            results.add(getPool().submit(new ChunkTask(channel, charset, base, chunk)));
+        }
+
+        try
+        {
+            handler.startIni();
+            for (Future<Recorder> result : results)
+            {
+                result.get().replay(handler);
+            }
+
+            handler.endIni();
+        }
+        catch (InterruptedException x)
+        {
+            Thread.currentThread().interrupt();
+
+            throw (IOException) new InterruptedIOException().initCause(x);
+        }
+        catch (ExecutionException x)
+        {
+            Throwable cause = x.getCause();
+
+            if (cause instanceof IOException)
+            {
+                throw (IOException) cause;
+            }
+            else if (cause instanceof RuntimeException)
+            {
+                throw (RuntimeException) cause;
+            }
+
+            throw (Error) cause;
+        }
+        finally
+        {
+            for (Future<Recorder> result : results)
+            {
+                result.cancel(false);
+            }
+        }
+    }
+
+    static final class Chunk
+    {
+        private final long _end;
+        private final int _lineNumber;
+        private final long _start;
+
+        private Chunk(long start, long end, int lineNumber)
+        {
+            _start = start;
+            _end = end;
+            _lineNumber = lineNumber;
+        }
+
+        long getEnd()
+        {
+            return _end;
+        }
+
+        int getLineNumber()
+        {
+            return _lineNumber;
+        }
+
+        long getStart()
+        {
+            return _start;
+        }
+    }
+
+    private static final class PoolHolder
+    {
+        private static final ForkJoinPool POOL = new ForkJoinPool();
+    }
+
+    private final class ChunkTask implements Callable<Recorder>
+    {
+        private final URL _base;
+        private final FileChannel _channel;
+        private final Charset _charset;
+        private final Chunk _chunk;
+
+        private ChunkTask(FileChannel channel, Charset charset, URL base, Chunk chunk)
+        {
+            _channel = channel;
+            _charset = charset;
+            _base = base;
+            _chunk = chunk;
+        }
+
+        @Override public Recorder call() throws IOException
+        {
+            Recorder recorder = new Recorder();
+            Reader reader = new MappedFileReader(_channel, _chunk.getStart(), _chunk.getEnd(), _charset);
+
+            try
+            {
+                _parser.parseChunk(reader, _base, _chunk.getLineNumber(), recorder);
+            }
+            catch (IOException x)
+            {
+                recorder._failure = x;
+            }
+            catch (RuntimeException x)
+            {
+                recorder._failure = x;
+            }
+            finally
+            {
+                reader.close();
+            }
+
+            return recorder;
+        }
+    }
+
+    /**
+     * Records handler events in two parallel arrays: event types and
+     * arguments (two per event).
+     */
+    private static final class Recorder implements IniHandler
+    {
+        private static final byte COMMENT = 0;
+        private static final byte END_SECTION = 1;
+        private static final byte OPTION = 2;
+        private static final byte START_SECTION = 3;
+        private static final int INITIAL_SIZE = 0x100;
+        private String[] _args = new String[INITIAL_SIZE * 2];
+        private Exception _failure;
+        private int _size;
+        private byte[] _types = new byte[INITIAL_SIZE];
+
+        @Override public void endIni()
+        {
+            assert true;
+        }
+
+        @Override public void endSection()
+        {
+            add(END_SECTION, null, null);
+        }
+
+        @Override public void handleComment(String comment)
+        {
+            add(COMMENT, comment, null);
+        }
+
+        @Override public void handleOption(String optionName, String optionValue)
+        {
+            add(OPTION, optionName, optionValue);
+        }
+
+        @Override public void startIni()
+        {
+            assert true;
+        }
+
+        @Override public void startSection(String sectionName)
+        {
+            add(START_SECTION, sectionName, null);
+        }
+
+        private void add(byte type, String arg1, String arg2)
+        {
+            if (_size == _types.length)
+            {
+                _types = Arrays.copyOf(_types, _size * 2);
+                _args = Arrays.copyOf(_args, _size * 4);
+            }
+
+            _types[_size] = type;
+            _args[_size * 2] = arg1;
+            _args[(_size * 2) + 1] = arg2;
+            _size++;
+        }
+
+        private void replay(IniHandler handler) throws IOException
+        {
+            for (int i = 0; i < _size; i++)
+            {
+                String arg = _args[i * 2];
+
+                switch (_types[i])
+                {
+
+                    case COMMENT:
+                        handler.handleComment(arg);
+                        break;
+
+                    case END_SECTION:
+                        handler.endSection();
+                        break;
+
+                    case OPTION:
+                        handler.handleOption(arg, _args[(i * 2) + 1]);
+                        break;
+
+                    default:
+                        handler.startSection(arg);
+                        break;
+                }
+            }
+
+            if (_failure instanceof IOException)
+            {
+                throw (IOException) _failure;
+            }
+            else if (_failure != null)
+            {
+                throw (RuntimeException) _failure;
+            }
+        }
+    }
+
+    /**
+     * Byte level line scanner finding the split points. Uses the same line
+     * rules as {@link IniSource}: lines are trimmed, blank lines are skipped
+     * (also inside a continuation), a line ending with an odd number of
+     * backslashes continues on the next line, and comment lines never start
+     * a continuation. All bytes of a multi-byte UTF-8 sequence are above
+     * 0x7f, so they can not be mistaken for line ends, spaces, backslashes or
+     * brackets.
+     */
+    static final class Splitter
+    {
+        private static final int CR = '\r';
+        private static final int LF = '\n';
+        private static final int SPACE = ' ';
+        private static final int ESCAPE = '\\';
+        private static final int BYTE_MASK = 0xff;
+        private final long _chunkSize;
+        private final List<Chunk> _chunks = new ArrayList<Chunk>();
+        private long _chunkStart;
+        private int _chunkLineNumber;
+        private final String _comments;
+        private int _escapes;
+        private final boolean _escapeNewline;
+        private int _first;
+        private long _lineStart;
+        private int _lineNumber;
+        private long _next;
+        private boolean _pending;
+
+        Splitter(String comments, boolean escapeNewline, long chunkSize)
+        {
+            _comments = comments;
+            _escapeNewline = escapeNewline;
+            _chunkSize = chunkSize;
+        }
+
+        List<Chunk> split(FileChannel channel, long start) throws IOException
+        {
+            long size = channel.size();
+            boolean cr = false;
+
+            _chunkStart = start;
+            _lineStart = start;
+            _next = start + _chunkSize;
+            _first = -1;
+            for (long offset = start; offset < size; offset += MappedFileReader.WINDOW_SIZE)
+            {
+                ByteBuffer bytes = channel.map(FileChannel.MapMode.READ_ONLY, offset, Math.min(MappedFileReader.WINDOW_SIZE, size - offset));
+
+                for (int i = 0, n = bytes.limit(); i < n; i++)
+                {
+                    int b = bytes.get(i) & BYTE_MASK;
+
+                    if ((b == LF) && cr)
+                    {
+                        _lineStart = offset + i + 1;
+                        cr = false;
+                    }
+                    else if ((b == LF) || (b == CR))
+                    {
+                        endLine();
+                        _lineStart = offset + i + 1;
+                        cr = b == CR;
+                    }
+                    else
+                    {
+                        cr = false;
+                        if (b > SPACE)
+                        {
+                            if (_first < 0)
+                            {
+                                _first = b;
+                            }
+
+                            _escapes = (b == ESCAPE) ? (_escapes + 1) : 0;
+                        }
+                    }
+                }
+            }
+
+            if (_lineStart < size)
+            {
+                endLine();
+            }
+
+            _chunks.add(new Chunk(_chunkStart, size, _chunkLineNumber));
+
+            return _chunks;
+        }
+
+        private void endLine()
+        {
+            if (_first >= 0)
+            {
+                if (_pending || (_comments.indexOf(_first) < 0))
+                {
+                    if (!_pending && (_first == IniParser.SECTION_BEGIN) && (_lineStart >= _next))
+                    {
+                        _chunks.add(new Chunk(_chunkStart, _lineStart, _chunkLineNumber));
+                        _chunkStart = _lineStart;
+                        _chunkLineNumber = _lineNumber;
+                        _next = _lineStart + _chunkSize;
+                    }
+
+                    _pending = _escapeNewline && ((_escapes & 1) == 1);
+                }
+            }
+
+            _lineNumber++;
+            _first = -1;
+            _escapes = 0;
+        }
+    }
+}
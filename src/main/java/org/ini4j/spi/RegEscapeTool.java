@@ -32,6 +32,8 @@ public class RegEscapeTool extends EscapeTool
     private static final int LOWER_DIGIT = 0x0f;
     private static final int UPPER_DIGIT = 0xf0;
     private static final int DIGIT_SIZE = 4;
+    private static final int HEX_CHARS_PER_CHAR = 6;
+    private static final String HEX_TERMINATOR = "00,00";
 
     public static final RegEscapeTool getInstance()
     {
@@ -165,7 +167,7 @@ public class RegEscapeTool extends EscapeTool
 
     String hexadecimal(String value)
     {
-        StringBuilder buff = new StringBuilder();
+        StringBuilder buff = new StringBuilder((value == null) ? 0 : ((value.length() * HEX_CHARS_PER_CHAR) + HEX_TERMINATOR.length()));
 
         if ((value != null) && (value.length() != 0))
         {
@@ -173,12 +175,12 @@ public class RegEscapeTool extends EscapeTool
 
             for (int i = 0; i < bytes.length; i++)
             {
-                buff.append(Character.forDigit((bytes[i] & UPPER_DIGIT) >> DIGIT_SIZE, HEX_RADIX));
-                buff.append(Character.forDigit(bytes[i] & LOWER_DIGIT, HEX_RADIX));
+                buff.append(HEX[(bytes[i] & UPPER_DIGIT) >> DIGIT_SIZE]);
+                buff.append(HEX[bytes[i] & LOWER_DIGIT]);
                 buff.append(',');
             }
 
-            buff.append("00,00");
+            buff.append(HEX_TERMINATOR);
         }
 
         return buff.toString();
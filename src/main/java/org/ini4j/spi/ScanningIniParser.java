@@ -0,0 +1,186 @@
+/*
+ * Copyright 2005,2009 Ivan SZKIBA
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ini4j.spi;
+
+import org.ini4j.InvalidFileFormatException;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+
+import java.net.URL;
+
+import java.util.Locale;
+
+/**
+ * Low garbage {@link IniParser} implementation.
+ *
+ * Reads the input into a reusable char buffer and locates comments, section
+ * brackets and operators as offsets in that buffer, so strings are only
+ * created for the section names, option names, option values and comments
+ * passed to the handler. The result is the same as with {@link IniParser}.
+ *
+ * To use this parser instead of the default one, set the
+ * <code>org.ini4j.spi.IniParser</code> system property (or the
+ * <code>META-INF/services/org.ini4j.spi.IniParser</code> resource) to
+ * <code>org.ini4j.spi.ScanningIniParser</code>. Combined with memory mapped
+ * loading (see {@link org.ini4j.Config#getMmapThreshold()}) the file is
+ * decoded straight into the scanner buffer.
+ */
+public class ScanningIniParser extends IniParser
+{
+    private char[] _buffer;
+
+    @Override public void parse(File input, IniHandler handler) throws IOException, InvalidFileFormatException
+    {
+        boolean parallel = ParallelIniLoader.isParallel(input, getConfig()) && new ParallelIniLoader(this, input).load(handler);
+
+        if (!parallel)
+        {
+            if (MappedFileReader.isMapped(input, getConfig()))
+            {
+                parse(newIniScanner(input, getBuffer()), handler);
+            }
+            else
+            {
+                parse(input.toURI().toURL(), handler);
+            }
+        }
+    }
+
+    @Override public void parse(InputStream input, IniHandler handler) throws IOException, InvalidFileFormatException
+    {
+        parse(new UnicodeInputStreamReader(input, getConfig().getFileEncoding()), handler);
+    }
+
+    @Override public void parse(Reader input, IniHandler handler) throws IOException, InvalidFileFormatException
+    {
+        parse(newIniScanner(input, getBuffer()), handler);
+    }
+
+    @Override public void parse(URL input, IniHandler handler) throws IOException, InvalidFileFormatException
+    {
+        parse(newIniScanner(input, getBuffer()), handler);
+    }
+
+    /**
+     * Chunks are parsed concurrently, so each gets its own buffer.
+     */
+    @Override void parseChunk(Reader input, URL base, int lineNumber, IniHandler handler) throws IOException, InvalidFileFormatException
+    {
+        IniScanner scanner = newIniScanner(input, base, new char[IniScanner.DEFAULT_BUFFER_SIZE]);
+
+        scanner.setLineNumber(lineNumber);
+        parseSections(scanner, handler);
+    }
+
+    private char[] getBuffer()
+    {
+        if (_buffer == null)
+        {
+            _buffer = new char[IniScanner.DEFAULT_BUFFER_SIZE];
+        }
+
+        return _buffer;
+    }
+
+    private void parse(IniScanner scanner, IniHandler handler) throws IOException, InvalidFileFormatException
+    {
+        handler.startIni();
+        parseSections(scanner, handler);
+        handler.endIni();
+    }
+
+    private void parseSections(IniScanner scanner, IniHandler handler) throws IOException, InvalidFileFormatException
+    {
+        String sectionName = null;
+
+        try
+        {
+            for (IniScanner.Token token = scanner.next(); token != null; token = scanner.next())
+            {
+                if (token == IniScanner.Token.COMMENT)
+                {
+                    handler.handleComment(scanner.getComment());
+                }
+                else if (scanner.getLine()[scanner.getLineStart()] == SECTION_BEGIN)
+                {
+                    if (sectionName != null)
+                    {
+                        handler.endSection();
+                    }
+
+                    sectionName = parseSectionLine(scanner, handler);
+                }
+                else
+                {
+                    if (sectionName == null)
+                    {
+                        if (getConfig().isGlobalSection())
+                        {
+                            sectionName = getConfig().getGlobalSectionName();
+                            handler.startSection(sectionName);
+                        }
+                        else
+                        {
+                            parseError(scanner.lineToString(), scanner.getUrl(), scanner.getLineNumber());
+                        }
+                    }
+
+                    parseOptionLine(scanner, handler);
+                }
+            }
+        }
+        finally
+        {
+            scanner.close();
+        }
+
+        if (sectionName != null)
+        {
+            handler.endSection();
+        }
+    }
+
+    private String parseSectionLine(IniScanner scanner, IniHandler handler) throws InvalidFileFormatException
+    {
+        char[] line = scanner.getLine();
+        int start = scanner.getLineStart();
+        int end = scanner.getLineEnd();
+
+        if (line[end - 1] != SECTION_END)
+        {
+            parseError(scanner.lineToString(), scanner.getUrl(), scanner.getLineNumber());
+        }
+
+        String sectionName = unescapeKey(trimmed(line, start + 1, end - 1));
+
+        if ((sectionName.length() == 0) && !getConfig().isUnnamedSection())
+        {
+            parseError(scanner.lineToString(), scanner.getUrl(), scanner.getLineNumber());
+        }
+
+        if (getConfig().isLowerCaseSection())
+        {
+            sectionName = sectionName.toLowerCase(Locale.getDefault());
+        }
+
+        handler.startSection(sectionName);
+
+        return sectionName;
+    }
+}
@@ -0,0 +1,207 @@
+/*
+ * Copyright 2005,2009 Ivan SZKIBA
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ini4j.spi;
+
+import org.ini4j.Config;
+import org.ini4j.InvalidFileFormatException;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.Reader;
+
+import java.net.URL;
+
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+
+import java.util.List;
+
+/**
+ * Byte offsets of the sections of a local ini file.
+ *
+ * The file is split at every section line with the same byte level scan as
+ * the parallel loader uses, so building the index does not parse options.
+ * Entry 0 holds the lines before the first section line (header comment,
+ * global section), every other entry one section line and the lines after
+ * it up to the next section line. Entries can then be parsed one by one with
+ * {@link #parse(int, IniHandler)}.
+ *
+ * The index is only valid as long as the file is not modified.
+ */
+public class SectionIndex
+{
+    private static final int NAME_BUFFER_SIZE = 0x100;
+    private static final long NAME_WINDOW_MARGIN = 0x10000L;
+    private static final long READ_THRESHOLD = 0x100000L;
+    private final URL _base;
+    private final Charset _charset;
+    private final List<ParallelIniLoader.Chunk> _chunks;
+    private final Config _config;
+    private final File _file;
+    private final String[] _names;
+
+    private SectionIndex(File file, Config config, Charset charset, List<ParallelIniLoader.Chunk> chunks) throws IOException
+    {
+        _file = file;
+        _config = config;
+        _charset = charset;
+        _chunks = chunks;
+        _base = file.toURI().toURL();
+        _names = new String[chunks.size()];
+    }
+
+    /**
+     * Builds the index, or returns null if the file can not be indexed:
+     * includes are enabled, or the file encoding is not UTF-8, US-ASCII or
+     * ISO-8859-1. A malformed section line is reported here, malformed option
+     * lines only when their entry is parsed.
+     */
+    public static SectionIndex newInstance(File file, Config config) throws IOException, InvalidFileFormatException
+    {
+        SectionIndex ret = null;
+
+        if (!config.isInclude() && file.isFile())
+        {
+            FileChannel channel = new FileInputStream(file).getChannel();
+
+            try
+            {
+                long start = 0;
+                Charset charset = config.getFileEncoding();
+                UnicodeInputStreamReader.Bom bom = ParallelIniLoader.readBom(channel);
+
+                if (bom != null)
+                {
+                    charset = bom.getCharset();
+                    start = bom.getSize();
+                }
+
+                if (ParallelIniLoader.isAsciiCompatible(charset))
+                {
+                    ret = new SectionIndex(file, config, charset,
+                            new ParallelIniLoader.Splitter(new IniParser().getComments(), config.isEscapeNewline(), 0).split(channel, start));
+                    ret.readNames(channel);
+                }
+            }
+            finally
+            {
+                channel.close();
+            }
+        }
+
+        return ret;
+    }
+
+    /**
+     * Section name of the entry, null for entry 0.
+     */
+    public String getName(int index)
+    {
+        return _names[index];
+    }
+
+    public int size()
+    {
+        return _chunks.size();
+    }
+
+    public File getFile()
+    {
+        return _file;
+    }
+
+    /**
+     * Parses the lines of the entry with the parser configured for the
+     * index. Entries below 1MB are read into the heap instead of being
+     * mapped, so looking up many sections does not pile up mappings.
+     * Only section and option events (and comments) are reported,
+     * {@link IniHandler#startIni()} and {@link IniHandler#endIni()} are
+     * not called.
+     */
+    public void parse(int index, IniHandler handler) throws IOException, InvalidFileFormatException
+    {
+        ParallelIniLoader.Chunk chunk = _chunks.get(index);
+        FileChannel channel = new FileInputStream(_file).getChannel();
+
+        try
+        {
+            long length = chunk.getEnd() - chunk.getStart();
+            Reader reader;
+
+            if (length < READ_THRESHOLD)
+            {
+                ByteBuffer bytes = ByteBuffer.allocate((int) length);
+                int n = 0;
+
+                while (bytes.hasRemaining() && (n >= 0))
+                {
+                    n = channel.read(bytes, chunk.getStart() + bytes.position());
+                }
+
+                bytes.flip();
+                reader = new MappedFileReader(bytes, _charset);
+            }
+            else
+            {
+                reader = new MappedFileReader(channel, chunk.getStart(), chunk.getEnd(), _charset);
+            }
+
+            IniParser.newInstance(_config).parseChunk(reader, _base, chunk.getLineNumber(), handler);
+        }
+        finally
+        {
+            channel.close();
+        }
+    }
+
+    /**
+     * Reads the section lines from a few large windows rather than mapping
+     * every section separately: mapped regions are only released by the
+     * garbage collector, so one mapping per section could exhaust the
+     * address space of the process on big files.
+     */
+    private void readNames(FileChannel channel) throws IOException, InvalidFileFormatException
+    {
+        char[] buffer = new char[NAME_BUFFER_SIZE];
+        long size = channel.size();
+        ByteBuffer window = null;
+        long windowStart = 0;
+        long windowEnd = 0;
+
+        for (int i = 1; i < _names.length; i++)
+        {
+            ParallelIniLoader.Chunk chunk = _chunks.get(i);
+            long start = chunk.getStart();
+
+            if ((start + Math.min(chunk.getEnd() - start, NAME_WINDOW_MARGIN)) > windowEnd)
+            {
+                windowStart = start;
+                windowEnd = Math.min(size, start + MappedFileReader.WINDOW_SIZE);
+                window = channel.map(FileChannel.MapMode.READ_ONLY, windowStart, windowEnd - windowStart);
+            }
+
+            window.limit((int) (Math.min(chunk.getEnd(), windowEnd) - windowStart));
+            window.position((int) (start - windowStart));
+            IniReader reader = new IniReader(new MappedFileReader(window, _charset), _base, chunk.getLineNumber(), buffer, _config);
+
+            reader.next();
+            _names[i] = reader.getSection();
+            window.clear();
+        }
+    }
+}
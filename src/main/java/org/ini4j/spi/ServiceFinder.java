@@ -19,15 +19,53 @@ import java.io.BufferedReader;
 import java.io.InputStream;
 import java.io.InputStreamReader;
 
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.ref.Reference;
+import java.lang.ref.WeakReference;
+import java.lang.reflect.Modifier;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
 /**
  * JDK JAR Services API alap� service keres� oszt�ly.
  *
  * @author Szkiba Iv�n
  * @version $Name:  $
  */
-final class ServiceFinder
+public final class ServiceFinder
 {
     private static final String SERVICES_PATH = "META-INF/services/";
+    private static final String NO_SERVICE = "";
+    private static final Map<ClassLoader, Cache> CACHES = new WeakHashMap<ClassLoader, Cache>();
+    private static final ClassValue<MethodHandle> CONSTRUCTORS = new ClassValue<MethodHandle>()
+        {
+            @Override protected MethodHandle computeValue(Class<?> type)
+            {
+                MethodHandle ret = null;
+
+                if (!Modifier.isAbstract(type.getModifiers()))
+                {
+                    try
+                    {
+                        ret = MethodHandles.publicLookup().findConstructor(type, MethodType.methodType(Void.TYPE)).asType(
+                                MethodType.methodType(Object.class));
+                    }
+                    catch (ReflectiveOperationException x)
+                    {
+                        assert true;
+                    }
+                }
+
+                return ret;
+            }
+        };
+    private static final ConcurrentMap<Class<?>, ServiceFactory<?>> FACTORIES = new ConcurrentHashMap<Class<?>, ServiceFactory<?>>();
 
     private ServiceFinder()
     {
@@ -54,13 +92,19 @@ final class ServiceFinder
      */
     static <T> T findService(Class<T> clazz)
     {
+        ServiceFactory<?> factory = FACTORIES.get(clazz);
+
         try
         {
 
             // ez a cast nem lenne szükséges, de úgy a ClassCastException csak a hívónál jön...
-            return clazz.cast(findServiceClass(clazz).newInstance());
+            return clazz.cast((factory == null) ? newInstance(findServiceClass(clazz)) : factory.newInstance());
         }
-        catch (Exception x)
+        catch (Error x)
+        {
+            throw x;
+        }
+        catch (Throwable x)
         {
             throw (IllegalArgumentException) new IllegalArgumentException("Provider " + clazz.getName() + " could not be instantiated: " + x)
               .initCause(x);
@@ -78,7 +122,7 @@ final class ServiceFinder
         {
             try
             {
-                ret = (Class<T>) ((classLoader == null) ? Class.forName(serviceClassName) : classLoader.loadClass(serviceClassName));
+                ret = (Class<T>) loadClass(classLoader, serviceClassName);
             }
             catch (ClassNotFoundException x)
             {
@@ -110,12 +154,115 @@ final class ServiceFinder
 
         if (serviceClassName == null)
         {
-            serviceClassName = loadLine(SERVICES_PATH + serviceId);
+            serviceClassName = findServiceResource(serviceId);
         }
 
         return serviceClassName;
     }
 
+    /**
+     * Drops the cached service lookups, so the next lookups read the
+     * <code>META-INF/services</code> resources again. Call it after changing
+     * the resources visible to a class loader.
+     */
+    public static void invalidate()
+    {
+        synchronized (CACHES)
+        {
+            CACHES.clear();
+        }
+    }
+
+    /**
+     * Registers the factory of a service, used instead of the system
+     * property and <code>META-INF/services</code> lookup and the reflective
+     * instantiation. Register before the first use of the service, as some
+     * services (for example {@link BeanTool}) keep their instance.
+     */
+    public static <T> void register(Class<T> clazz, ServiceFactory<? extends T> factory)
+    {
+        FACTORIES.put(clazz, factory);
+    }
+
+    public static void unregister(Class<?> clazz)
+    {
+        FACTORIES.remove(clazz);
+    }
+
+    /**
+     * Service class name from the <code>META-INF/services</code> resource,
+     * read once per context class loader.
+     */
+    private static String findServiceResource(String serviceId)
+    {
+        Cache cache = getCache(Thread.currentThread().getContextClassLoader());
+        String ret;
+
+        synchronized (cache)
+        {
+            ret = cache._names.get(serviceId);
+            if (ret == null)
+            {
+                ret = loadLine(SERVICES_PATH + serviceId);
+                cache._names.put(serviceId, (ret == null) ? NO_SERVICE : ret);
+            }
+        }
+
+        return (ret == NO_SERVICE) ? null : ret;
+    }
+
+    private static Cache getCache(ClassLoader classLoader)
+    {
+        Cache ret;
+
+        synchronized (CACHES)
+        {
+            ret = CACHES.get(classLoader);
+            if (ret == null)
+            {
+                ret = new Cache();
+                CACHES.put(classLoader, ret);
+            }
+        }
+
+        return ret;
+    }
+
+    /**
+     * Loads the class, reusing the class loaded by the same class loader
+     * before.
+     */
+    private static Class<?> loadClass(ClassLoader classLoader, String className) throws ClassNotFoundException
+    {
+        Cache cache = getCache(classLoader);
+        Reference<Class<?>> ref;
+        Class<?> ret;
+
+        synchronized (cache)
+        {
+            ref = cache._classes.get(className);
+        }
+
+        ret = (ref == null) ? null : ref.get();
+        if (ret == null)
+        {
+            ret = (classLoader == null) ? Class.forName(className) : classLoader.loadClass(className);
+            synchronized (cache)
+            {
+                cache._classes.put(className, new WeakReference<Class<?>>(ret));
+            }
+        }
+
+        return ret;
+    }
+
+    private static Object newInstance(Class<?> clazz) throws Throwable
+    {
+        MethodHandle constructor = CONSTRUCTORS.get(clazz);
+
+        return (constructor == null) ? clazz.newInstance() : (Object) constructor.invokeExact();
+    }
+
     private static String loadLine(String servicePath)
     {
         String ret = null;
@@ -158,4 +305,14 @@ final class ServiceFinder
 
         return ret;
     }
+
+    /**
+     * Lookups of a class loader. The classes are referenced weakly, so
+     * the cache does not keep the class loader alive.
+     */
+    private static final class Cache
+    {
+        private final Map<String, Reference<Class<?>>> _classes = new HashMap<String, Reference<Class<?>>>();
+        private final Map<String, String> _names = new HashMap<String, String>();
+    }
 }
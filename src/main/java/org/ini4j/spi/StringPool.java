@@ -0,0 +1,85 @@
+/*
+ * Copyright 2005,2009 Ivan SZKIBA
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ini4j.spi;
+
+/**
+ * Bounded pool of strings, used to share one instance of the names and
+ * values repeated all over a file.
+ *
+ * The pool is an open addressing hash table that keeps at most the given
+ * number of strings. Once it is full, strings not already in the pool are
+ * returned as is: the strings of a repetitive file show up early, so the
+ * first ones seen are the ones worth keeping.
+ */
+final class StringPool
+{
+    static final int MAX_SIZE = 1 << 20;
+    static final int MAX_VALUE_LENGTH = 16;
+    private int _count;
+    private final int _mask;
+    private final int _size;
+    private final String[] _table;
+
+    StringPool(int size)
+    {
+        int capacity = Integer.highestOneBit(Math.max(Math.min(size, MAX_SIZE), 1)) << 2;
+
+        _size = Math.min(size, MAX_SIZE);
+        _table = new String[capacity];
+        _mask = capacity - 1;
+    }
+
+    /**
+     * Pooled instance equal to the string, or the string itself if the
+     * pool does not have one.
+     */
+    String intern(String value)
+    {
+        String ret = value;
+
+        if (value != null)
+        {
+            int h = value.hashCode();
+            int idx = (h ^ (h >>> 16)) & _mask;
+
+            while ((_table[idx] != null) && !value.equals(_table[idx]))
+            {
+                idx = (idx + 1) & _mask;
+            }
+
+            if (_table[idx] != null)
+            {
+                ret = _table[idx];
+            }
+            else if (_count < _size)
+            {
+                _table[idx] = value;
+                _count++;
+            }
+        }
+
+        return ret;
+    }
+
+    /**
+     * Pooled instance of a short value, long values are rarely repeated and
+     * are returned as is.
+     */
+    String internValue(String value)
+    {
+        return ((value == null) || (value.length() > MAX_VALUE_LENGTH)) ? value : intern(value);
+    }
+}
@@ -25,9 +25,9 @@ import java.nio.charset.Charset;
 
 class UnicodeInputStreamReader extends Reader
 {
-    private static final int BOM_SIZE = 4;
+    static final int BOM_SIZE = 4;
 
-    private static enum Bom
+    static enum Bom
     {
         UTF32BE("UTF-32BE", new byte[] { (byte) 0x00, (byte) 0x00, (byte) 0xFE, (byte) 0xFF }),
         UTF32LE("UTF-32LE", new byte[] { (byte) 0xFF, (byte) 0xFE, (byte) 0x00, (byte) 0x00 }),
@@ -52,7 +52,7 @@ class UnicodeInputStreamReader extends Reader
             _bytes = bytes;
         }
 
-        private static Bom find(byte[] data)
+        static Bom find(byte[] data)
         {
             Bom ret = null;
 
@@ -69,6 +69,16 @@ class UnicodeInputStreamReader extends Reader
             return ret;
         }
 
+        Charset getCharset()
+        {
+            return _charset;
+        }
+
+        int getSize()
+        {
+            return _bytes.length;
+        }
+
         private boolean match(byte[] data)
         {
             boolean ok = true;
@@ -0,0 +1,29 @@
+/*
+ * Copyright 2005,2009 Ivan SZKIBA
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ini4j.spi;
+
+/**
+ * Converts option values to a type, see
+ * {@link BeanTool#register(Class, ValueConverter)}.
+ */
+public interface ValueConverter<T>
+{
+    /**
+     * Converts a non null value, throwing {@link IllegalArgumentException}
+     * if it is not valid for the type.
+     */
+    T parse(String value) throws IllegalArgumentException;
+}
@@ -40,27 +40,13 @@ public class WinEscapeTool extends EscapeTool
 
         if (escapeType == 'x')
         {
-            try
-            {
-                buff.append((char) Integer.parseInt(line.substring(index, index + ANSI_HEX_DIGITS), HEX_RADIX));
-                ret = index + ANSI_HEX_DIGITS;
-            }
-            catch (Exception x)
-            {
-                throw new IllegalArgumentException("Malformed \\xHH encoding.", x);
-            }
+            buff.append(parseDigits(line, index, ANSI_HEX_DIGITS, HEX_RADIX, "Malformed \\xHH encoding."));
+            ret = index + ANSI_HEX_DIGITS;
         }
         else if (escapeType == 'o')
         {
-            try
-            {
-                buff.append((char) Integer.parseInt(line.substring(index, index + ANSI_OCTAL_DIGITS), OCTAL_RADIX));
-                ret = index + ANSI_OCTAL_DIGITS;
-            }
-            catch (Exception x)
-            {
-                throw new IllegalArgumentException("Malformed \\oOO encoding.", x);
-            }
+            buff.append(parseDigits(line, index, ANSI_OCTAL_DIGITS, OCTAL_RADIX, "Malformed \\oOO encoding."));
+            ret = index + ANSI_OCTAL_DIGITS;
         }
 
         return ret;
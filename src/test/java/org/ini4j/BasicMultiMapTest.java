@@ -20,13 +20,18 @@ import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
 
 import org.junit.Before;
 import org.junit.Test;
 
+import java.util.AbstractMap;
 import java.util.Arrays;
+import java.util.Collection;
 import java.util.HashMap;
+import java.util.Iterator;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
@@ -116,6 +121,41 @@ public class BasicMultiMapTest extends Ini4jCase
         assertEquals(VALUE2, _map.get(KEY3));
     }
 
+    @Test public void testEntrySetView()
+    {
+        Set<Entry<String, String>> set = _map.entrySet();
+        Map<String, String> plain = new HashMap<String, String>();
+
+        assertTrue(set.isEmpty());
+        assertSame(set, _map.entrySet());
+        _map.put(KEY3, VALUE3);
+        _map.put(KEY1, VALUE1);
+        _map.add(KEY2, VALUE1);
+        _map.add(KEY2, VALUE2);
+        assertEquals(3, set.size());
+        Iterator<Entry<String, String>> iter = set.iterator();
+
+        assertEquals(KEY3, iter.next().getKey());
+        assertEquals(KEY1, iter.next().getKey());
+        assertEquals(KEY2, iter.next().getKey());
+        plain.put(KEY1, VALUE1);
+        plain.put(KEY2, VALUE2);
+        plain.put(KEY3, VALUE3);
+        assertEquals(plain.entrySet(), set);
+        assertEquals(set, plain.entrySet());
+        assertTrue(set.contains(plain.entrySet().iterator().next()));
+        assertTrue(set.remove(new AbstractMap.SimpleEntry<String, String>(KEY2, VALUE2)));
+        assertFalse(set.remove(new AbstractMap.SimpleEntry<String, String>(KEY1, VALUE2)));
+        assertFalse(_map.containsKey(KEY2));
+        iter = set.iterator();
+        iter.next();
+        iter.remove();
+        assertFalse(_map.containsKey(KEY3));
+        assertEquals(1, set.size());
+        set.clear();
+        assertTrue(_map.isEmpty());
+    }
+
     @Test public void testGetEmpty()
     {
         assertNull(_map.get(KEY1));
@@ -189,4 +229,32 @@ public class BasicMultiMapTest extends Ini4jCase
         Arrays.sort(values);
         assertArrayEquals(values, VALUES);
     }
+
+    @Test public void testValuesView()
+    {
+        Collection<String> values = _map.values();
+
+        assertTrue(values.isEmpty());
+        assertSame(values, _map.values());
+        _map.add(KEY2, VALUE2);
+        _map.add(KEY2, VALUE3);
+        _map.put(KEY1, VALUE1);
+        assertEquals(3, values.size());
+        assertArrayEquals(new String[] { VALUE2, VALUE3, VALUE1 }, values.toArray());
+        assertTrue(values.contains(VALUE3));
+        _map.remove(KEY2, 0);
+        assertArrayEquals(new String[] { VALUE3, VALUE1 }, values.toArray());
+        try
+        {
+            values.remove(VALUE1);
+            fail();
+        }
+        catch (UnsupportedOperationException x)
+        {
+            assert true;
+        }
+
+        values.clear();
+        assertTrue(_map.isEmpty());
+    }
 }
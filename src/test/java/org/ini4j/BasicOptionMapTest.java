@@ -24,14 +24,19 @@ import org.ini4j.test.Helper;
 
 import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 
 import org.junit.Test;
 
+import java.lang.reflect.Field;
+
 import java.net.URI;
 
+import java.util.Map;
+
 public class BasicOptionMapTest extends Ini4jCase
 {
     private static final String FOO = "foo";
@@ -136,6 +141,34 @@ public class BasicOptionMapTest extends Ini4jCase
         }
     }
 
+    @Test public void testFetchPrimitive()
+    {
+        OptionMap map = new BasicOptionMap();
+
+        Helper.addDwarf(map, DwarfsData.dopey, false);
+        Helper.addDwarf(map, DwarfsData.bashful);
+        map.add(FOO, "${" + Dwarf.PROP_AGE + "}");
+        assertEquals(DwarfsData.dopey.age, map.fetchInt(Dwarf.PROP_AGE, -1));
+        assertEquals(DwarfsData.dopey.age, map.fetchInt(FOO, -1));
+        assertEquals(DwarfsData.dopey.age, map.fetchLong(FOO, -1L));
+        assertEquals(DwarfsData.dopey.weight, map.fetchDouble(Dwarf.PROP_WEIGHT, -1.0), Helper.DELTA);
+        assertEquals(-1, map.fetchInt("missing", -1));
+        assertEquals(-1L, map.fetchLong("missing", -1L));
+        assertEquals(-1.0, map.fetchDouble("missing", -1.0), Helper.DELTA);
+        assertTrue(map.fetchBoolean("missing", true));
+        map.put(FOO, "true");
+        assertTrue(map.fetchBoolean(FOO, false));
+        try
+        {
+            map.fetchInt(FOO, -1);
+            missing(IllegalArgumentException.class);
+        }
+        catch (IllegalArgumentException x)
+        {
+            //
+        }
+    }
+
     @Test public void testFromToAs() throws Exception
     {
         DwarfBean bean = new DwarfBean();
@@ -286,6 +319,47 @@ public class BasicOptionMapTest extends Ini4jCase
         assertEquals(0, map.fetchAll(Dwarf.PROP_FORTUNE_NUMBER, int[].class).length);
     }
 
+    @Test public void testResolveChain() throws Exception
+    {
+        int n = 1000;
+        OptionMap map = new BasicOptionMap();
+
+        map.put("v0", "0");
+        for (int i = 1; i < n; i++)
+        {
+            map.put("v" + i, "${v" + (i - 1) + "}");
+        }
+
+        assertEquals("0", map.fetch("v" + (n - 1)));
+        map.put("v0", "1");
+        assertEquals("1", map.fetch("v" + (n - 1)));
+        map.put("v0", "${v" + (n - 1) + "}");
+        assertEquals("${v0}", map.fetch("v0"));
+    }
+
+    @Test public void testResolveRemove() throws Exception
+    {
+        BasicOptionMap map = new BasicOptionMap();
+        Field field = BasicOptionMap.class.getDeclaredField("_resolved");
+
+        field.setAccessible(true);
+        map.put("a", "${c}");
+        map.add("b", "${c}");
+        map.add("b", "${c}");
+        map.put("c", "1");
+        assertEquals("1", map.fetch("a"));
+        assertEquals("1", map.fetch("b", 1));
+        Map<?, ?> resolved = (Map<?, ?>) field.get(map);
+
+        assertTrue(resolved.containsKey("a"));
+        assertTrue(resolved.containsKey("b"));
+        map.remove("a");
+        map.remove("b", 0);
+        assertFalse(resolved.containsKey("a"));
+        assertFalse(resolved.containsKey("b"));
+        assertEquals("1", map.fetch("b"));
+    }
+
     @Test public void testResolve() throws Exception
     {
         StringBuilder buffer;
@@ -29,6 +29,9 @@ import static org.junit.Assert.assertSame;
 
 import org.junit.Test;
 
+import java.util.Collections;
+import java.util.Iterator;
+
 public class BasicProfileSectionTest extends Ini4jCase
 {
     @Test public void testAddChild() throws Exception
@@ -48,6 +51,69 @@ public class BasicProfileSectionTest extends Ini4jCase
         assertNull(dwarfs.lookup(Dwarfs.PROP_DOC + '/' + Dwarfs.PROP_DOPEY));
     }
 
+    @Test public void testChildrenNames() throws Exception
+    {
+        Ini ini = new Ini();
+
+        ini.setConfig(Config.getGlobal().clone());
+        ini.add("a/b/c", ini.newSection("a/b/c"));
+        ini.add("a/x", ini.newSection("a/x"));
+        ini.add("a", ini.newSection("a"));
+        Profile.Section a = ini.get("a");
+
+        assertArrayEquals(new String[] { "x" }, a.childrenNames());
+        assertArrayEquals(new String[] { "a/b/c", "a/x", "a" }, ini.keySet().toArray());
+        ini.add("a/b");
+        ini.add("a/b");
+        assertArrayEquals(new String[] { "x", "b" }, a.childrenNames());
+        assertArrayEquals(new String[] { "c" }, ini.get("a/b").childrenNames());
+        ini.remove("a/b", 0);
+        assertArrayEquals(new String[] { "x", "b" }, a.childrenNames());
+        ini.remove("a/b");
+        ini.put("a/y", ini.newSection("a/y"));
+        ini.putAll("a/", Collections.singletonList(ini.newSection("a/")));
+        ini.add("a//z");
+        assertArrayEquals(new String[] { "x", "y" }, a.childrenNames());
+        assertArrayEquals(new String[] { "z" }, ini.get("a/").childrenNames());
+        ini.remove("a/b/c");
+        ini.add("a/b/c");
+        assertArrayEquals(new String[] { "c" }, ini.get("a/b").childrenNames());
+        assertArrayEquals(new String[] { "a" }, new IniPreferences(ini).childrenNamesSpi());
+        ini.getConfig().setPathSeparator('.');
+        assertEquals(0, a.childrenNames().length);
+        ini.add("a.q");
+        assertArrayEquals(new String[] { "q" }, a.childrenNames());
+        ini.clear();
+        ini.add("a");
+        assertEquals(0, ini.get("a").childrenNames().length);
+    }
+
+    @Test public void testChildrenNamesViewRemove() throws Exception
+    {
+        Ini ini = new Ini();
+
+        ini.add("a");
+        ini.add("a/b");
+        ini.add("a/c");
+        ini.add("a/d");
+        Profile.Section a = ini.get("a");
+
+        assertArrayEquals(new String[] { "b", "c", "d" }, a.childrenNames());
+        ini.keySet().remove("a/b");
+        assertArrayEquals(new String[] { "c", "d" }, a.childrenNames());
+        for (Iterator<String> iter = ini.keySet().iterator(); iter.hasNext();)
+        {
+            if ("a/c".equals(iter.next()))
+            {
+                iter.remove();
+            }
+        }
+
+        assertArrayEquals(new String[] { "d" }, a.childrenNames());
+        assertNull(a.getChild("b"));
+        assertSame(ini.get("a/d"), a.getChild("d"));
+    }
+
     @Test public void testGetChild() throws Exception
     {
         Profile prof = Helper.newTaleIni();
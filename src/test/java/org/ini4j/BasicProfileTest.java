@@ -27,6 +27,7 @@ import org.ini4j.test.Helper;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 
 import org.junit.Test;
@@ -285,6 +286,71 @@ public class BasicProfileTest extends Ini4jCase
         assertEquals(input, buffer.toString());
     }
 
+    @Test public void testResolveCache() throws Exception
+    {
+        BasicProfile prof = new BasicProfile();
+        Profile.Section a = prof.add("a");
+        Profile.Section b = prof.add("b");
+        Profile.Section c = prof.add("c");
+
+        a.put("x", "1");
+        b.put("y", "${a/x}-${a/x}");
+        c.put("z", "[${b/y}]");
+        String z = c.fetch("z");
+
+        assertEquals("[1-1]", z);
+        assertSame(z, c.fetch("z"));
+
+        // referenced option changed
+        a.put("x", "2");
+        assertEquals("[2-2]", c.fetch("z"));
+        assertEquals("2-2", b.fetch("y"));
+
+        // referenced option added, section replaced
+        a.add("x", "3");
+        assertEquals("[3-3]", c.fetch("z"));
+        prof.remove("a");
+        assertEquals("[${a/x}-${a/x}]", c.fetch("z"));
+        prof.add("a").put("x", "4");
+        assertEquals("[4-4]", c.fetch("z"));
+
+        // own value changed
+        c.put("z", "${b/y}");
+        assertEquals("4-4", c.fetch("z"));
+
+        // system property
+        String key = getClass().getName();
+
+        c.put("p", "${@prop/" + key + "}");
+        assertEquals("${@prop/" + key + "}", c.fetch("p"));
+        System.setProperty(key, "5");
+        try
+        {
+            assertEquals("5", c.fetch("p"));
+        }
+        finally
+        {
+            System.getProperties().remove(key);
+        }
+    }
+
+    @Test public void testResolveCycle() throws Exception
+    {
+        BasicProfile prof = new BasicProfile();
+        Profile.Section sec = prof.add(SECTION);
+
+        sec.put("self", "${self}");
+        sec.put("a", "a${b}");
+        sec.put("b", "b${section/a}");
+        sec.put("c", "${a}");
+        assertEquals("${self}", sec.fetch("self"));
+        assertEquals("ab${section/a}", sec.fetch("a"));
+        assertEquals("ba${b}", sec.fetch("b"));
+        assertEquals("ab${section/a}", sec.fetch("c"));
+        sec.put("b", "b");
+        assertEquals("ab", sec.fetch("c"));
+    }
+
     @Test public void testResolveArray() throws Exception
     {
         StringBuilder buffer;
@@ -21,14 +21,23 @@ import static org.junit.Assert.assertTrue;
 
 import org.junit.Test;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+
+import java.lang.reflect.Field;
+
 import java.util.HashMap;
 import java.util.Map;
+import java.util.TreeMap;
 
 public class CommonMultiMapTest extends Ini4jCase
 {
     private static final String KEY = "key";
     private static final String VALUE = "value";
     private static final String COMMENT = "comment";
+    private static final String TYPE = "type";
 
     @Test public void testClearAndRemove() throws Exception
     {
@@ -84,6 +93,30 @@ public class CommonMultiMapTest extends Ini4jCase
         assertNull(map.getComment(KEY));
     }
 
+    @Test public void testMeta() throws Exception
+    {
+        CommonMultiMap<String, String> map = new CommonMultiMap<String, String>();
+        CommonMultiMap<String, String> copy = new CommonMultiMap<String, String>();
+
+        map.put(KEY, VALUE);
+        map.putComment(KEY, COMMENT);
+        assertNull(map.putMeta(TYPE, KEY, VALUE));
+        assertEquals(VALUE, map.putMeta(TYPE, KEY, KEY));
+        assertEquals(KEY, map.getMeta(TYPE, KEY));
+        assertNull(map.getMeta(TYPE, VALUE));
+        copy.putAll(map);
+        assertEquals(COMMENT, map.removeComment(KEY));
+        assertNull(map.getComment(KEY));
+        assertEquals(KEY, map.getMeta(TYPE, KEY));
+        assertEquals(COMMENT, copy.getComment(KEY));
+        assertEquals(KEY, map.removeMeta(TYPE, KEY));
+        assertNull(map.removeMeta(TYPE, KEY));
+        assertEquals(KEY, copy.getMeta(TYPE, KEY));
+        copy.remove(KEY);
+        assertNull(copy.getMeta(TYPE, KEY));
+        assertNull(copy.getComment(KEY));
+    }
+
     @Test public void testPutAll() throws Exception
     {
         CommonMultiMap<String, String> map = new CommonMultiMap<String, String>();
@@ -110,4 +143,45 @@ public class CommonMultiMapTest extends Ini4jCase
         assertEquals(VALUE, copy.get(KEY));
         assertNull(copy.getComment(KEY));
     }
+
+    @Test public void testSerialization() throws Exception
+    {
+        CommonMultiMap<String, String> map = new CommonMultiMap<String, String>();
+
+        map.put(KEY, VALUE);
+        map.putComment(KEY, COMMENT);
+        map.putMeta(TYPE, KEY, VALUE);
+        CommonMultiMap<String, String> copy = copy(map);
+
+        assertEquals(COMMENT, copy.getComment(KEY));
+        assertEquals(VALUE, copy.getMeta(TYPE, KEY));
+
+        // metadata map of older versions
+        Map<String, Object> old = new TreeMap<String, Object>();
+        Field field = CommonMultiMap.class.getDeclaredField("_meta");
+
+        old.put(KEY + ";#;" + COMMENT, COMMENT);
+        old.put(KEY + ";#;" + TYPE, VALUE);
+        old.put(VALUE + ";#;" + COMMENT, KEY);
+        field.setAccessible(true);
+        field.set(map, old);
+        copy = copy(map);
+        assertEquals(COMMENT, copy.getComment(KEY));
+        assertEquals(VALUE, copy.getMeta(TYPE, KEY));
+        assertEquals(KEY, copy.getComment(VALUE));
+        copy.remove(KEY);
+        assertNull(copy.getComment(KEY));
+    }
+
+    @SuppressWarnings("unchecked")
+    private CommonMultiMap<String, String> copy(CommonMultiMap<String, String> map) throws Exception
+    {
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        ObjectOutputStream out = new ObjectOutputStream(buffer);
+
+        out.writeObject(map);
+        out.close();
+
+        return (CommonMultiMap<String, String>) new ObjectInputStream(new ByteArrayInputStream(buffer.toByteArray())).readObject();
+    }
 }
@@ -56,6 +56,11 @@ public class ConfigTest extends Ini4jCase
         setCharset(Config.PROP_FILE_ENCODING, exp.getFileEncoding());
         setBoolean(Config.PROP_COMMENT, exp.isComment());
         setBoolean(Config.PROP_HEADER_COMMENT, exp.isHeaderComment());
+        setLong(Config.PROP_MMAP_THRESHOLD, exp.getMmapThreshold());
+        setLong(Config.PROP_PARALLEL_THRESHOLD, exp.getParallelThreshold());
+        setLong(Config.PROP_STRING_POOL_SIZE, exp.getStringPoolSize());
+        setBoolean(Config.PROP_VALUE_CACHE, exp.isValueCache());
+        setBoolean(Config.PROP_GENERATED_BEANS, exp.isGeneratedBeans());
         Config cfg = new Config();
 
         assertEquals(exp, cfg);
@@ -76,6 +81,11 @@ public class ConfigTest extends Ini4jCase
         System.setProperty(Config.KEY_PREFIX + prop, String.valueOf(value));
     }
 
+    private void setLong(String prop, long value)
+    {
+        System.setProperty(Config.KEY_PREFIX + prop, String.valueOf(value));
+    }
+
     private void setString(String prop, String value)
     {
         System.setProperty(Config.KEY_PREFIX + prop, value);
@@ -104,6 +114,11 @@ public class ConfigTest extends Ini4jCase
         Assert.assertEquals(exp.getFileEncoding(), act.getFileEncoding());
         Assert.assertEquals(exp.isComment(), act.isComment());
         Assert.assertEquals(exp.isHeaderComment(), act.isHeaderComment());
+        Assert.assertEquals(exp.getMmapThreshold(), act.getMmapThreshold());
+        Assert.assertEquals(exp.getParallelThreshold(), act.getParallelThreshold());
+        Assert.assertEquals(exp.getStringPoolSize(), act.getStringPoolSize());
+        Assert.assertEquals(exp.isValueCache(), act.isValueCache());
+        Assert.assertEquals(exp.isGeneratedBeans(), act.isGeneratedBeans());
     }
 
     private Config newDefaultConfig()
@@ -131,6 +146,11 @@ public class ConfigTest extends Ini4jCase
         cfg.setFileEncoding(Charset.forName("UTF-8"));
         cfg.setComment(true);
         cfg.setHeaderComment(true);
+        cfg.setMmapThreshold(-1L);
+        cfg.setParallelThreshold(-1L);
+        cfg.setStringPoolSize(0);
+        cfg.setValueCache(false);
+        cfg.setGeneratedBeans(false);
 
         return cfg;
     }
@@ -158,6 +178,11 @@ public class ConfigTest extends Ini4jCase
         cfg.setPropertyFirstUpper(!cfg.isPropertyFirstUpper());
         cfg.setComment(!cfg.isComment());
         cfg.setHeaderComment(!cfg.isHeaderComment());
+        cfg.setMmapThreshold(1024L);
+        cfg.setParallelThreshold(2048L);
+        cfg.setStringPoolSize(512);
+        cfg.setValueCache(!cfg.isValueCache());
+        cfg.setGeneratedBeans(!cfg.isGeneratedBeans());
 
         //cfg.setLineSeparator("\t");
         //cfg.setFileEncoding(Charset.forName("ASCII"));
@@ -20,6 +20,7 @@ import org.ini4j.sample.Dwarfs;
 import org.ini4j.test.DwarfsData;
 import org.ini4j.test.Helper;
 
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
 
 import org.junit.Test;
@@ -33,6 +34,12 @@ import java.io.OutputStreamWriter;
 import java.io.StringReader;
 import java.io.StringWriter;
 
+import java.net.URL;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.TimeZone;
+
 public class IniTest extends Ini4jCase
 {
     private static final String COMMENT_ONLY = "# first line\n# second line\n";
@@ -55,6 +62,19 @@ public class IniTest extends Ini4jCase
         assertEquals(COMMENT_ONLY_VALUE, ini.getComment());
     }
 
+    @Test public void testIteratorRemove() throws Exception
+    {
+        Ini ini = new Ini(new StringReader(COMMENTED_OPTION));
+        Iterator<Map.Entry<String, Profile.Section>> iter = ini.entrySet().iterator();
+
+        ini.putComment("section", "comment");
+        iter.next();
+        iter.remove();
+        assertTrue(ini.isEmpty());
+        ini.add("section");
+        assertNull(ini.getComment("section"));
+    }
+
     @Test public void testLoad() throws Exception
     {
         Ini ini;
@@ -177,6 +197,43 @@ public class IniTest extends Ini4jCase
         }
     }
 
+    @Test public void testValueCache() throws Exception
+    {
+        Ini ini = new Ini();
+        Config cfg = ini.getConfig().clone();
+
+        cfg.setValueCache(true);
+        ini.setConfig(cfg);
+        Ini.Section sec = ini.add("section");
+
+        sec.put("host", "a");
+        sec.put("url", "http://${host}/");
+        sec.add("n", "1");
+        sec.add("n", "2");
+        URL url = sec.fetch("url", URL.class);
+
+        assertSame(url, sec.fetch("url", URL.class));
+        assertSame(url, ini.fetch("section", "url", URL.class));
+        sec.put("host", "b");
+        assertEquals(new URL("http://b/"), sec.fetch("url", URL.class));
+        int[] all = sec.fetchAll("n", int[].class);
+
+        all[0] = 0;
+        assertArrayEquals(new int[] { 1, 2 }, sec.fetchAll("n", int[].class));
+        sec.put("n", "3", 0);
+        assertArrayEquals(new int[] { 3, 2 }, sec.fetchAll("n", int[].class));
+        assertEquals(2, sec.fetch("n", int.class).intValue());
+        assertEquals(3, sec.fetch("n", 0, int.class).intValue());
+        sec.remove("url");
+        assertNull(sec.fetch("url", URL.class));
+        sec.put("zone", "GMT");
+        TimeZone zone = sec.fetch("zone", TimeZone.class);
+
+        zone.setRawOffset(1000);
+        assertNotSame(zone, sec.fetch("zone", TimeZone.class));
+        assertEquals(0, sec.fetch("zone", TimeZone.class).getRawOffset());
+    }
+
     @Test public void testWithComment() throws Exception
     {
         Ini ini = new Ini();
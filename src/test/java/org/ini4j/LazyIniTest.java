@@ -0,0 +1,257 @@
+/*
+ * Copyright 2005,2009 Ivan SZKIBA
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ini4j;
+
+import org.ini4j.sample.Dwarfs;
+
+import org.ini4j.test.DwarfsData;
+import org.ini4j.test.Helper;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.OutputStream;
+import java.io.StringWriter;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+public class LazyIniTest extends Ini4jCase
+{
+    private static final String INPUT =
+        "; header\n\n; global comment\nglobal = 1\n; first comment\n[first]\r\nname = value\\\n  continued \\\n[not a section]\n"
+        + ";comment\n\n[tree/child]\n[second]\nref = ${first/name}\n; option comment\nx = 1\n# first again\n[first]\nmulti = 1\nmulti = 2\n[Third]";
+    private static final String BAD = "[a]\nx=1\n[b]\nbroken line\n[c]\nz=3\n";
+
+    @Test public void testLoad() throws Exception
+    {
+        LazyIni ini = new LazyIni(Helper.getSourceFile(Helper.DWARFS_INI));
+        Ini expected = new Ini(Helper.getSourceFile(Helper.DWARFS_INI));
+
+        assertTrue(ini.isLazy());
+        assertEquals(new ArrayList<String>(expected.keySet()), new ArrayList<String>(ini.keySet()));
+        assertEquals(expected.size(), ini.size());
+        assertEquals(Helper.HEADER_COMMENT, ini.getComment());
+        Helper.assertEquals(DwarfsData.dwarfs, ini.as(Dwarfs.class));
+        assertEquals(expected.fetch(Dwarfs.PROP_HAPPY, "homePage"), ini.fetch(Dwarfs.PROP_HAPPY, "homePage"));
+        assertNull(ini.get("unknown"));
+        assertTrue(ini.isLazy());
+        assertEquals(store(expected), store(ini));
+        assertFalse(ini.isLazy());
+    }
+
+    @Test public void testEquivalence() throws Exception
+    {
+        File file = write(INPUT);
+
+        try
+        {
+            Config[] configs = { new Config(), new Config(), new Config() };
+
+            for (Config cfg : configs)
+            {
+                cfg.setGlobalSection(true);
+            }
+
+            configs[1].setMultiSection(true);
+            configs[2].setLowerCaseSection(true);
+            configs[2].setLowerCaseOption(true);
+            configs[2].setMultiOption(false);
+            configs[2].setTree(false);
+            for (Config cfg : configs)
+            {
+                Ini expected = new Ini();
+                LazyIni ini = new LazyIni();
+
+                expected.setConfig(cfg);
+                expected.load(file);
+                ini.setConfig(cfg);
+                ini.load(file);
+                assertTrue(ini.isLazy());
+                assertEquals(new ArrayList<String>(expected.keySet()), new ArrayList<String>(ini.keySet()));
+                for (String name : expected.keySet())
+                {
+                    assertEquals(expected.length(name), ini.length(name));
+                    for (int i = 0; i < expected.length(name); i++)
+                    {
+                        assertEquals(new ArrayList<String>(expected.get(name, i).keySet()), new ArrayList<String>(ini.get(name, i).keySet()));
+                        assertEquals(expected.get(name, i).getComment("x"), ini.get(name, i).getComment("x"));
+                    }
+                }
+
+                assertEquals(expected.fetch("second", "ref"), ini.fetch("second", "ref"));
+                assertEquals(expected.getComment(), ini.getComment());
+                assertTrue(ini.isLazy());
+                assertEquals(store(expected), store(ini));
+            }
+        }
+        finally
+        {
+            file.delete();
+        }
+    }
+
+    @Test public void testCache() throws Exception
+    {
+        LazyIni ini = new LazyIni();
+
+        ini.setCacheSize(1);
+        assertEquals(1, ini.getCacheSize());
+        ini.load(Helper.getSourceFile(Helper.DWARFS_INI));
+        Profile.Section happy = ini.get(Dwarfs.PROP_HAPPY);
+
+        assertSame(happy, ini.get(Dwarfs.PROP_HAPPY));
+        ini.get(Dwarfs.PROP_DOC);
+        ini.get(Dwarfs.PROP_DOPEY);
+        assertSame(happy, ini.get(Dwarfs.PROP_HAPPY));
+        assertTrue(ini.isLazy());
+    }
+
+    @Test public void testEntrySet() throws Exception
+    {
+        LazyIni ini = new LazyIni(Helper.getSourceFile(Helper.DWARFS_INI));
+        Ini expected = new Ini(Helper.getSourceFile(Helper.DWARFS_INI));
+        List<String> names = new ArrayList<String>();
+
+        assertTrue(ini.isLazy());
+        assertEquals(expected.size(), ini.entrySet().size());
+        assertFalse(ini.isLazy());
+        for (Map.Entry<String, Profile.Section> entry : ini.entrySet())
+        {
+            names.add(entry.getKey());
+            assertEquals(expected.get(entry.getKey()).keySet(), entry.getValue().keySet());
+        }
+
+        assertEquals(new ArrayList<String>(expected.keySet()), names);
+        Ini copy = new Ini();
+
+        copy.putAll(new LazyIni(Helper.getSourceFile(Helper.DWARFS_INI)));
+        assertEquals(new ArrayList<String>(expected.keySet()), new ArrayList<String>(copy.keySet()));
+        assertEquals(expected.get(Dwarfs.PROP_HAPPY, "homePage"), copy.get(Dwarfs.PROP_HAPPY, "homePage"));
+    }
+
+    @Test public void testModify() throws Exception
+    {
+        LazyIni ini = new LazyIni(Helper.getSourceFile(Helper.DWARFS_INI));
+        Profile.Section happy = ini.get(Dwarfs.PROP_HAPPY);
+
+        happy.put("test", 1);
+        assertFalse(ini.isLazy());
+        assertSame(happy, ini.get(Dwarfs.PROP_HAPPY));
+        assertEquals("1", ini.get(Dwarfs.PROP_HAPPY, "test"));
+        Ini expected = new Ini(Helper.getSourceFile(Helper.DWARFS_INI));
+
+        expected.get(Dwarfs.PROP_HAPPY).put("test", 1);
+        assertEquals(store(expected), store(ini));
+        ini = new LazyIni(Helper.getSourceFile(Helper.DWARFS_INI));
+        ini.remove(Dwarfs.PROP_HAPPY);
+        assertFalse(ini.isLazy());
+        assertFalse(ini.containsKey(Dwarfs.PROP_HAPPY));
+        assertEquals(expected.size() - 1, ini.size());
+        ini = new LazyIni(Helper.getSourceFile(Helper.DWARFS_INI));
+        happy = ini.get(Dwarfs.PROP_HAPPY);
+        happy.keySet().remove("homePage");
+        assertFalse(ini.isLazy());
+        assertFalse(happy.containsKey("homePage"));
+        assertSame(happy, ini.get(Dwarfs.PROP_HAPPY));
+        ini = new LazyIni(Helper.getSourceFile(Helper.DWARFS_INI));
+        happy = ini.get(Dwarfs.PROP_HAPPY);
+        Iterator<String> keys = happy.keySet().iterator();
+
+        keys.next();
+        keys.remove();
+        assertFalse(ini.isLazy());
+        assertEquals(expected.get(Dwarfs.PROP_HAPPY).size() - 2, happy.size());
+        ini = new LazyIni(Helper.getSourceFile(Helper.DWARFS_INI));
+        ini.clear();
+        assertFalse(ini.isLazy());
+        assertTrue(ini.isEmpty());
+    }
+
+    @Test public void testFallback() throws Exception
+    {
+        LazyIni ini = new LazyIni();
+
+        ini.setConfig(Config.getGlobal().clone());
+        ini.getConfig().setTree(false);
+        ini.getConfig().setInclude(true);
+        ini.load(Helper.getSourceFile(Helper.DWARFS_INI));
+        assertFalse(ini.isLazy());
+        Helper.assertEquals(DwarfsData.dwarfs, ini.as(Dwarfs.class));
+        ini = new LazyIni();
+        ini.load(Helper.getResourceURL(Helper.DWARFS_INI));
+        assertFalse(ini.isLazy());
+        ini.load(Helper.getSourceFile(Helper.DWARFS_INI));
+        assertFalse(ini.isLazy());
+    }
+
+    @Test public void testError() throws Exception
+    {
+        File file = write(BAD);
+
+        try
+        {
+            LazyIni ini = new LazyIni(file);
+
+            assertEquals("1", ini.get("a", "x"));
+            try
+            {
+                ini.get("b");
+                missing(IllegalStateException.class);
+            }
+            catch (IllegalStateException x)
+            {
+                assertTrue(x.getCause() instanceof InvalidFileFormatException);
+                assertTrue(x.getCause().getMessage().contains("line 4"));
+            }
+
+            assertEquals("3", ini.get("c", "z"));
+        }
+        finally
+        {
+            file.delete();
+        }
+    }
+
+    private String store(Ini ini) throws Exception
+    {
+        StringWriter writer = new StringWriter();
+
+        ini.store(writer);
+
+        return writer.toString();
+    }
+
+    private File write(String input) throws Exception
+    {
+        File file = File.createTempFile("ini4j", ".ini");
+        OutputStream out = new FileOutputStream(file);
+
+        out.write(input.getBytes("UTF-8"));
+        out.close();
+
+        return file;
+    }
+}
@@ -0,0 +1,186 @@
+/*
+ * Copyright 2005,2009 Ivan SZKIBA
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ini4j;
+
+import org.ini4j.sample.Dwarf;
+import org.ini4j.sample.Dwarfs;
+
+import org.ini4j.test.DwarfsData;
+import org.ini4j.test.Helper;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.fail;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+
+public class ProfileSnapshotTest extends Ini4jCase
+{
+    private static final int THREADS = 4;
+    private static final int READS = 10000;
+
+    @Test public void testConcurrentReads() throws Exception
+    {
+        final ProfileSnapshot snapshot = ProfileSnapshot.of(Helper.loadDwarfsIni());
+        final Dwarfs dwarfs = snapshot.as(Dwarfs.class);
+        final String expected = snapshot.fetch(Dwarfs.PROP_DOPEY, Dwarf.PROP_WEIGHT);
+        final AtomicReference<Throwable> failure = new AtomicReference<Throwable>();
+        List<Thread> threads = new ArrayList<Thread>();
+
+        for (int i = 0; i < THREADS; i++)
+        {
+            Thread thread = new Thread()
+            {
+                @Override public void run()
+                {
+                    try
+                    {
+                        for (int n = 0; n < READS; n++)
+                        {
+                            assertEquals(expected, snapshot.fetch(Dwarfs.PROP_DOPEY, Dwarf.PROP_WEIGHT));
+                            assertEquals(DwarfsData.dopey.weight, dwarfs.getDopey().getWeight(), Helper.DELTA);
+                        }
+                    }
+                    catch (Throwable x)
+                    {
+                        failure.set(x);
+                    }
+                }
+            };
+
+            threads.add(thread);
+            thread.start();
+        }
+
+        for (Thread thread : threads)
+        {
+            thread.join();
+        }
+
+        assertNull(failure.get());
+    }
+
+    @Test public void testEdit() throws Exception
+    {
+        ProfileSnapshot snapshot = ProfileSnapshot.of(Helper.loadDwarfsIni());
+        Ini ini = snapshot.edit();
+
+        ini.put(Dwarfs.PROP_DOC, Dwarf.PROP_AGE, "1");
+        ProfileSnapshot next = ProfileSnapshot.of(ini, snapshot);
+
+        assertEquals(DwarfsData.doc.age, snapshot.get(Dwarfs.PROP_DOC, Dwarf.PROP_AGE, int.class).intValue());
+        assertEquals(1, next.get(Dwarfs.PROP_DOC, Dwarf.PROP_AGE, int.class).intValue());
+        assertEquals(snapshot.getComment(Dwarfs.PROP_DOC), ini.getComment(Dwarfs.PROP_DOC));
+        assertSame(snapshot.get(Dwarfs.PROP_HAPPY).getAll(Dwarf.PROP_AGE), next.get(Dwarfs.PROP_HAPPY).getAll(Dwarf.PROP_AGE));
+        assertNotSame(snapshot.get(Dwarfs.PROP_DOC).getAll(Dwarf.PROP_AGE), next.get(Dwarfs.PROP_DOC).getAll(Dwarf.PROP_AGE));
+        assertEquals(snapshot.fetch(Dwarfs.PROP_DOPEY, Dwarf.PROP_WEIGHT), next.fetch(Dwarfs.PROP_DOPEY, Dwarf.PROP_WEIGHT));
+    }
+
+    @Test public void testReadOnly() throws Exception
+    {
+        ProfileSnapshot snapshot = ProfileSnapshot.of(Helper.loadDwarfsIni());
+        Profile.Section section = snapshot.get(Dwarfs.PROP_BASHFUL);
+
+        try
+        {
+            snapshot.add("new");
+            fail();
+        }
+        catch (UnsupportedOperationException x)
+        {
+            assert true;
+        }
+
+        try
+        {
+            snapshot.remove(Dwarfs.PROP_BASHFUL);
+            fail();
+        }
+        catch (UnsupportedOperationException x)
+        {
+            assert true;
+        }
+
+        try
+        {
+            section.put(Dwarf.PROP_AGE, "1");
+            fail();
+        }
+        catch (UnsupportedOperationException x)
+        {
+            assert true;
+        }
+
+        try
+        {
+            section.add("new", "1");
+            fail();
+        }
+        catch (UnsupportedOperationException x)
+        {
+            assert true;
+        }
+
+        try
+        {
+            section.as(Dwarf.class).setAge(1);
+            fail();
+        }
+        catch (UnsupportedOperationException x)
+        {
+            assert true;
+        }
+
+        assertEquals(DwarfsData.bashful.age, section.get(Dwarf.PROP_AGE, int.class).intValue());
+    }
+
+    @Test public void testSnapshot() throws Exception
+    {
+        Ini ini = Helper.loadDwarfsIni();
+        ProfileSnapshot snapshot = ProfileSnapshot.of(ini);
+
+        assertEquals(new ArrayList<String>(ini.keySet()), new ArrayList<String>(snapshot.keySet()));
+        assertEquals(ini.getComment(), snapshot.getComment());
+        for (String name : ini.keySet())
+        {
+            Profile.Section section = ini.get(name);
+            Profile.Section copy = snapshot.get(name);
+
+            assertEquals(name, copy.getName());
+            assertEquals(ini.getComment(name), snapshot.getComment(name));
+            assertEquals(new ArrayList<String>(section.keySet()), new ArrayList<String>(copy.keySet()));
+            for (String option : section.keySet())
+            {
+                assertEquals(section.getAll(option), copy.getAll(option));
+                assertEquals(section.getComment(option), copy.getComment(option));
+                for (int i = 0; i < section.length(option); i++)
+                {
+                    assertEquals(section.fetch(option, i), copy.fetch(option, i));
+                }
+            }
+        }
+
+        assertNull(snapshot.get("nosuch"));
+        assertNull(snapshot.get(Dwarfs.PROP_DOC).fetch("nosuch"));
+        Helper.assertEquals(DwarfsData.dwarfs, snapshot.as(Dwarfs.class));
+    }
+}
@@ -0,0 +1,112 @@
+/*
+ * Copyright 2005,2009 Ivan SZKIBA
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ini4j;
+
+import org.ini4j.sample.Dwarf;
+import org.ini4j.sample.Dwarfs;
+
+import org.ini4j.test.Helper;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+public class ReferenceGraphTest extends Ini4jCase
+{
+    private static final String SECTION = "section";
+
+    @Test public void testDwarfs() throws Exception
+    {
+        Ini ini = Helper.newDwarfsIni();
+        ReferenceGraph graph = ini.getReferenceGraph();
+        List<ReferenceGraph.Node> nodes = graph.getNodes();
+
+        assertTrue(graph.getCycles().isEmpty());
+        assertTrue(graph.getUnresolved().isEmpty());
+        for (ReferenceGraph.Node node : nodes)
+        {
+            for (ReferenceGraph.Node target : graph.getReferences(node))
+            {
+                assertTrue(nodes.indexOf(target) < nodes.indexOf(node));
+            }
+        }
+
+        Map<ReferenceGraph.Node, String> values = graph.resolve();
+
+        assertEquals(nodes.size(), values.size());
+        for (ReferenceGraph.Node node : nodes)
+        {
+            assertEquals(node.getSection().fetch(node.getOption(), node.getIndex()), values.get(node));
+        }
+
+        assertEquals(ini.get(Dwarfs.PROP_BASHFUL).get(Dwarf.PROP_WEIGHT), ini.fetch(Dwarfs.PROP_DOPEY, Dwarf.PROP_WEIGHT));
+    }
+
+    @Test public void testCyclesAndUnresolved() throws Exception
+    {
+        BasicProfile prof = new BasicProfile();
+        Profile.Section sec = prof.add(SECTION);
+        Profile.Section other = prof.add("other");
+
+        sec.put("self", "${self}");
+        sec.put("a", "${other/b}");
+        other.put("b", "${c}");
+        other.put("c", "x${section/a}");
+        sec.put("missing", "${no/such} ${nosuch} ${a[1]} ${@prop/no.such.property} ${a}");
+        ReferenceGraph graph = prof.getReferenceGraph();
+
+        assertEquals(2, graph.getCycles().size());
+        assertEquals("[section/self[0]]", graph.getCycles().get(0).toString());
+        assertEquals(3, graph.getCycles().get(1).size());
+        assertEquals(Arrays.asList("${no/such}", "${nosuch}", "${a[1]}", "${@prop/no.such.property}"),
+            graph.getUnresolved().values().iterator().next());
+        assertEquals("section/missing[0]", graph.getUnresolved().keySet().iterator().next().toString());
+        Map<ReferenceGraph.Node, String> values = graph.resolve();
+
+        for (ReferenceGraph.Node node : graph.getNodes())
+        {
+            assertEquals(node.getSection().fetch(node.getOption(), node.getIndex()), values.get(node));
+        }
+    }
+
+    @Test public void testChain() throws Exception
+    {
+        int n = 20000;
+        BasicProfile prof = new BasicProfile();
+        Profile.Section sec = prof.add(SECTION);
+
+        sec.put("v0", "0");
+        for (int i = 1; i < n; i++)
+        {
+            sec.put("v" + i, "${v" + (i - 1) + "}");
+        }
+
+        ReferenceGraph graph = prof.getReferenceGraph();
+
+        assertEquals(n, graph.getNodes().size());
+        assertEquals("v0", graph.getNodes().get(0).getOption());
+        assertTrue(graph.getCycles().isEmpty());
+        assertEquals("0", graph.resolve().get(graph.getNodes().get(n - 1)));
+        assertEquals("0", sec.fetch("v" + (n - 1)));
+        sec.put("v" + (n / 2), "1");
+        assertEquals("1", prof.getReferenceGraph().resolve().get(graph.getNodes().get(n - 1)));
+    }
+}
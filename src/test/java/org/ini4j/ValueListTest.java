@@ -0,0 +1,110 @@
+/*
+ * Copyright 2005,2009 Ivan SZKIBA
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ini4j;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.List;
+
+public class ValueListTest extends Ini4jCase
+{
+    @Test public void testCopy() throws Exception
+    {
+        List<String> list = new ValueList<String>(Arrays.asList("a", "b"));
+
+        list.set(0, "c");
+        list.add("d");
+        assertEquals(Arrays.asList("c", "b", "d"), list);
+        assertEquals(Arrays.asList("a"), new ValueList<String>(Arrays.asList("a")));
+        assertTrue(new ValueList<String>(new ArrayList<String>()).isEmpty());
+    }
+
+    @Test public void testModify() throws Exception
+    {
+        ValueList<String> list = new ValueList<String>();
+        List<String> expected = new ArrayList<String>();
+
+        for (int i = 0; i < 20; i++)
+        {
+            int index = (i * 7) % (expected.size() + 1);
+
+            list.add(index, "v" + i);
+            expected.add(index, "v" + i);
+            assertEquals(expected, list);
+        }
+
+        list.trimToSize();
+        assertEquals(expected, list);
+        assertEquals(expected.set(3, null), list.set(3, null));
+        while (!expected.isEmpty())
+        {
+            int index = (expected.size() * 5 + 1) % expected.size();
+
+            assertEquals(expected.remove(index), list.remove(index));
+            assertEquals(expected, list);
+        }
+
+        list.add(null);
+        assertEquals(1, list.size());
+        assertNull(list.get(0));
+        list.clear();
+        assertTrue(list.isEmpty());
+    }
+
+    @Test public void testSingle() throws Exception
+    {
+        ValueList<String> list = new ValueList<String>();
+
+        list.add("a");
+        assertEquals("a", list.get(0));
+        assertEquals("a", list.set(0, "b"));
+        list.add(0, "c");
+        assertEquals(Arrays.asList("c", "b"), list);
+        assertEquals("c", list.remove(0));
+        assertEquals(Arrays.asList("b"), list);
+        try
+        {
+            list.get(1);
+            fail();
+        }
+        catch (IndexOutOfBoundsException x)
+        {
+            assert true;
+        }
+
+        Iterator<String> iterator = list.iterator();
+
+        list.add("d");
+        try
+        {
+            iterator.next();
+            fail();
+        }
+        catch (ConcurrentModificationException x)
+        {
+            assert true;
+        }
+    }
+}
@@ -80,6 +80,19 @@ public class AbstractBeanInvocationHandlerTest extends Ini4jCase
         dwarf.setHomeDir("dummy");
     }
 
+    @Test public void testInherited() throws Exception
+    {
+        Map<String, String> map = new HashMap<String, String>();
+        DummyChild dummy = MapBeanHandler.newBean(DummyChild.class, map);
+
+        map.put("dummy", "true");
+        assertTrue(dummy.isDummy());
+        assertFalse(dummy.hasChild());
+        dummy.setChild(true);
+        assertTrue(dummy.hasChild());
+        assertEquals("true", map.get("child"));
+    }
+
     @Test public void testMisc() throws Exception
     {
         Map<String, String> map = new HashMap<String, String>();
@@ -235,6 +248,13 @@ public class AbstractBeanInvocationHandlerTest extends Ini4jCase
         void removeDummy();
     }
 
+    static interface DummyChild extends Dummy
+    {
+        boolean hasChild();
+
+        void setChild(boolean value);
+    }
+
     static class MapBeanHandler extends AbstractBeanInvocationHandler
     {
         private Map<String, String> _map;
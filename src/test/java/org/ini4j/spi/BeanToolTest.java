@@ -16,10 +16,13 @@
 package org.ini4j.spi;
 
 import org.ini4j.BasicOptionMapGate;
+import org.ini4j.Config;
+import org.ini4j.Ini;
 import org.ini4j.Ini4jCase;
 
 import org.ini4j.sample.Dwarf;
 import org.ini4j.sample.DwarfBean;
+import org.ini4j.sample.Dwarfs;
 
 import org.ini4j.test.DwarfsData;
 import org.ini4j.test.Helper;
@@ -30,18 +33,35 @@ import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 
 import org.junit.Before;
 import org.junit.Test;
 
+import java.beans.PropertyChangeEvent;
+import java.beans.PropertyChangeListener;
+import java.beans.PropertyVetoException;
+import java.beans.VetoableChangeListener;
+
 import java.io.File;
 import java.io.IOException;
 
+import java.lang.reflect.Proxy;
+import java.lang.reflect.UndeclaredThrowableException;
+
+import java.math.BigDecimal;
+
+import java.net.InetAddress;
 import java.net.URI;
 import java.net.URL;
 
+import java.nio.file.Paths;
+
+import java.util.ArrayList;
+import java.util.List;
 import java.util.TimeZone;
+import java.util.concurrent.TimeUnit;
 
 public class BeanToolTest extends Ini4jCase
 {
@@ -53,6 +73,133 @@ public class BeanToolTest extends Ini4jCase
         instance = BeanTool.getInstance();
     }
 
+    @Test public void testConverter() throws Exception
+    {
+        TestMap map = new TestMap();
+
+        assertEquals(TimeUnit.SECONDS, instance.parse("SECONDS", TimeUnit.class));
+        assertEquals(new BigDecimal("2.50"), instance.parse("2.50", BigDecimal.class));
+        assertEquals(Paths.get("/tmp/ini4j"), instance.parse("/tmp/ini4j", java.nio.file.Path.class));
+        assertEquals(InetAddress.getByName("127.0.0.1"), instance.parse("127.0.0.1", InetAddress.class));
+        assertSame(instance.getConverter(TimeUnit.class), instance.getConverter(TimeUnit.class));
+        try
+        {
+            instance.parse("?", TimeUnit.class);
+            fail();
+        }
+        catch (IllegalArgumentException x)
+        {
+            assert true;
+        }
+
+        instance.register(Size.class, new ValueConverter<Size>()
+            {
+                @Override public Size parse(String value)
+                {
+                    return new Size(Integer.parseInt(value.substring(0, value.length() - 1)) * 1024);
+                }
+            });
+        map.put("size", "4K");
+        assertEquals(4096, map.get("size", Size.class).bytes);
+        assertEquals(4096, map.as(SizeBean.class).getSize().bytes);
+    }
+
+    @Test public void testGenerate() throws Exception
+    {
+        TestMap map = new TestMap();
+        Dwarf bean = instance.generate(Dwarf.class, map.newBeanAccess(), false);
+        final List<PropertyChangeEvent> events = new ArrayList<PropertyChangeEvent>();
+        PropertyChangeListener listener = new PropertyChangeListener()
+        {
+            @Override public void propertyChange(PropertyChangeEvent event)
+            {
+                events.add(event);
+            }
+        };
+
+        assertFalse(Proxy.isProxyClass(bean.getClass()));
+        assertNull(bean.getHomeDir());
+        assertFalse(bean.hasAge());
+        assertEquals(0, bean.getAge());
+        bean.addPropertyChangeListener(Dwarf.PROP_AGE, listener);
+        bean.setAge(DwarfsData.sneezy.age);
+        bean.setHeight(DwarfsData.sneezy.height);
+        bean.setWeight(DwarfsData.sneezy.weight);
+        bean.setHomePage(DwarfsData.sneezy.homePage);
+        bean.setHomeDir(DwarfsData.sneezy.homeDir);
+        bean.setFortuneNumber(DwarfsData.sneezy.fortuneNumber);
+        bean.removePropertyChangeListener(Dwarf.PROP_AGE, listener);
+        bean.setAge(DwarfsData.sneezy.age + 1);
+        bean.setAge(DwarfsData.sneezy.age);
+        Helper.assertEquals(DwarfsData.sneezy, bean);
+        assertTrue(bean.hasAge());
+        assertArrayEquals(DwarfsData.sneezy.fortuneNumber, bean.getFortuneNumber());
+        assertEquals(1, events.size());
+        assertEquals(DwarfsData.sneezy.age, events.get(0).getNewValue());
+        assertSame(bean.getClass(), instance.generate(Dwarf.class, map.newBeanAccess(), true).getClass());
+
+        //
+        // interfaces which are not public fall back to a proxy
+        //
+        assertTrue(Proxy.isProxyClass(instance.generate(HiddenBean.class, map.newBeanAccess(), false).getClass()));
+
+        //
+        // sections of a profile configured for generated beans
+        //
+        Ini ini = new Ini();
+        Config cfg = ini.getConfig().clone();
+
+        cfg.setGeneratedBeans(true);
+        ini.setConfig(cfg);
+        ini.add(Dwarfs.PROP_HAPPY, Dwarf.PROP_AGE, DwarfsData.happy.age);
+        Dwarf happy = ini.get(Dwarfs.PROP_HAPPY).as(Dwarf.class);
+
+        assertFalse(Proxy.isProxyClass(happy.getClass()));
+        assertEquals(DwarfsData.happy.age, happy.getAge());
+        assertFalse(Proxy.isProxyClass(ini.as(Dwarfs.class).getClass()));
+        assertEquals(DwarfsData.happy.age, ini.as(Dwarfs.class).getHappy().getAge());
+    }
+
+    @Test public void testGenerateVeto() throws Exception
+    {
+        TestMap map = new TestMap();
+        Dwarf bean = instance.generate(Dwarf.class, map.newBeanAccess(), false);
+        VetoableChangeListener veto = new VetoableChangeListener()
+        {
+            @Override public void vetoableChange(PropertyChangeEvent event) throws PropertyVetoException
+            {
+                throw new PropertyVetoException("vetoed", event);
+            }
+        };
+
+        bean.addVetoableChangeListener(Dwarf.PROP_AGE, veto);
+        bean.addVetoableChangeListener(Dwarf.PROP_HEIGHT, veto);
+        try
+        {
+            bean.setHeight(DwarfsData.sneezy.height);
+            missing(PropertyVetoException.class);
+        }
+        catch (PropertyVetoException x)
+        {
+            assert true;
+        }
+
+        //
+        // setters which do not declare the veto wrap it like a proxy does
+        //
+        try
+        {
+            bean.setAge(DwarfsData.sneezy.age);
+            missing(UndeclaredThrowableException.class);
+        }
+        catch (UndeclaredThrowableException x)
+        {
+            assertTrue(x.getCause() instanceof PropertyVetoException);
+        }
+
+        assertFalse(bean.hasAge());
+    }
+
     @Test public void testInject() throws Exception
     {
         testInject(null);
@@ -246,6 +393,26 @@ public class BeanToolTest extends Ini4jCase
         private static final long serialVersionUID = 4818386732025655044L;
     }
 
+    interface HiddenBean
+    {
+        int getAge();
+    }
+
+    public interface SizeBean
+    {
+        Size getSize();
+    }
+
+    public static class Size
+    {
+        private final int bytes;
+
+        Size(int value)
+        {
+            bytes = value;
+        }
+    }
+
     private static class BadBean
     {
         public String getName() throws IOException
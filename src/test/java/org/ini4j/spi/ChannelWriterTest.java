@@ -0,0 +1,104 @@
+/*
+ * Copyright 2005,2009 Ivan SZKIBA
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ini4j.spi;
+
+import org.ini4j.Ini4jCase;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.Charset;
+
+public class ChannelWriterTest extends Ini4jCase
+{
+    private static final Charset UTF8 = Charset.forName("UTF-8");
+    private static final String TEXT = "Iv\u00e1n \ud83d\ude00 = \u00e9t\u00e9\n[section]\n";
+
+    @Test public void testFailure() throws Exception
+    {
+        ChannelWriter writer = new ChannelWriter(new BrokenChannel(), UTF8, 4);
+
+        try
+        {
+            writer.write(TEXT);
+            fail();
+        }
+        catch (IOException x)
+        {
+            assert true;
+        }
+
+        try
+        {
+            writer.flush();
+            fail();
+        }
+        catch (IOException x)
+        {
+            assert true;
+        }
+    }
+
+    @Test public void testWrite() throws Exception
+    {
+        for (int size = 1; size < 8; size++)
+        {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            ChannelWriter writer = new ChannelWriter(Channels.newChannel(out), UTF8, size);
+
+            writer.write(TEXT);
+            writer.write(TEXT.toCharArray(), 2, 5);
+            writer.write('x');
+            writer.append(TEXT);
+            writer.flush();
+            assertArrayEquals((TEXT + TEXT.substring(2, 7) + 'x' + TEXT).getBytes(UTF8), out.toByteArray());
+        }
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ChannelWriter writer = new ChannelWriter(Channels.newChannel(out), Charset.forName("UTF-16LE"));
+
+        writer.write(TEXT);
+        writer.close();
+        assertEquals(TEXT, new String(out.toByteArray(), "UTF-16LE"));
+    }
+
+    private static class BrokenChannel implements WritableByteChannel
+    {
+        @Override public boolean isOpen()
+        {
+            return true;
+        }
+
+        @Override public void close()
+        {
+            assert true;
+        }
+
+        @Override public int write(ByteBuffer src) throws IOException
+        {
+            throw new IOException();
+        }
+    }
+}
@@ -19,6 +19,7 @@ import org.ini4j.Ini4jCase;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
 
 import org.junit.Before;
 import org.junit.Test;
@@ -56,6 +57,27 @@ public class EscapeToolTest extends Ini4jCase
         assertEquals(ESCAPE4, instance.escape(VALUE4));
     }
 
+    @Test public void testFastPath() throws Exception
+    {
+        String plain = new String(UNQUOTED1);
+
+        assertSame(plain, instance.escape(plain));
+        assertSame(plain, instance.unescape(plain));
+        assertEquals(UNQUOTED1, instance.unquote(QUOTED1));
+        assertEquals(UNQUOTED2, instance.unquote(QUOTED2));
+        assertEquals(UNQUOTED3, instance.unquote(QUOTED3));
+        assertEquals("x" + VALUE4, instance.unescape("x" + ESCAPE4));
+        try
+        {
+            instance.unescape("\\u12");
+            missing(IllegalArgumentException.class);
+        }
+        catch (IllegalArgumentException x)
+        {
+            //
+        }
+    }
+
     @Test public void testInvalidUnicode()
     {
         try
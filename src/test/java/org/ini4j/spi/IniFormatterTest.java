@@ -28,14 +28,23 @@ import org.ini4j.test.DwarfsData;
 import org.ini4j.test.Helper;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertSame;
 
 import org.junit.Test;
 
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
 import java.io.PrintWriter;
 import java.io.StringReader;
 import java.io.StringWriter;
 
+import java.nio.ByteBuffer;
+
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
+
 public class IniFormatterTest extends Ini4jCase
 {
     private static final String NL = System.getProperty("line.separator");
@@ -125,6 +134,64 @@ public class IniFormatterTest extends Ini4jCase
         verify(ini, handler);
     }
 
+    @Test public void testChannel() throws Exception
+    {
+        Ini ini = Helper.newDwarfsIni();
+        StringWriter writer = new StringWriter();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        ini.store(writer);
+        ini.store(Channels.newChannel(out));
+        assertEquals(writer.toString(), new String(out.toByteArray(), ini.getConfig().getFileEncoding()));
+        out.reset();
+        IniFormatter instance = IniFormatter.newInstance(Channels.newChannel(out), ini.getConfig());
+
+        instance.startIni();
+        instance.startSection(Dwarfs.PROP_BASHFUL);
+        instance.handleOption(Dwarf.PROP_AGE, "67");
+        instance.endSection();
+        instance.endIni();
+        assertNull(instance.getError());
+        assertEquals("[bashful]" + NL + "age = 67" + NL + NL, new String(out.toByteArray(), ini.getConfig().getFileEncoding()));
+    }
+
+    @Test public void testChannelError() throws Exception
+    {
+        Ini ini = Helper.newDwarfsIni();
+        IniFormatter instance = IniFormatter.newInstance(new BrokenChannel(), ini.getConfig());
+
+        instance.startIni();
+        instance.startSection(Dwarfs.PROP_BASHFUL);
+        instance.endSection();
+        instance.endIni();
+        assertNotNull(instance.getError());
+        try
+        {
+            ini.store(new BrokenChannel());
+            missing(IOException.class);
+        }
+        catch (IOException x)
+        {
+            assert true;
+        }
+    }
+
+    @Test public void testComment() throws Exception
+    {
+        Config cfg = new Config();
+        StringWriter writer = new StringWriter();
+        IniFormatter instance;
+
+        cfg.setComment(true);
+        cfg.setLineSeparator("\r\n");
+        instance = IniFormatter.newInstance(writer, cfg);
+        instance.setHeader(false);
+        instance.handleComment("\r\none\r\n\r\ntwo\r\n\r\n");
+        instance.handleComment("\r\n");
+        instance.endIni();
+        assertEquals("#\r\n#one\r\n#\r\n#two\r\n", writer.toString());
+    }
+
     @Test public void testNewInstance() throws Exception
     {
         StringWriter stringWriter;
@@ -229,4 +296,22 @@ public class IniFormatterTest extends Ini4jCase
         parser.parse(new StringReader(writer.toString()), mock);
         EasyMock.verify(mock);
     }
+
+    private static class BrokenChannel implements WritableByteChannel
+    {
+        @Override public boolean isOpen()
+        {
+            return true;
+        }
+
+        @Override public void close()
+        {
+            assert true;
+        }
+
+        @Override public int write(ByteBuffer src) throws IOException
+        {
+            throw new IOException();
+        }
+    }
 }
@@ -100,6 +100,28 @@ public class IniParserTest extends Ini4jCase
         EasyMock.verify(handler);
     }
 
+    @Test public void testIndexOfOperator() throws Exception
+    {
+        IniParser parser = new IniParser();
+        StringBuilder buff = new StringBuilder("long");
+
+        for (int i = 0; i < 0x4000; i++)
+        {
+            buff.append(i % 10);
+        }
+
+        String[] lines = { "a=b", "a:b", "ab", "=b", "a\\=b:c", "a\\:b=c", "a\\=b\\:c", "a==b", buff + "=" + buff, buff.toString() };
+        int[] expected = { 1, 1, -1, 0, 4, 4, -1, 1, buff.length(), -1 };
+
+        for (int i = 0; i < lines.length; i++)
+        {
+            assertEquals(lines[i], expected[i], parser.indexOfOperator(lines[i]));
+            char[] chars = (" " + lines[i] + " ").toCharArray();
+
+            assertEquals(lines[i], (expected[i] < 0) ? -1 : (expected[i] + 1), parser.indexOfOperator(chars, 1, chars.length - 1));
+        }
+    }
+
     @Test public void testLower() throws Exception
     {
         IniParser parser = new IniParser();
@@ -0,0 +1,250 @@
+/*
+ * Copyright 2005,2009 Ivan SZKIBA
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ini4j.spi;
+
+import org.ini4j.Config;
+import org.ini4j.Ini4jCase;
+import org.ini4j.InvalidFileFormatException;
+
+import org.ini4j.test.Helper;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import java.io.File;
+import java.io.StringReader;
+
+import java.net.URL;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class IniReaderTest extends Ini4jCase
+{
+    private static final String[] INPUTS =
+        {
+            "", "[s]\n a = b \n\n;c\n#d\n\n[t]\nx:y\n", "[s]\r\nk\\=1=v\\:2\r\nk2 \\\r\n = long \\\r\n   value\r\n",
+            "[ S\\tx ]\n  Key\\u00e9 = Val\\u00e9 \\t\n\\:=colon\na\\\\=b\n", "g=1\n[s]\nx=\n=y\n", "[s]\nnovalue\n[]\no=v\n", "; header\n\n[s]\n; c\no=v\n; tail",
+            "[section\noption=value\n", "section\noption=value"
+        };
+
+    @Test public void testEquivalence() throws Exception
+    {
+        Config[] configs = { new Config(), new Config(), new Config() };
+
+        configs[1].setEscapeKeyOnly(true);
+        configs[2].setEmptyOption(true);
+        configs[2].setGlobalSection(true);
+        configs[2].setUnnamedSection(true);
+        configs[2].setLowerCaseOption(true);
+        configs[2].setLowerCaseSection(true);
+        for (Config cfg : configs)
+        {
+            for (String input : INPUTS)
+            {
+                assertEquals(input, parse(input, cfg), read(new IniReader(new StringReader(input), cfg)));
+            }
+
+            assertEquals(parse(Helper.getResourceURL(Helper.DWARFS_INI), cfg), read(new IniReader(Helper.getResourceURL(Helper.DWARFS_INI), cfg)));
+        }
+    }
+
+    @Test public void testRead() throws Exception
+    {
+        Config cfg = new Config();
+
+        cfg.setMmapThreshold(0);
+        IniReader reader = new IniReader(new File(Helper.getResourceURL(Helper.DWARFS_INI).toURI()), cfg);
+        int options = 0;
+
+        try
+        {
+            for (IniReader.Event event = reader.next(); !"sneezy".equals(reader.getSection()); event = reader.next())
+            {
+                if (event == IniReader.Event.SECTION)
+                {
+                    options = 0;
+                }
+                else if (event == IniReader.Event.OPTION)
+                {
+                    options++;
+                }
+            }
+
+            assertEquals(IniReader.Event.SECTION, reader.getEvent());
+            assertEquals("sneezy", reader.getName());
+            assertNull(reader.getValue());
+            assertTrue(options > 0);
+            while (reader.next() != IniReader.Event.OPTION)
+            {
+                assertNull(reader.getName());
+            }
+
+            assertEquals("sneezy", reader.getSection());
+            CharSequence name = reader.getName();
+
+            assertEquals("weight", name.toString());
+            assertEquals('w', name.charAt(0));
+            assertEquals("eig", name.subSequence(1, 4));
+            assertEquals("69.7", reader.getValue().toString());
+            assertNull(reader.getComment());
+        }
+        finally
+        {
+            reader.close();
+        }
+    }
+
+    @Test public void testParseError() throws Exception
+    {
+        IniReader reader = new IniReader(new StringReader("[a]\nx=1\n\nbroken\n"), new Config());
+
+        assertEquals(IniReader.Event.SECTION, reader.next());
+        assertEquals(IniReader.Event.OPTION, reader.next());
+        try
+        {
+            reader.next();
+            missing(InvalidFileFormatException.class);
+        }
+        catch (InvalidFileFormatException x)
+        {
+            assertEquals("parse error (at line: 4): broken", x.getMessage());
+        }
+        finally
+        {
+            reader.close();
+        }
+    }
+
+    private List<String> parse(String input, Config config) throws Exception
+    {
+        Recorder handler = new Recorder();
+        IniParser parser = new ScanningIniParser();
+
+        parser.setConfig(config);
+        try
+        {
+            parser.parse(new StringReader(input), handler);
+        }
+        catch (InvalidFileFormatException x)
+        {
+            handler.events.add(x.getMessage());
+        }
+
+        return handler.events;
+    }
+
+    private List<String> parse(URL input, Config config) throws Exception
+    {
+        Recorder handler = new Recorder();
+        IniParser parser = new ScanningIniParser();
+
+        parser.setConfig(config);
+        parser.parse(input, handler);
+
+        return handler.events;
+    }
+
+    private List<String> read(IniReader reader) throws Exception
+    {
+        List<String> events = new ArrayList<String>();
+
+        try
+        {
+            for (IniReader.Event event = reader.next(); event != null; event = reader.next())
+            {
+                if (event == IniReader.Event.COMMENT)
+                {
+                    events.add("comment:" + reader.getComment());
+                }
+                else if (event == IniReader.Event.SECTION)
+                {
+                    events.add("section:" + reader.getName());
+                }
+                else
+                {
+                    events.add("option:" + reader.getName() + "=" + reader.getValue());
+                }
+            }
+        }
+        catch (InvalidFileFormatException x)
+        {
+            events.add(x.getMessage());
+        }
+        finally
+        {
+            reader.close();
+        }
+
+        return events;
+    }
+
+    private static class Recorder extends IniHandlerAdapter
+    {
+        private final List<String> events = new ArrayList<String>();
+
+        @Override public void handleComment(String comment)
+        {
+            events.add("comment:" + comment);
+        }
+
+        @Override public void handleOption(String optionName, String optionValue)
+        {
+            events.add("option:" + optionName + "=" + optionValue);
+        }
+
+        @Override public void startSection(String sectionName)
+        {
+            events.add("section:" + sectionName);
+        }
+    }
+
+    private static class IniHandlerAdapter implements IniHandler
+    {
+        @Override public void endIni()
+        {
+            assert true;
+        }
+
+        @Override public void endSection()
+        {
+            assert true;
+        }
+
+        @Override public void handleComment(String comment)
+        {
+            assert true;
+        }
+
+        @Override public void handleOption(String optionName, String optionValue)
+        {
+            assert true;
+        }
+
+        @Override public void startIni()
+        {
+            assert true;
+        }
+
+        @Override public void startSection(String sectionName)
+        {
+            assert true;
+        }
+    }
+}
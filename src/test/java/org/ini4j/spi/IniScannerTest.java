@@ -0,0 +1,153 @@
+/*
+ * Copyright 2005,2009 Ivan SZKIBA
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ini4j.spi;
+
+import org.ini4j.Config;
+import org.ini4j.Ini4jCase;
+
+import org.ini4j.test.Helper;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.StringReader;
+
+import java.net.URL;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class IniScannerTest extends Ini4jCase
+{
+    private static final String COMMENTS = ";#";
+    private static final String NESTED_PATH = "org/ini4j/spi/nested.txt";
+    private static final String MIXED = ";c1\r\n#c2\r\n\r\n  line1  \r\nline2\\\r\n\r\n  cont\\\\\rline3\n;c3\n[s]\\\nx\\\n";
+    private static final int[] BUFFER_SIZES = { 1, 2, 3, 7, IniScanner.DEFAULT_BUFFER_SIZE };
+
+    @Test public void testWithInclude() throws Exception
+    {
+        Config cfg = new Config();
+
+        cfg.setInclude(true);
+        StringBuilder outer = new StringBuilder();
+
+        outer.append(";-1:outer\n");
+        outer.append("1:outer\n");
+        outer.append('<');
+        outer.append(Helper.getResourceURL(NESTED_PATH).toExternalForm());
+        outer.append(">\n");
+        outer.append("<?");
+        outer.append(new URL(Helper.getResourceURL(NESTED_PATH), "missing.txt").toExternalForm());
+        outer.append(">\n");
+        outer.append("2:outer\n");
+        outer.append(";-2:outer\n");
+        String input = outer.toString();
+
+        for (int size : BUFFER_SIZES)
+        {
+            assertEquals(source(input, cfg), scan(input, cfg, size));
+        }
+    }
+
+    @Test public void testWithoutInclude() throws Exception
+    {
+        Config cfg = new Config();
+
+        cfg.setInclude(false);
+        IniScanner scanner = new IniScanner(Helper.getResourceURL(NESTED_PATH), new char[1], COMMENTS, cfg);
+
+        assertEquals(IniScanner.Token.COMMENT, scanner.next());
+        assertEquals("-1:nested.txt", scanner.getComment());
+        assertEquals(IniScanner.Token.LINE, scanner.next());
+        assertEquals("1:nested.txt", scanner.lineToString());
+        assertEquals(2, scanner.getLineNumber());
+        assertEquals(IniScanner.Token.COMMENT, scanner.next());
+        assertEquals(IniScanner.Token.LINE, scanner.next());
+        assertEquals("<include.txt>", scanner.lineToString());
+        assertEquals(4, scanner.getLineNumber());
+        assertEquals(IniScanner.Token.COMMENT, scanner.next());
+        assertEquals(IniScanner.Token.LINE, scanner.next());
+        assertEquals("2:nested.txt", scanner.lineToString());
+        assertEquals(IniScanner.Token.COMMENT, scanner.next());
+        assertEquals("-4:nested.txt", scanner.getComment());
+        assertNull(scanner.next());
+    }
+
+    @Test public void testLineEndings() throws Exception
+    {
+        Config cfg = new Config();
+
+        for (int size : BUFFER_SIZES)
+        {
+            assertEquals(source(MIXED, cfg), scan(MIXED, cfg, size));
+        }
+
+        cfg.setEscapeNewline(false);
+        for (int size : BUFFER_SIZES)
+        {
+            assertEquals(source(MIXED, cfg), scan(MIXED, cfg, size));
+        }
+    }
+
+    private List<String> scan(String input, Config config, int bufferSize) throws Exception
+    {
+        List<String> events = new ArrayList<String>();
+        IniScanner scanner = new IniScanner(new StringReader(input), new char[bufferSize], COMMENTS, config);
+
+        for (IniScanner.Token token = scanner.next(); token != null; token = scanner.next())
+        {
+            if (token == IniScanner.Token.COMMENT)
+            {
+                events.add("comment:" + scanner.getComment());
+            }
+            else
+            {
+                events.add(scanner.lineToString() + "@" + scanner.getLineNumber());
+            }
+        }
+
+        return events;
+    }
+
+    private List<String> source(String input, Config config) throws Exception
+    {
+        final List<String> events = new ArrayList<String>();
+        HandlerBase handler = new HandlerBase()
+        {
+            @Override public void handleComment(String comment)
+            {
+                events.add("comment:" + comment);
+            }
+
+            @Override public void handleOption(String optionName, String optionValue)
+            {
+                assert true;
+            }
+        };
+
+        IniSource source = new IniSource(new ByteArrayInputStream(input.getBytes("UTF-8")), handler, COMMENTS, config);
+
+        for (String line = source.readLine(); line != null; line = source.readLine())
+        {
+            events.add(line + "@" + source.getLineNumber());
+        }
+
+        return events;
+    }
+}
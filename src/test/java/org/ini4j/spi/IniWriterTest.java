@@ -0,0 +1,296 @@
+/*
+ * Copyright 2005,2009 Ivan SZKIBA
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ini4j.spi;
+
+import org.ini4j.Config;
+import org.ini4j.Ini;
+import org.ini4j.Ini4jCase;
+import org.ini4j.Profile;
+
+import org.ini4j.test.Helper;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.fail;
+
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.io.Writer;
+
+public class IniWriterTest extends Ini4jCase
+{
+    @Test public void testClosed() throws Exception
+    {
+        IniWriter writer = new IniWriter(new StringWriter(), new Config());
+
+        writer.close();
+        writer.close();
+        try
+        {
+            writer.section("s");
+            fail();
+        }
+        catch (IOException x)
+        {
+            assert true;
+        }
+    }
+
+    @Test public void testFailure() throws Exception
+    {
+        IniWriter writer = new IniWriter(new BrokenWriter(), new Config());
+
+        try
+        {
+            writer.section("s");
+            fail();
+        }
+        catch (IOException x)
+        {
+            assert true;
+        }
+
+        try
+        {
+            writer.flush();
+            fail();
+        }
+        catch (IOException x)
+        {
+            assert true;
+        }
+
+        try
+        {
+            writer.option("a", "b");
+            fail();
+        }
+        catch (IOException x)
+        {
+            assert true;
+        }
+    }
+
+    @Test public void testFile() throws Exception
+    {
+        File file = File.createTempFile("ini4j", ".ini");
+
+        try
+        {
+            IniWriter writer = new IniWriter(file, new Config());
+
+            writer.section("Iv\u00e1n");
+            for (int i = 0; i < 10000; i++)
+            {
+                writer.option("option" + i, "value \u00e9t\u00e9 " + i);
+            }
+
+            writer.close();
+            Ini ini = new Ini(file);
+
+            assertEquals(10000, ini.get("Iv\u00e1n").size());
+            assertEquals("value \u00e9t\u00e9 9999", ini.get("Iv\u00e1n", "option9999"));
+        }
+        finally
+        {
+            file.delete();
+        }
+    }
+
+    @Test public void testGlobalSection() throws Exception
+    {
+        Config config = new Config();
+
+        config.setGlobalSection(true);
+        StringWriter out = new StringWriter();
+        IniWriter writer = new IniWriter(out, config);
+
+        assertNull(writer.getSection());
+        writer.option("a", "1");
+        assertEquals(config.getGlobalSectionName(), writer.getSection());
+        writer.section("s");
+        writer.option("b", "2");
+        try
+        {
+            writer.section(config.getGlobalSectionName());
+            fail();
+        }
+        catch (IllegalStateException x)
+        {
+            assert true;
+        }
+
+        writer.close();
+        Ini ini = new Ini();
+
+        ini.setConfig(config);
+        ini.load(new StringReader(out.toString()));
+        assertEquals("1", ini.get(config.getGlobalSectionName(), "a"));
+        assertEquals("2", ini.get("s", "b"));
+    }
+
+    @Test public void testInvalid() throws Exception
+    {
+        Config config = new Config();
+
+        config.setEmptyOption(false);
+        config.setEscape(true);
+        config.setEscapeKeyOnly(false);
+        config.setGlobalSection(false);
+        config.setUnnamedSection(false);
+        IniWriter writer = new IniWriter(new StringWriter(), config);
+
+        try
+        {
+            writer.option("a", "b");
+            fail();
+        }
+        catch (IllegalStateException x)
+        {
+            assert true;
+        }
+
+        invalidSection(writer, null);
+        invalidSection(writer, "");
+        writer.section("s");
+        invalidOption(writer, null, "v");
+        invalidOption(writer, "", "v");
+        invalidOption(writer, ";a", "v");
+        invalidOption(writer, "[a]", "v");
+        invalidOption(writer, "a", null);
+        writer.comment(null);
+        invalidComment(writer, "a\rb");
+        writer.option("a=b", "c\nd\\");
+        config.setEscape(false);
+        invalidSection(writer, "a\nb");
+        invalidOption(writer, "a=b", "v");
+        invalidOption(writer, "a", "b\nc");
+        invalidOption(writer, "a", "b\\");
+        config.setEscape(true);
+        config.setEscapeKeyOnly(true);
+        invalidOption(writer, "a", "b\\");
+        writer.option("a\nb", "c");
+        writer.close();
+    }
+
+    @Test public void testStore() throws Exception
+    {
+        Config[] configs = { new Config(), new Config(), new Config() };
+
+        configs[1].setStrictOperator(true);
+        configs[1].setEmptyOption(true);
+        configs[2].setComment(false);
+        configs[2].setEscape(false);
+        for (Config config : configs)
+        {
+            Ini ini = Helper.loadDwarfsIni(config);
+
+            if (config.isEmptyOption())
+            {
+                ini.add("empty").put("option", null);
+            }
+
+            StringWriter expected = new StringWriter();
+
+            ini.store(expected);
+            StringWriter out = new StringWriter();
+
+            write(ini, new IniWriter(out, config));
+            assertEquals(expected.toString(), out.toString());
+        }
+    }
+
+    private void invalidComment(IniWriter writer, String text) throws Exception
+    {
+        try
+        {
+            writer.comment(text);
+            fail();
+        }
+        catch (IllegalArgumentException x)
+        {
+            assert true;
+        }
+    }
+
+    private void invalidOption(IniWriter writer, String name, String value) throws Exception
+    {
+        try
+        {
+            writer.option(name, value);
+            fail();
+        }
+        catch (IllegalArgumentException x)
+        {
+            assert true;
+        }
+    }
+
+    private void invalidSection(IniWriter writer, String name) throws Exception
+    {
+        try
+        {
+            writer.section(name);
+            fail();
+        }
+        catch (IllegalArgumentException x)
+        {
+            assert true;
+        }
+    }
+
+    private void write(Ini ini, IniWriter writer) throws Exception
+    {
+        writer.comment(ini.getComment());
+        for (Profile.Section section : ini.values())
+        {
+            writer.comment(ini.getComment(section.getName()));
+            writer.section(section.getName());
+            for (String option : section.keySet())
+            {
+                writer.comment(section.getComment(option));
+                for (int i = 0; i < section.length(option); i++)
+                {
+                    writer.option(option, section.get(option, i));
+                }
+            }
+        }
+
+        writer.close();
+    }
+
+    private static class BrokenWriter extends Writer
+    {
+        @Override public void close()
+        {
+            assert true;
+        }
+
+        @Override public void flush() throws IOException
+        {
+            throw new IOException();
+        }
+
+        @Override public void write(char[] cbuf, int off, int len) throws IOException
+        {
+            throw new IOException();
+        }
+    }
+}
@@ -0,0 +1,191 @@
+/*
+ * Copyright 2005,2009 Ivan SZKIBA
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ini4j.spi;
+
+import org.ini4j.Config;
+import org.ini4j.Ini;
+import org.ini4j.Ini4jCase;
+import org.ini4j.Options;
+import org.ini4j.Persistable;
+import org.ini4j.Reg;
+
+import org.ini4j.sample.Dwarfs;
+
+import org.ini4j.test.Helper;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.Reader;
+import java.io.StringWriter;
+
+import java.nio.charset.Charset;
+
+public class MappedFileReaderTest extends Ini4jCase
+{
+    private static final String[] ENCODED =
+        {
+            "UTF-8.ini", "UTF-8-BOM.ini", "UTF-16BE.ini", "UTF-16BE-BOM.ini", "UTF-16LE.ini", "UTF-16LE-BOM.ini", "UTF-32BE-BOM.ini",
+            "UTF-32LE-BOM.ini"
+        };
+    private static final String[] CHARSETS = { "UTF-8", "UTF-8", "UTF-16BE", "UTF-8", "UTF-16LE", "UTF-8", "UTF-8", "UTF-8" };
+    private static final String TEXT = "[séction]\nárvíztűrő = tükörfúrógép 𝄞\n";
+    private static final String UTF8 = "UTF-8";
+
+    @Test public void testBom() throws Exception
+    {
+        for (int i = 0; i < ENCODED.length; i++)
+        {
+            File file = resource(ENCODED[i]);
+            Charset charset = Charset.forName(CHARSETS[i]);
+
+            assertEquals(ENCODED[i], read(new UnicodeInputStreamReader(getClass().getResourceAsStream(ENCODED[i]), charset)),
+                read(new MappedFileReader(file, charset, true)));
+        }
+    }
+
+    @Test public void testIsMapped() throws Exception
+    {
+        Config cfg = new Config();
+        File file = resource(ENCODED[0]);
+
+        assertFalse(MappedFileReader.isMapped(file, cfg));
+        cfg.setMmapThreshold(0);
+        assertTrue(MappedFileReader.isMapped(file, cfg));
+        cfg.setMmapThreshold(file.length() + 1);
+        assertFalse(MappedFileReader.isMapped(file, cfg));
+        cfg.setMmapThreshold(0);
+        assertFalse(MappedFileReader.isMapped(file.getParentFile(), cfg));
+    }
+
+    @Test public void testLoad() throws Exception
+    {
+        File file = new File(Helper.getResourceURL(Helper.DWARFS_INI).toURI());
+        Ini ini = new Ini();
+
+        ini.setConfig(Config.getGlobal().clone());
+        ini.getConfig().setMmapThreshold(0);
+        ini.load(file);
+        Helper.assertEquals(Helper.loadDwarfsIni().as(Dwarfs.class), ini.as(Dwarfs.class));
+        Reg reg = new Reg();
+
+        reg.getConfig().setMmapThreshold(0);
+        reg.load(new File(Helper.getResourceURL(Helper.DWARFS_REG).toURI()));
+        assertEquals(store(Helper.loadDwarfsReg()), store(reg));
+        Options opts = new Options();
+
+        opts.getConfig().setMmapThreshold(0);
+        opts.load(new File(Helper.getResourceURL(Helper.DWARFS_OPT).toURI()));
+        assertEquals(store(Helper.loadDwarfsOpt()), store(opts));
+    }
+
+    @Test public void testInclude() throws Exception
+    {
+        File file = resource("nested.txt");
+        Config cfg = new Config();
+
+        cfg.setInclude(true);
+        cfg.setEmptyOption(true);
+        cfg.setGlobalSection(true);
+        Ini expected = new Ini();
+
+        expected.setConfig(cfg);
+        expected.load(file.toURI().toURL());
+        cfg = cfg.clone();
+        cfg.setMmapThreshold(0);
+        for (IniParser parser : new IniParser[] { new IniParser(), new ScanningIniParser() })
+        {
+            Ini ini = new Ini();
+
+            ini.setConfig(cfg);
+            parser.setConfig(cfg);
+            parser.parse(file, IniBuilder.newInstance(ini));
+            assertEquals(store(expected), store(ini));
+        }
+    }
+
+    @Test public void testWindows() throws Exception
+    {
+        File file = File.createTempFile("ini4j", ".ini");
+
+        try
+        {
+            StringBuilder buff = new StringBuilder();
+
+            for (int i = 0; i < 100; i++)
+            {
+                buff.append(TEXT);
+            }
+
+            String text = buff.toString();
+            OutputStream out = new FileOutputStream(file);
+
+            out.write(text.getBytes(UTF8));
+            out.close();
+            for (int window = 4; window < 12; window++)
+            {
+                assertEquals(text, read(new MappedFileReader(file, Charset.forName(UTF8), true, window)));
+            }
+
+            assertEquals(text, read(new MappedFileReader(file, Charset.forName(UTF8), false)));
+        }
+        finally
+        {
+            file.delete();
+        }
+    }
+
+    private String read(Reader reader) throws IOException
+    {
+        StringBuilder buff = new StringBuilder();
+        char[] chars = new char[7];
+
+        try
+        {
+            for (int n = reader.read(chars); n != -1; n = reader.read(chars))
+            {
+                buff.append(chars, 0, n);
+            }
+        }
+        finally
+        {
+            reader.close();
+        }
+
+        return buff.toString();
+    }
+
+    private String store(Persistable persistable) throws IOException
+    {
+        StringWriter writer = new StringWriter();
+
+        persistable.store(writer);
+
+        return writer.toString();
+    }
+
+    private File resource(String name) throws Exception
+    {
+        return new File(getClass().getResource(name).toURI());
+    }
+}
@@ -0,0 +1,223 @@
+/*
+ * Copyright 2005,2009 Ivan SZKIBA
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ini4j.spi;
+
+import org.ini4j.Config;
+import org.ini4j.Ini;
+import org.ini4j.Ini4jCase;
+import org.ini4j.InvalidFileFormatException;
+
+import org.ini4j.sample.Dwarfs;
+
+import org.ini4j.test.Helper;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.OutputStream;
+import java.io.StringReader;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class ParallelIniLoaderTest extends Ini4jCase
+{
+    private static final String INPUT =
+        "; header\n\nglobal = 1\n# section comment \\\n[first]\r\nname = value\\\n\n[not a section]\\\\\\\n;not a comment\n"
+        + "[first]\n; option comment\nmulti = 1\n\n[second]\rx=1\r\n\r\n[third] \n  [ fourth ]\nkey = \"é\" \\u00e9\n; trailing comment\n";
+    private static final String BAD = "[a]\nx=1\n[b]\ny=2\n[c]\nbroken line\n[d]\nz=3\n";
+    private static final byte[] UTF8_BOM = { (byte) 0xEF, (byte) 0xBB, (byte) 0xBF };
+
+    @Test public void testEquivalence() throws Exception
+    {
+        Config cfg = new Config();
+
+        cfg.setGlobalSection(true);
+        cfg.setEmptyOption(true);
+        for (String input : new String[] { INPUT, INPUT.replace("\n", "\r\n"), "[only]\na=b" })
+        {
+            for (boolean bom : new boolean[] { false, true })
+            {
+                File file = write(input, bom);
+
+                try
+                {
+                    for (IniParser parser : new IniParser[] { new IniParser(), new ScanningIniParser() })
+                    {
+                        parser.setConfig(cfg);
+                        assertTrue((input.length() < 20) || new ParallelIniLoader(parser, file, 1).load(new Recorder()));
+                        for (long chunkSize = 1; chunkSize < 64; chunkSize += 7)
+                        {
+                            assertEquals(sequential(parser, input), parallel(parser, file, chunkSize));
+                        }
+                    }
+                }
+                finally
+                {
+                    file.delete();
+                }
+            }
+        }
+    }
+
+    @Test public void testError() throws Exception
+    {
+        File file = write(BAD, false);
+
+        try
+        {
+            for (IniParser parser : new IniParser[] { new IniParser(), new ScanningIniParser() })
+            {
+                List<String> expected = sequential(parser, BAD);
+
+                assertTrue(expected.get(expected.size() - 1).contains("line 6"));
+                assertEquals(expected, parallel(parser, file, 1));
+            }
+        }
+        finally
+        {
+            file.delete();
+        }
+    }
+
+    @Test public void testFallback() throws Exception
+    {
+        File file = write(INPUT, false);
+        Config cfg = new Config();
+
+        try
+        {
+            assertFalse(ParallelIniLoader.isParallel(file, cfg));
+            cfg.setParallelThreshold(0);
+            assertTrue(ParallelIniLoader.isParallel(file, cfg));
+            cfg.setInclude(true);
+            assertFalse(ParallelIniLoader.isParallel(file, cfg));
+            cfg.setInclude(false);
+            cfg.setFileEncoding(java.nio.charset.Charset.forName("UTF-16LE"));
+            IniParser parser = new IniParser();
+
+            parser.setConfig(cfg);
+            assertFalse(new ParallelIniLoader(parser, file, 1).load(new Recorder()));
+            cfg.setFileEncoding(Config.DEFAULT_FILE_ENCODING);
+            assertFalse(new ParallelIniLoader(parser, file, file.length()).load(new Recorder()));
+        }
+        finally
+        {
+            file.delete();
+        }
+    }
+
+    @Test public void testLoad() throws Exception
+    {
+        Ini ini = new Ini();
+
+        ini.setConfig(Config.getGlobal().clone());
+        ini.getConfig().setParallelThreshold(0);
+        ini.load(new File(Helper.getResourceURL(Helper.DWARFS_INI).toURI()));
+        Helper.assertEquals(Helper.loadDwarfsIni().as(Dwarfs.class), ini.as(Dwarfs.class));
+    }
+
+    private List<String> parallel(IniParser parser, File file, long chunkSize) throws Exception
+    {
+        Recorder handler = new Recorder();
+
+        try
+        {
+            if (!new ParallelIniLoader(parser, file, chunkSize).load(handler))
+            {
+                parser.parse(file.toURI().toURL(), handler);
+            }
+        }
+        catch (InvalidFileFormatException x)
+        {
+            handler.events.add(x.getMessage().replaceAll("in .* at", "at"));
+        }
+
+        return handler.events;
+    }
+
+    private List<String> sequential(IniParser parser, String input) throws Exception
+    {
+        Recorder handler = new Recorder();
+
+        try
+        {
+            parser.parse(new StringReader(input), handler);
+        }
+        catch (InvalidFileFormatException x)
+        {
+            handler.events.add(x.getMessage().replaceAll("\\(at line:", "(at line"));
+        }
+
+        return handler.events;
+    }
+
+    private File write(String input, boolean bom) throws Exception
+    {
+        File file = File.createTempFile("ini4j", ".ini");
+        OutputStream out = new FileOutputStream(file);
+
+        if (bom)
+        {
+            out.write(UTF8_BOM);
+        }
+
+        out.write(input.getBytes("UTF-8"));
+        out.close();
+
+        return file;
+    }
+
+    private static class Recorder implements IniHandler
+    {
+        private final List<String> events = new ArrayList<String>();
+
+        @Override public void endIni()
+        {
+            events.add("endIni");
+        }
+
+        @Override public void endSection()
+        {
+            events.add("endSection");
+        }
+
+        @Override public void handleComment(String comment)
+        {
+            events.add("comment:" + comment);
+        }
+
+        @Override public void handleOption(String optionName, String optionValue)
+        {
+            events.add("option:" + optionName + "=" + optionValue);
+        }
+
+        @Override public void startIni()
+        {
+            events.add("startIni");
+        }
+
+        @Override public void startSection(String sectionName)
+        {
+            events.add("section:" + sectionName);
+        }
+    }
+}
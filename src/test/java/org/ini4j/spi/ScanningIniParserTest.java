@@ -0,0 +1,213 @@
+/*
+ * Copyright 2005,2009 Ivan SZKIBA
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ini4j.spi;
+
+import org.ini4j.Config;
+import org.ini4j.Ini;
+import org.ini4j.Ini4jCase;
+import org.ini4j.InvalidFileFormatException;
+
+import org.ini4j.test.Helper;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.StringReader;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class ScanningIniParserTest extends Ini4jCase
+{
+    private static final String[] BAD =
+        {
+            "[section\noption=value\n", "[]\noption=value", "section\noption=value", "[section]\noption\n", "[section]\n=value\n",
+            "[section]\n\\u000d\\u000d=value\n"
+        };
+    private static final String[] GOOD =
+        {
+            "", "[s]\n a = b \n\n;c\n#d\n\n[t]\nx:y\n", "[s]\r\nk\\=1=v\\:2\r\nk2 \\\r\n = long \\\r\n   value\r\n",
+            "[ S\\tx ]\n  Key\\u00e9 = Val\\u00e9 \\t\n\\:=colon\na\\\\=b\n", "g=1\n[s]\nx=\n=y\n", "[s]\nnovalue\n[]\no=v\n", "; header\n\n[s]\n; c\no=v\n; tail"
+        };
+    private static final String[] SAMPLES = { Helper.DWARFS_INI, Helper.TALE_INI, "org/ini4j/sample/dwarfs-py.ini" };
+
+    @Test public void testEquivalence() throws Exception
+    {
+        for (Config cfg : configs())
+        {
+            for (String input : GOOD)
+            {
+                assertSameEvents(input, cfg);
+            }
+
+            for (String input : BAD)
+            {
+                assertSameEvents(input, cfg);
+            }
+
+            for (String path : SAMPLES)
+            {
+                assertEquals(path, parseResource(new IniParser(), path, cfg), parseResource(new ScanningIniParser(), path, cfg));
+            }
+        }
+    }
+
+    @Test public void testLongLines() throws Exception
+    {
+        StringBuilder buff = new StringBuilder("[section]\n");
+
+        for (int i = 0; i < 10; i++)
+        {
+            buff.append("option").append(i).append(" = ");
+            for (int j = 0; j < (IniScanner.DEFAULT_BUFFER_SIZE / 4); j++)
+            {
+                buff.append((char) ('a' + (j % 26)));
+            }
+
+            buff.append(" \\\n  ").append(i).append('\n');
+        }
+
+        assertSameEvents(buff.toString(), new Config());
+    }
+
+    @Test public void testNewInstance() throws Exception
+    {
+        System.setProperty(IniParser.class.getName(), ScanningIniParser.class.getName());
+        try
+        {
+            assertEquals(ScanningIniParser.class, IniParser.newInstance().getClass());
+            Ini ini = new Ini(Helper.getResourceURL(Helper.DWARFS_INI));
+
+            Helper.assertEquals(Helper.loadDwarfsIni().as(org.ini4j.sample.Dwarfs.class), ini.as(org.ini4j.sample.Dwarfs.class));
+        }
+        finally
+        {
+            System.getProperties().remove(IniParser.class.getName());
+        }
+    }
+
+    @Test public void testParseExceptions() throws Exception
+    {
+        IniParser parser = new ScanningIniParser();
+
+        for (String s : BAD)
+        {
+            try
+            {
+                parser.parse(new ByteArrayInputStream(s.getBytes()), new Recorder());
+                missing(InvalidFileFormatException.class);
+            }
+            catch (InvalidFileFormatException x)
+            {
+                assertTrue(x.getMessage().startsWith("parse error"));
+            }
+        }
+    }
+
+    private List<Config> configs()
+    {
+        List<Config> list = new ArrayList<Config>();
+        Config cfg = new Config();
+
+        list.add(cfg);
+        cfg = new Config();
+        cfg.setEscape(false);
+        list.add(cfg);
+        cfg = new Config();
+        cfg.setEscapeKeyOnly(true);
+        cfg.setEscapeNewline(false);
+        list.add(cfg);
+        cfg = new Config();
+        cfg.setEmptyOption(true);
+        cfg.setGlobalSection(true);
+        cfg.setUnnamedSection(true);
+        cfg.setLowerCaseOption(true);
+        cfg.setLowerCaseSection(true);
+        list.add(cfg);
+
+        return list;
+    }
+
+    private List<String> parse(IniParser parser, String input, Config config) throws Exception
+    {
+        Recorder handler = new Recorder();
+
+        parser.setConfig(config);
+        try
+        {
+            parser.parse(new StringReader(input), handler);
+        }
+        catch (InvalidFileFormatException x)
+        {
+            handler.events.add(x.getMessage());
+        }
+
+        return handler.events;
+    }
+
+    private List<String> parseResource(IniParser parser, String path, Config config) throws Exception
+    {
+        Recorder handler = new Recorder();
+
+        parser.setConfig(config);
+        parser.parse(Helper.getResourceURL(path), handler);
+
+        return handler.events;
+    }
+
+    private void assertSameEvents(String input, Config config) throws Exception
+    {
+        assertEquals(input, parse(new IniParser(), input, config), parse(new ScanningIniParser(), input, config));
+    }
+
+    private static class Recorder implements IniHandler
+    {
+        private final List<String> events = new ArrayList<String>();
+
+        @Override public void endIni()
+        {
+            events.add("endIni");
+        }
+
+        @Override public void endSection()
+        {
+            events.add("endSection");
+        }
+
+        @Override public void handleComment(String comment)
+        {
+            events.add("comment:" + comment);
+        }
+
+        @Override public void handleOption(String optionName, String optionValue)
+        {
+            events.add("option:" + optionName + "=" + optionValue);
+        }
+
+        @Override public void startIni()
+        {
+            events.add("startIni");
+        }
+
+        @Override public void startSection(String sectionName)
+        {
+            events.add("section:" + sectionName);
+        }
+    }
+}
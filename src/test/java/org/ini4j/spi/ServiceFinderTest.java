@@ -21,6 +21,7 @@ import org.ini4j.test.Helper;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 
 import org.junit.Test;
@@ -71,6 +72,43 @@ public class ServiceFinderTest extends Ini4jCase
         assertTrue(flag);
     }
 
+    @Test public void testCache() throws Exception
+    {
+        assertSame(IniParser.class, ServiceFinder.findServiceClass(IniParser.class));
+        System.setProperty(IniParser.class.getName(), ScanningIniParser.class.getName());
+        assertSame(ScanningIniParser.class, ServiceFinder.findServiceClass(IniParser.class));
+        assertSame(ScanningIniParser.class, IniParser.newInstance().getClass());
+        System.getProperties().remove(IniParser.class.getName());
+        assertSame(IniParser.class, IniParser.newInstance().getClass());
+        ServiceFinder.invalidate();
+        assertEquals(DUMMY_IMPL, ServiceFinder.findServiceClassName(DUMMY_SERVICE));
+        assertNull(ServiceFinder.findServiceClassName(IniParser.class.getName()));
+    }
+
+    @Test public void testRegister() throws Exception
+    {
+        final IniParser parser = new ScanningIniParser();
+
+        ServiceFinder.register(IniParser.class,
+            new ServiceFactory<IniParser>()
+            {
+                @Override public IniParser newInstance()
+                {
+                    return parser;
+                }
+            });
+        try
+        {
+            assertSame(parser, IniParser.newInstance());
+        }
+        finally
+        {
+            ServiceFinder.unregister(IniParser.class);
+        }
+
+        assertSame(IniParser.class, IniParser.newInstance().getClass());
+    }
+
     @Test public void testFindServiceClassName() throws Exception
     {
         System.setProperty(IniParser.class.getName(), DUMMY);
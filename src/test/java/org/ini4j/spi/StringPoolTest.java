@@ -0,0 +1,72 @@
+/*
+ * Copyright 2005,2009 Ivan SZKIBA
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ini4j.spi;
+
+import org.ini4j.Config;
+import org.ini4j.Ini;
+import org.ini4j.Ini4jCase;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import org.junit.Test;
+
+import java.io.StringReader;
+
+public class StringPoolTest extends Ini4jCase
+{
+    private static final String DATA = "[host/1]\nenabled = true\nport = 80\n[host/2]\nenabled = true\nport = 8080\n";
+
+    @Test public void testIntern()
+    {
+        StringPool pool = new StringPool(8);
+        String value = new String("true");
+        String longValue = new String("a value longer than sixteen characters");
+
+        assertSame(value, pool.intern(value));
+        assertSame(value, pool.intern(new String("true")));
+        assertSame(value, pool.internValue(new String("true")));
+        assertNotSame(longValue, pool.internValue(new String(longValue)));
+        assertNull(pool.intern(null));
+        pool = new StringPool(1);
+        value = new String("80");
+        assertSame(value, pool.intern(value));
+        assertSame(value, pool.intern(new String("80")));
+        value = new String("8080");
+        assertSame(value, pool.intern(value));
+        assertNotSame(value, pool.intern(new String("8080")));
+        assertNull(pool.internValue(null));
+    }
+
+    @Test public void testLoad() throws Exception
+    {
+        Ini ini = new Ini();
+        Config cfg = ini.getConfig().clone();
+
+        cfg.setStringPoolSize(64);
+        ini.setConfig(cfg);
+        ini.load(new StringReader(DATA));
+        Ini.Section first = ini.get("host/1");
+        Ini.Section second = ini.get("host/2");
+
+        assertEquals("true", first.get("enabled"));
+        assertEquals("8080", second.get("port"));
+        assertSame(first.keySet().iterator().next(), second.keySet().iterator().next());
+        assertSame(first.get("enabled"), second.get("enabled"));
+    }
+}